@@ -0,0 +1,81 @@
+-- Benchmark de búsqueda de texto: LIKE sin índice vs GIN pg_trgm (V7).
+--
+-- Genera 1M de productos y 1M de clientes en un esquema aparte (bench) y corre
+-- las mismas consultas que emite TextSearch antes y después de crear los
+-- índices. No toca erp_schema.
+--
+--   psql -h localhost -p 5434 -U erp -d erp -f infra/bench/search_bench.sql
+--
+-- Comparar "Execution Time" y el plan (Seq Scan vs Bitmap Index Scan) de cada
+-- par de EXPLAIN.
+\timing on
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+
+CREATE TABLE bench.products (
+    id    bigint PRIMARY KEY,
+    name  varchar(150) NOT NULL,
+    sku   varchar(60)  NOT NULL
+);
+CREATE TABLE bench.customers (
+    id    bigint PRIMARY KEY,
+    name  varchar(150) NOT NULL,
+    email varchar(150)
+);
+
+INSERT INTO bench.products (id, name, sku)
+SELECT g,
+       (ARRAY['Yerba','Aceite','Arroz','Fideos','Azúcar','Café','Galletitas','Harina','Leche','Mate'])[1 + g % 10]
+         || ' ' || (ARRAY['Suave','Intensa','Integral','Premium','Clásica','Light','Orgánica'])[1 + g % 7]
+         || ' ' || (g % 997) || 'g ' || md5(g::text)::varchar(6),
+       'SKU-' || lpad(g::text, 8, '0')
+FROM generate_series(1, 1000000) g;
+
+INSERT INTO bench.customers (id, name, email)
+SELECT g,
+       (ARRAY['Juan','María','Pedro','Lucía','Sofía','Martín','Ana','Diego'])[1 + g % 8]
+         || ' ' || (ARRAY['Gómez','Pérez','Rodríguez','Fernández','López','Díaz'])[1 + g % 6]
+         || ' ' || md5(g::text)::varchar(5),
+       'cliente' || g || '@example.com'
+FROM generate_series(1, 1000000) g;
+
+ANALYZE bench.products;
+ANALYZE bench.customers;
+
+-- ---------- Sin índices (camino LIKE actual) ----------
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.products
+ WHERE lower(name) LIKE '%premium 42%' OR lower(sku) LIKE '%premium 42%'
+ LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM bench.customers
+ WHERE lower(name) LIKE '%lucía gó%' OR lower(email) LIKE '%lucía gó%';
+
+-- ---------- Con GIN pg_trgm (mismos índices que V7) ----------
+CREATE INDEX ON bench.products  USING gin (lower(name)  gin_trgm_ops);
+CREATE INDEX ON bench.products  USING gin (lower(sku)   gin_trgm_ops);
+CREATE INDEX ON bench.customers USING gin (lower(name)  gin_trgm_ops);
+CREATE INDEX ON bench.customers USING gin (lower(email) gin_trgm_ops);
+ANALYZE bench.products;
+ANALYZE bench.customers;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.products
+ WHERE lower(name) LIKE '%premium 42%' OR lower(sku) LIKE '%premium 42%'
+ LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM bench.customers
+ WHERE lower(name) LIKE '%lucía gó%' OR lower(email) LIKE '%lucía gó%';
+
+-- ---------- Orden por relevancia (sort=relevance) ----------
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.products
+ WHERE lower(name) LIKE '%yerba suave%' OR lower(sku) LIKE '%yerba suave%'
+ ORDER BY similarity(lower(name), 'yerba suave') DESC, similarity(lower(sku), 'yerba suave') DESC, length(name)
+ LIMIT 20;
+
+-- DROP SCHEMA bench CASCADE;
@@ -0,0 +1,36 @@
+package com.tiago.erp.api;
+
+import java.util.List;
+
+/**
+ * Página por cursor (keyset) para listados con scroll infinito.
+ * No informa totales: {@code nextCursor} se pasa tal cual como {@code after}
+ * para pedir la página siguiente y es null cuando no hay más datos.
+ */
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+
+    public CursorPageResponse() {}
+
+    public CursorPageResponse(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    // Getters & setters
+    public List<T> getContent() { return content; }
+    public int getSize() { return size; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasNext() { return hasNext; }
+
+    public void setContent(List<T> content) { this.content = content; }
+    public void setSize(int size) { this.size = size; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+}
@@ -1,6 +1,7 @@
 package com.tiago.erp.api;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 
 import java.util.List;
@@ -18,6 +19,7 @@ public class PageResponse<T> {
     private int size;
     private int totalPages;
     private long totalElements;
+    private boolean hasNext;
     private String sort;
 
     public PageResponse() {}
@@ -31,15 +33,19 @@ public class PageResponse<T> {
         this.sort = sort;
     }
 
-    public static <T> PageResponse<T> from(Page<T> page) {
-        return new PageResponse<>(
-                page.getContent(),
-                page.getNumber(),
-                page.getSize(),
-                page.getTotalPages(),
-                page.getTotalElements(),
-                formatSort(page.getSort())
+    /** Con un Slice (listado pedido con withTotal=false) totalPages y totalElements son -1. */
+    public static <T> PageResponse<T> from(Slice<T> slice) {
+        boolean counted = slice instanceof Page<T>;
+        PageResponse<T> r = new PageResponse<>(
+                slice.getContent(),
+                slice.getNumber(),
+                slice.getSize(),
+                counted ? ((Page<T>) slice).getTotalPages() : -1,
+                counted ? ((Page<T>) slice).getTotalElements() : -1,
+                formatSort(slice.getSort())
         );
+        r.hasNext = slice.hasNext();
+        return r;
     }
 
     private static String formatSort(Sort sort) {
@@ -55,6 +61,7 @@ public class PageResponse<T> {
     public int getSize() { return size; }
     public int getTotalPages() { return totalPages; }
     public long getTotalElements() { return totalElements; }
+    public boolean isHasNext() { return hasNext; }
     public String getSort() { return sort; }
 
     public void setContent(List<T> content) { this.content = content; }
@@ -62,5 +69,6 @@ public class PageResponse<T> {
     public void setSize(int size) { this.size = size; }
     public void setTotalPages(int totalPages) { this.totalPages = totalPages; }
     public void setTotalElements(long totalElements) { this.totalElements = totalElements; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
     public void setSort(String sort) { this.sort = sort; }
 }
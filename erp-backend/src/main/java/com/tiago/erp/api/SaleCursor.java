@@ -0,0 +1,32 @@
+package com.tiago.erp.api;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición en el listado de ventas ordenado por (createdAt DESC, id DESC).
+ * Viaja como texto opaco (base64url de "createdAt|id"); el cliente no debe
+ * interpretarlo.
+ */
+public record SaleCursor(LocalDateTime createdAt, Long id) {
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodifica un cursor; null/vacío → null (primera página). */
+    public static SaleCursor decode(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) throw new IllegalArgumentException("INVALID_CURSOR");
+            return new SaleCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("INVALID_CURSOR");
+        }
+    }
+}
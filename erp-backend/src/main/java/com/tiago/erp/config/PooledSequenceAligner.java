@@ -0,0 +1,75 @@
+package com.tiago.erp.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+/**
+ * Alinea las secuencias pooled (V3__pooled_sequences.sql) con los ids que ya
+ * existen, al arrancar y antes de que se atienda cualquier request.
+ *
+ * Si la versión con secuencias se despliega sin haber corrido V3, Hibernate
+ * (ddl-auto=update) crea las secuencias empezando en 1 y los próximos ids
+ * chocarían con las filas existentes. Acá sólo se avanza una secuencia que
+ * quedó por debajo de max(id); nunca se la retrocede, así que es seguro con
+ * varias instancias o si V3 ya se aplicó.
+ */
+@Component
+public class PooledSequenceAligner {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledSequenceAligner.class);
+
+    /** secuencia -> tabla cuyos ids asigna. */
+    static final Map<String, String> SEQUENCES = Map.of(
+            "sales_seq", "sales",
+            "sale_items_seq", "sale_items",
+            "products_seq", "products",
+            "customers_seq", "customers");
+
+    private final boolean postgres;
+    private final String schema;
+    private final TransactionTemplate tx;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public PooledSequenceAligner(EntityManagerFactory emf, PlatformTransactionManager transactionManager,
+                                 @Value("${spring.jpa.properties.hibernate.default_schema:erp_schema}") String schema) {
+        this.postgres = emf.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+        this.schema = schema;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void align() {
+        if (!postgres) return;
+        tx.executeWithoutResult(status -> SEQUENCES.forEach((sequence, table) -> {
+            String seq = schema + "." + sequence;
+            Object exists = em.createNativeQuery("select to_regclass(:seq) is not null")
+                    .setParameter("seq", seq).getSingleResult();
+            if (!Boolean.TRUE.equals(exists)) return;
+            // pooled: tras setval(seq, max(id)) el próximo bloque es max(id) + 1 .. max(id) + 50
+            int moved = em.createNativeQuery("""
+                    select setval('%1$s', t.max_id)
+                      from (select max(id) as max_id from %2$s.%3$s) t
+                     where t.max_id is not null
+                       and t.max_id >= (select last_value from %1$s)
+                    """.formatted(seq, schema, table)).getResultList().size();
+            if (moved > 0) {
+                log.warn("Sequence {} was behind {}.{} ids; advanced to max(id)", seq, schema, table);
+            }
+        }));
+    }
+}
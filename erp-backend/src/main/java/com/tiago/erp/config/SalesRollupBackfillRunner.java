@@ -0,0 +1,30 @@
+package com.tiago.erp.config;
+
+import com.tiago.erp.service.SalesRollupService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfill del rollup diario: arrancar con {@code --rebuild-rollup} recalcula
+ * daily_sales_rollup desde sales/sale_items (p. ej. al desplegar la tabla por
+ * primera vez o tras corregir ventas a mano).
+ */
+@Component
+public class SalesRollupBackfillRunner implements ApplicationRunner {
+
+    static final String OPTION = "rebuild-rollup";
+
+    private final SalesRollupService rollupService;
+
+    public SalesRollupBackfillRunner(SalesRollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(OPTION)) {
+            rollupService.rebuild();
+        }
+    }
+}
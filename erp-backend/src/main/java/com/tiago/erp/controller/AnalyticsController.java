@@ -0,0 +1,40 @@
+package com.tiago.erp.controller;
+
+import com.tiago.erp.dto.report.SalesSeriesResponse;
+import com.tiago.erp.service.SalesAnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private final SalesAnalyticsService analyticsService;
+
+    public AnalyticsController(SalesAnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @Operation(
+        summary = "Serie temporal de ventas agregada en el servidor",
+        description = "from/to (YYYY-MM-DD, inclusive), bucket=day|week|month, groupBy opcional "
+                + "paymentMethod|invoiceType|category. Devuelve arrays alineados con los buckets."
+    )
+    @GetMapping("/sales/series")
+    public SalesSeriesResponse salesSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) String groupBy
+    ) {
+        return analyticsService.series(from, to,
+                SalesAnalyticsService.Bucket.parse(bucket),
+                SalesAnalyticsService.GroupBy.parse(groupBy));
+    }
+}
@@ -1,6 +1,7 @@
 package com.tiago.erp.controller;
 
 import com.tiago.erp.dto.LoginRequest;
+import com.tiago.erp.dto.RefreshRequest;
 import com.tiago.erp.service.AuthService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -23,6 +24,11 @@ public class AuthController {
         return ResponseEntity.ok(authService.login(req.username(), req.password()));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest req) {
+        return ResponseEntity.ok(authService.refresh(req.refreshToken()));
+    }
+
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody RegisterRequest req) {
         authService.register(req);
@@ -6,10 +6,13 @@ import com.tiago.erp.model.Customer;
 import com.tiago.erp.service.CustomerService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Maestros de Clientes.
  * Mantiene las mismas rutas y respuestas (entidad Customer).
@@ -29,9 +32,10 @@ public class CustomerController {
         summary = "Lista clientes con filtros opcionales y paginación",
         description = """
             Parámetros opcionales:
-            - page, size, sort
+            - page, size, sort (sort=relevance ordena por similitud con q)
             - q: búsqueda por nombre/email (si el repositorio lo soporta)
             - active: true/false (si la entidad lo expone)
+            - withTotal: false para no calcular el total (totalElements/totalPages = -1, usar hasNext)
             """
     )
     @GetMapping
@@ -40,9 +44,10 @@ public class CustomerController {
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false) String sort,
             @RequestParam(required = false) String q,
-            @RequestParam(required = false) Boolean active
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(defaultValue = "true") boolean withTotal
     ) {
-        Page<Customer> result = service.list(page, size, sort, q, active);
+        Slice<Customer> result = service.list(page, size, sort, q, active, withTotal);
         return ResponseEntity.ok(PageResponse.from(result));
     }
 
@@ -67,7 +72,13 @@ public class CustomerController {
         return ResponseEntity.ok(saved);
     }
 
-    @Operation(summary = "Elimina (o soft-delete) un cliente")
+    @Operation(summary = "Soft-delete de varios clientes (active=false)")
+    @PostMapping("/deactivate")
+    public ResponseEntity<Map<String, Integer>> deactivate(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(Map.of("deactivated", service.deactivateAll(ids)));
+    }
+
+    @Operation(summary = "Soft-delete de un cliente (active=false)")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         service.delete(id);
@@ -1,22 +1,39 @@
 package com.tiago.erp.controller;
 
 import com.tiago.erp.service.DashboardService;
+import com.tiago.erp.service.DashboardStreamService;
+import com.tiago.erp.service.DashboardSummaryCache;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/dashboard")
 public class DashboardController {
 
-    private final DashboardService service;
+    private final DashboardSummaryCache summaryCache;
+    private final DashboardStreamService streamService;
 
-    public DashboardController(DashboardService service) {
-        this.service = service;
+    public DashboardController(DashboardSummaryCache summaryCache, DashboardStreamService streamService) {
+        this.summaryCache = summaryCache;
+        this.streamService = streamService;
     }
 
     @GetMapping("/summary")
     public DashboardService.DashboardSummary summary() {
-        return service.summary();
+        return summaryCache.summary();
+    }
+
+    @Operation(
+        summary = "Stream SSE del dashboard",
+        description = "Eventos \"summary\" con el resumen, la diferencia con el evento anterior y las ventas nuevas. "
+                + "El primer evento trae el resumen actual; los cambios se agrupan (máx. N por segundo)."
+    )
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return streamService.subscribe();
     }
 }
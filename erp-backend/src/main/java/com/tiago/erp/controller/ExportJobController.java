@@ -0,0 +1,109 @@
+package com.tiago.erp.controller;
+
+import com.tiago.erp.dto.report.ExportJobResponse;
+import com.tiago.erp.service.ExportJobService;
+import com.tiago.erp.service.SalesExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exportes de ventas como jobs asíncronos: se encola el exporte, se consulta
+ * el progreso y se descarga el archivo terminado (con soporte de Range).
+ */
+@RestController
+@RequestMapping("/api/reports/jobs")
+public class ExportJobController {
+
+    private final ExportJobService jobService;
+
+    public ExportJobController(ExportJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @Operation(
+        summary = "Encola un exporte de ventas (CSV o PDF)",
+        description = "format=csv|pdf, filtros opcionales: from/to (YYYY-MM-DD), customer. "
+                    + "layout=detail|daily (sólo PDF, como GET /api/reports/export). Devuelve 202 con el id del job."
+    )
+    @PostMapping
+    public ResponseEntity<ExportJobResponse> submit(
+            @AuthenticationPrincipal UserDetails user,
+            @RequestParam String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String customer,
+            @RequestParam(required = false) String layout
+    ) {
+        ExportJobResponse job = jobService.submit(owner(user), format, parseIso(from), parseIso(to), customer,
+                SalesExportService.PdfLayout.parse(layout));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/reports/jobs/" + job.id())
+                .body(job);
+    }
+
+    @Operation(summary = "Lista los exportes del usuario")
+    @GetMapping
+    public List<ExportJobResponse> list(@AuthenticationPrincipal UserDetails user) {
+        return jobService.list(owner(user));
+    }
+
+    @Operation(summary = "Estado y progreso de un exporte")
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJobResponse> status(@AuthenticationPrincipal UserDetails user,
+                                                    @PathVariable String id) {
+        return jobService.find(id, owner(user))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+        summary = "Descarga el archivo de un exporte terminado",
+        description = "Soporta Range (Accept-Ranges: bytes) para reanudar descargas. 409 si el job todavía no terminó."
+    )
+    @GetMapping("/{id}/download")
+    public ResponseEntity<?> download(@AuthenticationPrincipal UserDetails user,
+                                      @PathVariable String id) {
+        String owner = owner(user);
+        var download = jobService.download(id, owner);
+        if (download.isEmpty()) {
+            if (jobService.find(id, owner).isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("code", "EXPORT_NOT_READY", "message", "El exporte todavía no está listo"));
+        }
+
+        ExportJobService.Download d = download.get();
+        Resource body = new FileSystemResource(d.file());
+        // ResourceHttpMessageConverter / ResourceRegionHttpMessageConverter resuelven Range y 206
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(d.filename()).build().toString())
+                .contentType(MediaType.parseMediaType(d.contentType()))
+                .eTag('"' + id + '"')
+                .lastModified(d.finishedAt())
+                .body(body);
+    }
+
+    private static String owner(UserDetails user) {
+        return user != null ? user.getUsername() : "anonymous";
+    }
+
+    private LocalDate parseIso(String s) {
+        if (s == null || s.isBlank()) return null;
+        return LocalDate.parse(s);
+    }
+}
@@ -1,19 +1,33 @@
 package com.tiago.erp.controller;
 
+import com.tiago.erp.security.TokenRevocationRegistry;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 /**
- * Logout "stateless": no invalida tokens en servidor (JWT), pero permite al frontend
+ * Logout "stateless": por defecto no invalida tokens en servidor (JWT), pero permite al frontend
  * tener un endpoint explícito para cerrar sesión (limpiar storage/cookies).
- * Mantiene compatibilidad total con el esquema actual.
+ * Con {@code everywhere=true} revoca todos los tokens emitidos hasta ahora para el usuario.
  */
 @RestController
 @RequestMapping("/api/auth")
 public class LogoutController {
 
+    private final TokenRevocationRegistry revocations;
+
+    public LogoutController(TokenRevocationRegistry revocations) {
+        this.revocations = revocations;
+    }
+
     @PostMapping("/logout")
-    public ResponseEntity<Message> logout() {
+    public ResponseEntity<Message> logout(@AuthenticationPrincipal UserDetails user,
+                                          @RequestParam(defaultValue = "false") boolean everywhere) {
+        if (everywhere && user != null) {
+            revocations.revokeTokens(user.getUsername());
+            return ResponseEntity.ok(new Message("logout_everywhere_ok"));
+        }
         // No se guarda estado de tokens (stateless JWT). El cliente debe descartar el token.
         return ResponseEntity.ok(new Message("logout_ok"));
     }
@@ -1,15 +1,27 @@
 package com.tiago.erp.controller;
 
 import com.tiago.erp.api.PageResponse;
+import com.tiago.erp.dto.product.LowStockFeedResponse;
+import com.tiago.erp.dto.product.ProductImportResult;
 import com.tiago.erp.dto.product.ProductRequest;
+import com.tiago.erp.dto.product.ProductSnapshot;
+import com.tiago.erp.dto.product.RepriceRequest;
+import com.tiago.erp.dto.product.RepriceResult;
+import com.tiago.erp.dto.product.ProductSuggestion;
 import com.tiago.erp.model.Product;
+import com.tiago.erp.service.BarcodeLookupCache;
+import com.tiago.erp.service.LowStockFeed;
+import com.tiago.erp.service.ProductImportService;
+import com.tiago.erp.service.ProductRepriceService;
 import com.tiago.erp.service.ProductService;
+import com.tiago.erp.service.ProductSuggestIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -22,19 +34,33 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService service;
+    private final ProductSuggestIndex suggestIndex;
+    private final BarcodeLookupCache barcodeLookup;
+    private final ProductImportService importService;
+    private final ProductRepriceService repriceService;
+    private final LowStockFeed lowStockFeed;
 
-    public ProductController(ProductService service) {
+    public ProductController(ProductService service, ProductSuggestIndex suggestIndex,
+                             BarcodeLookupCache barcodeLookup, ProductImportService importService,
+                             ProductRepriceService repriceService, LowStockFeed lowStockFeed) {
         this.service = service;
+        this.suggestIndex = suggestIndex;
+        this.barcodeLookup = barcodeLookup;
+        this.importService = importService;
+        this.repriceService = repriceService;
+        this.lowStockFeed = lowStockFeed;
     }
 
     @Operation(
         summary = "Lista productos con filtros opcionales y paginación",
         description = """
             Parámetros opcionales:
-            - page, size, sort
+            - page, size, sort (sort=relevance ordena por similitud con q)
             - q: búsqueda por nombre/sku
             - minStock: stock mínimo
+            - stockLt: stock menor a X
             - active: true/false
+            - withTotal: false para no calcular el total (totalElements/totalPages = -1, usar hasNext)
             """
     )
     @GetMapping
@@ -44,12 +70,37 @@ public class ProductController {
             @RequestParam(required = false) String sort,
             @RequestParam(required = false) String q,
             @RequestParam(required = false) Integer minStock,
-            @RequestParam(required = false) Boolean active
+            @RequestParam(required = false) Integer stockLt,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(defaultValue = "true") boolean withTotal
     ) {
-        Page<Product> result = service.list(page, size, sort, q, minStock, active);
+        Slice<Product> result = service.list(page, size, sort, q, minStock, stockLt, active, withTotal);
         return ResponseEntity.ok(PageResponse.from(result));
     }
 
+    @Operation(
+        summary = "Sugerencias para el buscador de productos (typeahead)",
+        description = "Busca por nombre, SKU o código de barras en un índice en memoria. limit: 1 a 50 (default 10)."
+    )
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestion>> suggest(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(suggestIndex.suggest(prefix, limit));
+    }
+
+    @Operation(
+        summary = "Busca un producto por código de barras (escaneo en caja)",
+        description = "Devuelve id, nombre, SKU, precio y stock desde una caché en memoria. 404 si el código no existe."
+    )
+    @GetMapping("/by-barcode/{code}")
+    public ResponseEntity<ProductSnapshot> byBarcode(@PathVariable String code) {
+        return barcodeLookup.find(code)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @Operation(summary = "Obtiene un producto por id")
     @GetMapping("/{id}")
     public ResponseEntity<Product> get(@PathVariable Long id) {
@@ -63,6 +114,44 @@ public class ProductController {
         return ResponseEntity.ok(saved);
     }
 
+    @Operation(
+        summary = "Importa productos en masa (alta o actualización por SKU)",
+        description = """
+            Cuerpo: CSV con cabecera o NDJSON (un objeto por línea), leído en streaming.
+            - format: csv|ndjson (por defecto según Content-Type; csv si no se reconoce)
+            - columnas: sku, name, costPrice, salePrice (obligatorias), category, description,
+              barcode, imageUrl, profitMargin, stock, stockMin
+            - una columna opcional vacía no modifica el valor existente
+            Devuelve totales y las filas con error (línea, sku, motivo).
+            """
+    )
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "text/plain",
+            "application/octet-stream"})
+    public ResponseEntity<ProductImportResult> importProducts(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = "Content-Type", required = false) String contentType,
+            InputStream body
+    ) {
+        String fmt = format != null ? format.toLowerCase()
+                : contentType != null && contentType.contains("ndjson") ? "ndjson" : "csv";
+        return ResponseEntity.ok(importService.importProducts(body, fmt));
+    }
+
+    @Operation(
+        summary = "Reprecio masivo por porcentaje sobre el costo",
+        description = """
+            - category: sólo esa categoría (vacía = todas)
+            - costChangePercent: variación del costo (p. ej. 12.5)
+            - recomputeSalePrice (default true): salePrice = costo nuevo * (1 + profitMargin/100);
+              sin margen, el precio de venta varía el mismo porcentaje
+            - dryRun: no modifica nada, devuelve matched y preview (previewLimit, default 50)
+            """
+    )
+    @PostMapping("/reprice")
+    public ResponseEntity<RepriceResult> reprice(@Valid @RequestBody RepriceRequest request) {
+        return ResponseEntity.ok(repriceService.reprice(request));
+    }
+
     @Operation(summary = "Actualiza un producto")
     @PutMapping("/{id}")
     public ResponseEntity<Product> update(@PathVariable Long id,
@@ -81,12 +170,32 @@ public class ProductController {
     // ==========================================
     //   ENDPOINT: /api/products/low-stock
     // ==========================================
-    @Operation(summary = "Lista productos con stock por debajo de un umbral")
+    @Operation(
+        summary = "Lista productos en stock bajo (stock <= stockMin), paginado",
+        description = """
+            - page, size, q (nombre/sku)
+            - threshold: criterio anterior, stock < threshold en lugar del mínimo de cada producto
+            """
+    )
     @GetMapping("/low-stock")
-    public ResponseEntity<List<Product>> getLowStock(
-            @RequestParam(name = "threshold", defaultValue = "5") Integer threshold
+    public ResponseEntity<PageResponse<Product>> getLowStock(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer threshold
+    ) {
+        return ResponseEntity.ok(PageResponse.from(service.lowStock(page, size, q, threshold)));
+    }
+
+    @Operation(
+        summary = "Cambios de stock bajo (productos que entran o salen) desde un cursor",
+        description = "after: cursor de la respuesta anterior (0 la primera vez); limit: máximo 500."
+    )
+    @GetMapping("/low-stock/changes")
+    public ResponseEntity<LowStockFeedResponse> getLowStockChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit
     ) {
-        List<Product> result = service.findLowStock(threshold);
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(lowStockFeed.changes(after, limit));
     }
 }
@@ -4,13 +4,14 @@ import com.tiago.erp.service.SalesExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 
 /**
  * Alias unificado para exportes de ventas.
  * NO rompe compatibilidad: sólo delega a SalesExportService,
- * que ya retorna ResponseEntity<byte[]> con headers correctos.
+ * que ya arma los headers correctos. CSV y PDF se envían en streaming.
  */
 @RestController
 @RequestMapping("/api/reports/sales")
@@ -24,21 +25,23 @@ public class ReportsController {
 
     @Operation(
         summary = "Exporta ventas (CSV o PDF)",
-        description = "format=csv|pdf, filtros opcionales: from/to (YYYY-MM-DD), customer."
+        description = "format=csv|pdf, filtros opcionales: from/to (YYYY-MM-DD), customer. "
+                    + "layout=detail|daily (sólo PDF; daily agrega subtotales por día)."
     )
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportSales(
+    public ResponseEntity<StreamingResponseBody> exportSales(
             @RequestParam String format,
             @RequestParam(required = false) String from,
             @RequestParam(required = false) String to,
-            @RequestParam(required = false) String customer
+            @RequestParam(required = false) String customer,
+            @RequestParam(required = false) String layout
     ) {
         LocalDate fromDate = parseIso(from);
         LocalDate toDate   = parseIso(to);
 
         return switch (format.toLowerCase()) {
-            case "csv" -> exportService.exportCsv(fromDate, toDate, customer);
-            case "pdf" -> exportService.exportPdf(fromDate, toDate, customer);
+            case "csv" -> exportService.streamCsv(fromDate, toDate, customer);
+            case "pdf" -> exportService.streamPdf(fromDate, toDate, customer, SalesExportService.PdfLayout.parse(layout));
             default    -> throw new IllegalArgumentException("format must be csv|pdf");
         };
     }
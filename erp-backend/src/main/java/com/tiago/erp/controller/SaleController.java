@@ -1,7 +1,11 @@
 package com.tiago.erp.controller;
 
+import com.tiago.erp.api.CursorPageResponse;
 import com.tiago.erp.dto.CreateSaleRequest;
+import com.tiago.erp.dto.SaleBatchResponse;
 import com.tiago.erp.dto.SaleResponse;
+import com.tiago.erp.service.SaleBatchService;
+import com.tiago.erp.service.SaleIdempotencyService;
 import com.tiago.erp.service.SaleService;
 import com.tiago.erp.service.SalesExportService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,22 +15,36 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/sales")
 @CrossOrigin
 public class SaleController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+
     private final SaleService saleService;
+    private final SaleIdempotencyService idempotencyService;
+    private final SaleBatchService saleBatchService;
     private final SalesExportService exportService;
 
-    public SaleController(SaleService saleService, SalesExportService exportService) {
+    public SaleController(SaleService saleService,
+                          SaleIdempotencyService idempotencyService,
+                          SaleBatchService saleBatchService,
+                          SalesExportService exportService) {
         this.saleService = saleService;
+        this.idempotencyService = idempotencyService;
+        this.saleBatchService = saleBatchService;
         this.exportService = exportService;
     }
 
@@ -48,31 +66,75 @@ public class SaleController {
         return saleService.list(start, end, customerName, pageable);
     }
 
-    @Operation(summary = "Crear una venta")
+    @Operation(
+        summary = "Listar ventas por cursor (scroll infinito)",
+        description = "Orden createdAt DESC. Sin totales: usar nextCursor como 'after' para la página siguiente."
+    )
+    @GetMapping("/cursor")
+    public CursorPageResponse<SaleResponse> listByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false, name = "customer") String customerName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("INVALID_DATE_RANGE");
+        }
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        LocalDateTime start = (startDate != null) ? startDate.atStartOfDay() : null;
+        LocalDateTime end   = (endDate   != null) ? endDate.plusDays(1).atStartOfDay() : null;
+        return saleService.listAfter(start, end, customerName, after, size);
+    }
+
+    @Operation(
+        summary = "Crear una venta",
+        description = "201 con la venta creada. Con el header Idempotency-Key, los reintentos con la misma "
+                    + "clave devuelven la venta ya creada (también 201)."
+    )
     @PostMapping
-    public SaleResponse create(@Valid @RequestBody CreateSaleRequest body) {
-        return saleService.createSale(body);
+    public ResponseEntity<SaleResponse> create(
+            @AuthenticationPrincipal UserDetails user,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody CreateSaleRequest body
+    ) {
+        SaleResponse sale = idempotencyKey != null
+                ? idempotencyService.createSale(user != null ? user.getUsername() : "anonymous", idempotencyKey, body)
+                : saleService.createSale(body);
+        return ResponseEntity.status(HttpStatus.CREATED).body(sale);
+    }
+
+    @Operation(
+        summary = "Alta masiva de ventas (sincronización POS)",
+        description = "Recibe un array de ventas y devuelve un resultado por venta; una venta inválida no rechaza el lote."
+    )
+    @PostMapping("/batch")
+    public SaleBatchResponse createBatch(@RequestBody List<CreateSaleRequest> body) {
+        return saleBatchService.createSales(body);
     }
 
-    @Operation(summary = "Exportar ventas a CSV")
+    @Operation(summary = "Exportar ventas a CSV (streaming)")
     @ApiResponse(responseCode = "200", description = "Archivo CSV")
     @GetMapping(value = "/export.csv", produces = "text/csv")
-    public ResponseEntity<byte[]> exportCsv(
+    public ResponseEntity<StreamingResponseBody> exportCsv(
             @RequestParam(required = false, name = "customer") String customerName,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
     ) {
-        return exportService.exportCsv(startDate, endDate, customerName);
+        return exportService.streamCsv(startDate, endDate, customerName);
     }
 
-    @Operation(summary = "Exportar ventas a PDF")
+    @Operation(summary = "Exportar ventas a PDF (streaming; layout=detail|daily)")
     @ApiResponse(responseCode = "200", description = "Archivo PDF")
     @GetMapping(value = "/export.pdf", produces = "application/pdf")
-    public ResponseEntity<byte[]> exportPdf(
+    public ResponseEntity<StreamingResponseBody> exportPdf(
             @RequestParam(required = false, name = "customer") String customerName,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String layout
     ) {
-        return exportService.exportPdf(startDate, endDate, customerName);
+        return exportService.streamPdf(startDate, endDate, customerName, SalesExportService.PdfLayout.parse(layout));
     }
 }
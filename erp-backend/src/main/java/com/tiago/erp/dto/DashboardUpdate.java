@@ -0,0 +1,30 @@
+package com.tiago.erp.dto;
+
+import com.tiago.erp.service.DashboardService.DashboardSummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Evento "summary" de /api/dashboard/stream: resumen vigente, diferencia con
+ * el último enviado (null en el primer evento de la conexión) y ventas
+ * confirmadas desde entonces (más recientes primero).
+ */
+public record DashboardUpdate(
+        DashboardSummary summary,
+        Delta delta,
+        List<RecentSale> recentSales
+) {
+    public record Delta(long monthSalesCount, BigDecimal monthSalesTotal, long last7DaysCount) {
+
+        public static Delta between(DashboardSummary before, DashboardSummary after) {
+            return new Delta(
+                    after.monthSalesCount() - before.monthSalesCount(),
+                    after.monthSalesTotal().subtract(before.monthSalesTotal()),
+                    after.last7DaysCount() - before.last7DaysCount());
+        }
+    }
+
+    public record RecentSale(Long saleId, String customerName, BigDecimal total, LocalDateTime createdAt) {}
+}
@@ -0,0 +1,5 @@
+package com.tiago.erp.dto;
+
+public record RefreshRequest(
+        String refreshToken
+) {}
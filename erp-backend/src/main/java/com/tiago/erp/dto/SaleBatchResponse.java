@@ -0,0 +1,15 @@
+package com.tiago.erp.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta de POST /api/sales/batch: totales y un resultado por venta,
+ * en el mismo orden del request.
+ */
+public record SaleBatchResponse(int received, int created, int failed, List<SaleBatchResult> results) {
+
+    public static SaleBatchResponse of(List<SaleBatchResult> results) {
+        int created = (int) results.stream().filter(r -> SaleBatchResult.CREATED.equals(r.status())).count();
+        return new SaleBatchResponse(results.size(), created, results.size() - created, results);
+    }
+}
@@ -0,0 +1,19 @@
+package com.tiago.erp.dto;
+
+/**
+ * Resultado de una venta dentro de POST /api/sales/batch.
+ * {@code index} es la posición de la venta en el request.
+ */
+public record SaleBatchResult(int index, String status, Long saleId, String error) {
+
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+
+    public static SaleBatchResult created(int index, Long saleId) {
+        return new SaleBatchResult(index, CREATED, saleId, null);
+    }
+
+    public static SaleBatchResult failed(int index, String error) {
+        return new SaleBatchResult(index, FAILED, null, error);
+    }
+}
@@ -1,5 +1,6 @@
 package com.tiago.erp.dto.customer;
 
+import com.tiago.erp.model.Customer;
 import jakarta.validation.constraints.*;
 
 /**
@@ -27,6 +28,15 @@ public class CustomerRequest {
 
     public CustomerRequest() {}
 
+    /** Copia los campos editables a la entidad (el id no se toca). */
+    public void applyTo(Customer c) {
+        c.setName(name);
+        c.setEmail(email);
+        c.setPhone(phone);
+        c.setAddress(address);
+        c.setActive(active);
+    }
+
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
@@ -0,0 +1,15 @@
+package com.tiago.erp.dto.product;
+
+import com.tiago.erp.model.LowStockEvent;
+
+import java.time.Instant;
+
+/** Un cambio del feed de stock bajo; {@code low=false}: el producto salió (repuesto o borrado). */
+public record LowStockChange(Long eventId, Long productId, String sku, Integer stock, Integer stockMin,
+                             boolean low, Instant at) {
+
+    public static LowStockChange of(LowStockEvent e) {
+        return new LowStockChange(e.getId(), e.getProductId(), e.getSku(), e.getStock(), e.getStockMin(),
+                e.isLow(), e.getCreatedAt());
+    }
+}
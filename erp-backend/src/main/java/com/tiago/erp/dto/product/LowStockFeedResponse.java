@@ -0,0 +1,6 @@
+package com.tiago.erp.dto.product;
+
+import java.util.List;
+
+/** Página del feed; el próximo pedido usa {@code after=cursor}. */
+public record LowStockFeedResponse(List<LowStockChange> changes, long cursor) {}
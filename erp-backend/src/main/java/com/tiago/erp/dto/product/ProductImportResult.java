@@ -0,0 +1,17 @@
+package com.tiago.erp.dto.product;
+
+import java.util.List;
+
+/**
+ * Resultado de POST /api/products/import.
+ *
+ * {@code errors} trae como mucho {@code max-errors} filas (la primera falla de
+ * cada una); si hubo más, {@code errorsTruncated} es true y {@code failed}
+ * tiene el total.
+ */
+public record ProductImportResult(long rows, long upserted, long failed,
+                                  List<RowError> errors, boolean errorsTruncated) {
+
+    /** {@code line}: línea del archivo donde empieza la fila (la cabecera CSV es la 1). */
+    public record RowError(long line, String sku, String message) {}
+}
@@ -1,5 +1,6 @@
 package com.tiago.erp.dto.product;
 
+import com.tiago.erp.model.Product;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
 
@@ -57,6 +58,24 @@ public class ProductRequest {
 
     public ProductRequest() {}
 
+    /**
+     * Copia los campos editables a la entidad (sin id ni version). El barcode
+     * no se copia: lo normaliza y valida ProductService. price y active no
+     * tienen columna en Product.
+     */
+    public void applyTo(Product p) {
+        p.setName(name);
+        p.setSku(sku);
+        p.setStock(stock);
+        p.setCategory(category);
+        p.setDescription(description);
+        p.setImageUrl(imageUrl);
+        p.setCostPrice(costPrice);
+        p.setProfitMargin(profitMargin);
+        p.setSalePrice(salePrice);
+        p.setStockMin(stockMin);
+    }
+
 
     // Getters y setters originales + nuevos
 
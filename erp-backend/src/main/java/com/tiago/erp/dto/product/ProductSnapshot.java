@@ -0,0 +1,8 @@
+package com.tiago.erp.dto.product;
+
+import java.math.BigDecimal;
+
+/** Respuesta de /api/products/by-barcode/{code}: lo que necesita el POS al escanear. */
+public record ProductSnapshot(Long id, String name, String sku, String barcode,
+                              BigDecimal salePrice, Integer stock) {
+}
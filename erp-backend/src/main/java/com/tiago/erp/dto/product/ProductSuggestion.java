@@ -0,0 +1,19 @@
+package com.tiago.erp.dto.product;
+
+import com.tiago.erp.model.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Resultado liviano de /api/products/suggest (typeahead). El stock no viaja
+ * acá porque cambia con cada venta: al elegir la opción el front pide el
+ * producto completo.
+ */
+public record ProductSuggestion(Long id, String name, String sku, String barcode,
+                                String category, BigDecimal salePrice) {
+
+    public static ProductSuggestion of(Product p) {
+        return new ProductSuggestion(p.getId(), p.getName(), p.getSku(), p.getBarcode(),
+                p.getCategory(), p.getSalePrice());
+    }
+}
@@ -0,0 +1,49 @@
+package com.tiago.erp.dto.product;
+
+import jakarta.validation.constraints.*;
+import java.math.BigDecimal;
+
+/**
+ * Regla de POST /api/products/reprice.
+ *
+ * - category: sólo esa categoría (sin distinguir mayúsculas); vacía = todas.
+ * - costChangePercent: variación del costo, p. ej. 12.5 sube 12,5 %.
+ * - recomputeSalePrice: salePrice = costo nuevo * (1 + profitMargin / 100);
+ *   sin margen cargado, el precio de venta varía el mismo porcentaje.
+ * - dryRun: no modifica nada, devuelve la vista previa.
+ */
+public class RepriceRequest {
+
+    @Size(max = 100, message = "category: max 100 chars")
+    private String category;
+
+    @NotNull(message = "costChangePercent is required")
+    @DecimalMin(value = "-99.99", message = "costChangePercent must be > -100")
+    @DecimalMax(value = "1000", message = "costChangePercent must be <= 1000")
+    private BigDecimal costChangePercent;
+
+    private boolean recomputeSalePrice = true;
+
+    private boolean dryRun;
+
+    @Min(value = 0, message = "previewLimit must be >= 0")
+    @Max(value = 500, message = "previewLimit: max 500")
+    private Integer previewLimit;
+
+    public RepriceRequest() {}
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public BigDecimal getCostChangePercent() { return costChangePercent; }
+    public void setCostChangePercent(BigDecimal costChangePercent) { this.costChangePercent = costChangePercent; }
+
+    public boolean isRecomputeSalePrice() { return recomputeSalePrice; }
+    public void setRecomputeSalePrice(boolean recomputeSalePrice) { this.recomputeSalePrice = recomputeSalePrice; }
+
+    public boolean isDryRun() { return dryRun; }
+    public void setDryRun(boolean dryRun) { this.dryRun = dryRun; }
+
+    public Integer getPreviewLimit() { return previewLimit; }
+    public void setPreviewLimit(Integer previewLimit) { this.previewLimit = previewLimit; }
+}
@@ -0,0 +1,17 @@
+package com.tiago.erp.dto.product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Resultado de POST /api/products/reprice. {@code matched}: productos que
+ * cumplen el filtro; {@code updated}: los modificados (0 en dry-run).
+ * {@code preview} trae los primeros {@code previewLimit} por id, con los
+ * precios calculados por la misma expresión que usa el UPDATE.
+ */
+public record RepriceResult(boolean dryRun, long matched, long updated, List<Change> preview) {
+
+    public record Change(Long id, String sku, String name,
+                         BigDecimal costPrice, BigDecimal newCostPrice,
+                         BigDecimal salePrice, BigDecimal newSalePrice) {}
+}
@@ -0,0 +1,9 @@
+package com.tiago.erp.dto.product;
+
+/** Stock actual de un producto, para decidir si está en stock bajo. */
+public record StockState(Long id, String sku, Integer stock, Integer stockMin) {
+
+    public boolean isLow() {
+        return stock != null && stockMin != null && stock <= stockMin;
+    }
+}
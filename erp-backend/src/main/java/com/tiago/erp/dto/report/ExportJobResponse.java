@@ -0,0 +1,20 @@
+package com.tiago.erp.dto.report;
+
+import java.time.Instant;
+
+/**
+ * Estado de un job de exportación asíncrona.
+ * {@code progress} va de 0 a 100; {@code downloadUrl} sólo viene cuando status = DONE.
+ */
+public record ExportJobResponse(
+        String id,
+        String format,
+        String status,
+        int progress,
+        long rowsWritten,
+        long totalRows,
+        Instant createdAt,
+        Instant finishedAt,
+        String downloadUrl,
+        String error
+) {}
@@ -0,0 +1,16 @@
+package com.tiago.erp.dto.report;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de exportación de ventas: una por venta, ya agregada en SQL
+ * (cantidad de ítems y total = SUM(unitPrice * quantity)).
+ */
+public record SaleExportRow(
+        Long saleId,
+        LocalDateTime createdAt,
+        String customerName,
+        int itemCount,
+        BigDecimal total
+) {}
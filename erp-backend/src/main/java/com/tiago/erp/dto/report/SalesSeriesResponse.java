@@ -0,0 +1,22 @@
+package com.tiago.erp.dto.report;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Serie temporal de ventas en formato columnar: {@code buckets} trae el primer
+ * día de cada período y cada serie trae arrays alineados con esos buckets
+ * (períodos sin ventas van en 0).
+ */
+public record SalesSeriesResponse(
+        LocalDate from,
+        LocalDate to,
+        String bucket,
+        String groupBy,
+        List<LocalDate> buckets,
+        List<Series> series
+) {
+    /** {@code key}: valor del agrupamiento (o "ALL" sin groupBy). */
+    public record Series(String key, long[] counts, BigDecimal[] totals, long[] units) {}
+}
@@ -0,0 +1,23 @@
+package com.tiago.erp.event;
+
+import com.tiago.erp.dto.product.ProductSuggestion;
+import com.tiago.erp.model.Product;
+
+/**
+ * Alta, modificación o baja de un producto. Se publica dentro de la
+ * transacción; {@code product} es null cuando el producto se borró.
+ */
+public record ProductChangedEvent(Long productId, ProductSuggestion product) {
+
+    public static ProductChangedEvent saved(Product p) {
+        return new ProductChangedEvent(p.getId(), ProductSuggestion.of(p));
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
@@ -0,0 +1,8 @@
+package com.tiago.erp.event;
+
+/**
+ * Cambio masivo de productos (importación, reprecio). Se publica fuera de
+ * transacción, cuando todos los bloques ya se confirmaron: los productos no
+ * se notifican uno por uno, los índices en memoria se rearman completos.
+ */
+public record ProductsBulkChangedEvent(long changed) {}
@@ -0,0 +1,19 @@
+package com.tiago.erp.event;
+
+import com.tiago.erp.model.Sale;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Se publica dentro de la transacción que crea la venta; los listeners que
+ * dependen de datos confirmados usan
+ * {@code @TransactionalEventListener(phase = AFTER_COMMIT)}.
+ */
+public record SaleCreatedEvent(Long saleId, String customerName, LocalDateTime createdAt, BigDecimal total) {
+
+    public static SaleCreatedEvent of(Sale sale) {
+        String customerName = sale.getCustomer() != null ? sale.getCustomer().getName() : null;
+        return new SaleCreatedEvent(sale.getId(), customerName, sale.getCreatedAt(), sale.getTotal());
+    }
+}
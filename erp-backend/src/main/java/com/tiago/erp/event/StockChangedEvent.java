@@ -0,0 +1,15 @@
+package com.tiago.erp.event;
+
+import java.util.Set;
+
+/**
+ * El stock de estos productos cambió dentro de la transacción actual (ventas).
+ * Para cachés que guardan stock; escuchar con AFTER_COMMIT. LowStockFeed lo
+ * escucha BEFORE_COMMIT para grabar sus eventos en la misma transacción.
+ */
+public record StockChangedEvent(Set<Long> productIds) {
+
+    public StockChangedEvent {
+        productIds = Set.copyOf(productIds);
+    }
+}
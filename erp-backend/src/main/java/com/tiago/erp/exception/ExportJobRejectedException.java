@@ -0,0 +1,17 @@
+package com.tiago.erp.exception;
+
+/**
+ * El job de exportación no se encoló: el usuario ya tiene el máximo de jobs
+ * activos o la cola del executor está llena. Se responde 429.
+ */
+public class ExportJobRejectedException extends RuntimeException {
+
+    private final String code;
+
+    public ExportJobRejectedException(String code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public String getCode() { return code; }
+}
@@ -0,0 +1,18 @@
+package com.tiago.erp.exception;
+
+/**
+ * La Idempotency-Key no se puede usar para este request: ya se usó con otro
+ * cuerpo, o el request original sigue en curso más allá del tiempo de espera.
+ * Se responde 409.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    private final String code;
+
+    public IdempotencyConflictException(String code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public String getCode() { return code; }
+}
@@ -0,0 +1,17 @@
+package com.tiago.erp.exception;
+
+/**
+ * El pool de hashing de contraseñas está saturado (cola llena o espera
+ * vencida). Se responde 503 para que el cliente reintente el login.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final String code;
+
+    public PasswordHashingBusyException(String code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public String getCode() { return code; }
+}
@@ -0,0 +1,93 @@
+package com.tiago.erp.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Totales de ventas pre-agregados por día, medio de pago y tipo de comprobante.
+ * Se actualiza en la misma transacción que crea cada venta (SalesRollupService)
+ * y se puede reconstruir desde sales/sale_items con --rebuild-rollup.
+ */
+@Entity
+@Table(name = "daily_sales_rollup")
+public class DailySalesRollup {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "sale_count", nullable = false)
+    private long saleCount;
+
+    @Column(name = "subtotal", nullable = false, precision = 14, scale = 2)
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    @Column(name = "total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    /** Unidades vendidas (suma de cantidades de los ítems). */
+    @Column(name = "units", nullable = false)
+    private long units;
+
+    public DailySalesRollup() {}
+
+    public DailySalesRollup(Key id) {
+        this.id = id;
+    }
+
+    public Key getId() { return id; }
+    public long getSaleCount() { return saleCount; }
+    public BigDecimal getSubtotal() { return subtotal; }
+    public BigDecimal getTotal() { return total; }
+    public long getUnits() { return units; }
+
+    public void setId(Key id) { this.id = id; }
+    public void setSaleCount(long saleCount) { this.saleCount = saleCount; }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+    public void setUnits(long units) { this.units = units; }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "sale_date", nullable = false)
+        private LocalDate saleDate;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "payment_method", nullable = false, length = 20)
+        private PaymentMethod paymentMethod;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "invoice_type", nullable = false, length = 10)
+        private InvoiceType invoiceType;
+
+        public Key() {}
+
+        public Key(LocalDate saleDate, PaymentMethod paymentMethod, InvoiceType invoiceType) {
+            this.saleDate = saleDate;
+            this.paymentMethod = paymentMethod;
+            this.invoiceType = invoiceType;
+        }
+
+        public LocalDate getSaleDate() { return saleDate; }
+        public PaymentMethod getPaymentMethod() { return paymentMethod; }
+        public InvoiceType getInvoiceType() { return invoiceType; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(saleDate, k.saleDate)
+                    && paymentMethod == k.paymentMethod
+                    && invoiceType == k.invoiceType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(saleDate, paymentMethod, invoiceType);
+        }
+    }
+}
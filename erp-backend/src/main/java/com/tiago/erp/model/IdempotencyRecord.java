@@ -0,0 +1,92 @@
+package com.tiago.erp.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Resultado de un POST /api/sales con Idempotency-Key. La PK es (usuario, clave):
+ * un duplicado concurrente queda bloqueado en el INSERT hasta que la primera
+ * transacción termina, y los reintentos devuelven la respuesta guardada. Dos
+ * usuarios que mandan la misma clave no comparten respuesta.
+ */
+@Entity
+@Table(
+    name = "idempotency_keys",
+    indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+    }
+)
+public class IdempotencyRecord {
+
+    @EmbeddedId
+    private Key id;
+
+    /** SHA-256 del cuerpo del request: la misma clave con otro cuerpo se rechaza. */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "sale_id")
+    private Long saleId;
+
+    /** SaleResponse serializado como JSON. */
+    @Column(name = "response", columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(Key id, String requestHash, Instant createdAt) {
+        this.id = id;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+    }
+
+    public Key getId() { return id; }
+    public String getRequestHash() { return requestHash; }
+    public Long getSaleId() { return saleId; }
+    public String getResponse() { return response; }
+    public Instant getCreatedAt() { return createdAt; }
+
+    public void setId(Key id) { this.id = id; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+    public void setSaleId(Long saleId) { this.saleId = saleId; }
+    public void setResponse(String response) { this.response = response; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "username", nullable = false, length = 100)
+        private String username;
+
+        @Column(name = "idem_key", nullable = false, length = 100)
+        private String key;
+
+        public Key() {}
+
+        public Key(String username, String key) {
+            this.username = username;
+            this.key = key;
+        }
+
+        public String getUsername() { return username; }
+        public String getKey() { return key; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(username, k.username) && Objects.equals(key, k.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, key);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.tiago.erp.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entrada o salida de un producto del estado "stock bajo" (stock <= stockMin).
+ * Se graba sólo cuando el estado cambia; el último evento de cada producto es
+ * su estado conocido. Feed: /api/products/low-stock/changes.
+ */
+@Entity
+@Table(
+    name = "low_stock_events",
+    indexes = {
+        @Index(name = "idx_low_stock_events_product", columnList = "product_id, id"),
+        @Index(name = "idx_low_stock_events_created_at", columnList = "created_at")
+    }
+)
+public class LowStockEvent {
+
+    /**
+     * El id es el cursor del feed: allocationSize = 1 para que se asigne en el
+     * INSERT (justo antes del commit) y no en bloques por instancia.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "low_stock_events_seq")
+    @SequenceGenerator(name = "low_stock_events_seq", sequenceName = "low_stock_events_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(length = 60)
+    private String sku;
+
+    /** null si el producto se borró. */
+    private Integer stock;
+
+    @Column(name = "stock_min")
+    private Integer stockMin;
+
+    @Column(nullable = false)
+    private boolean low;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public LowStockEvent() {}
+
+    public LowStockEvent(Long productId, String sku, Integer stock, Integer stockMin, boolean low, Instant createdAt) {
+        this.productId = productId;
+        this.sku = sku;
+        this.stock = stock;
+        this.stockMin = stockMin;
+        this.low = low;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+    public Long getProductId() { return productId; }
+    public String getSku() { return sku; }
+    public Integer getStock() { return stock; }
+    public Integer getStockMin() { return stockMin; }
+    public boolean isLow() { return low; }
+    public Instant getCreatedAt() { return createdAt; }
+}
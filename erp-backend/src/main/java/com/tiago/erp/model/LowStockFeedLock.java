@@ -0,0 +1,26 @@
+package com.tiago.erp.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Fila única que se bloquea (SELECT ... FOR UPDATE) antes de grabar eventos de
+ * stock bajo: las transacciones que graban eventos confirman de a una y en el
+ * orden de sus ids, así el id de LowStockEvent sirve de cursor sin huecos.
+ */
+@Entity
+@Table(name = "low_stock_feed_lock")
+public class LowStockFeedLock {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    public LowStockFeedLock() {}
+
+    public LowStockFeedLock(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getId() { return id; }
+}
@@ -15,13 +15,15 @@ import java.math.BigDecimal;
         @Index(name = "idx_products_category", columnList = "category")
     },
     uniqueConstraints = {
-        @UniqueConstraint(name = "uk_products_sku", columnNames = {"sku"})
+        @UniqueConstraint(name = "uk_products_sku", columnNames = {"sku"}),
+        @UniqueConstraint(name = "uk_products_barcode", columnNames = {"barcode"})
     }
 )
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
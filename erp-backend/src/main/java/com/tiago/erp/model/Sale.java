@@ -12,13 +12,17 @@ import java.util.List;
 @Table(
     name = "sales",
     indexes = {
-        @Index(name = "idx_sales_created_at", columnList = "created_at")
+        // rango por fecha (listados/exportes) y keyset (created_at, id) de /api/sales/cursor
+        @Index(name = "idx_sales_created_at_id", columnList = "created_at, id")
     }
 )
 public class Sale {
 
+    // Secuencia con optimizador pooled (reserva ids de a 50): con IDENTITY Hibernate
+    // no puede agrupar INSERTs en batch. Ver db/migration/V3__pooled_sequences.sql.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_seq")
+    @SequenceGenerator(name = "sales_seq", sequenceName = "sales_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -27,6 +27,10 @@ public class User {
     @Column(nullable = false)
     private OffsetDateTime createdAt = OffsetDateTime.now();
 
+    /** Los tokens emitidos antes de este instante dejan de aceptarse (null = ninguno revocado). */
+    @Column(name = "tokens_revoked_at")
+    private OffsetDateTime tokensRevokedAt;
+
     public User() {}
 
     public User(String username, String passwordHash, Role role) {
@@ -54,4 +58,7 @@ public class User {
 
     public OffsetDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+
+    public OffsetDateTime getTokensRevokedAt() { return tokensRevokedAt; }
+    public void setTokensRevokedAt(OffsetDateTime tokensRevokedAt) { this.tokensRevokedAt = tokensRevokedAt; }
 }
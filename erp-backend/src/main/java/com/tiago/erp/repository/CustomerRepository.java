@@ -2,7 +2,11 @@ package com.tiago.erp.repository;
 
 import com.tiago.erp.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
@@ -11,4 +15,12 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
      * Busca por nombre ignorando mayúsculas/minúsculas.
      */
     Optional<Customer> findByNameIgnoreCase(String name);
+
+    /**
+     * Soft-delete en un solo UPDATE. Devuelve las filas encontradas (incluye
+     * las que ya estaban inactivas).
+     */
+    @Modifying
+    @Query("UPDATE Customer c SET c.active = false WHERE c.id IN :ids")
+    int deactivateAllById(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,82 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.model.DailySalesRollup;
+import com.tiago.erp.model.InvoiceType;
+import com.tiago.erp.model.PaymentMethod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, DailySalesRollup.Key> {
+
+    record Totals(long saleCount, BigDecimal subtotal, BigDecimal total, long units) {}
+
+    /** Suma los deltas sobre la fila (día, medio de pago, comprobante); devuelve 0 si la fila no existe. */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE DailySalesRollup r
+           SET r.saleCount = r.saleCount + :sales,
+               r.subtotal  = r.subtotal + :subtotal,
+               r.total     = r.total + :total,
+               r.units     = r.units + :units
+         WHERE r.id.saleDate = :day
+           AND r.id.paymentMethod = :paymentMethod
+           AND r.id.invoiceType = :invoiceType
+    """)
+    int increment(@Param("day") LocalDate day,
+                  @Param("paymentMethod") PaymentMethod paymentMethod,
+                  @Param("invoiceType") InvoiceType invoiceType,
+                  @Param("sales") long sales,
+                  @Param("subtotal") BigDecimal subtotal,
+                  @Param("total") BigDecimal total,
+                  @Param("units") long units);
+
+    /** Totales de los días en [from, to). */
+    @Query("""
+        SELECT new com.tiago.erp.repository.DailySalesRollupRepository$Totals(
+               COALESCE(SUM(r.saleCount), 0), COALESCE(SUM(r.subtotal), 0),
+               COALESCE(SUM(r.total), 0), COALESCE(SUM(r.units), 0))
+          FROM DailySalesRollup r
+         WHERE r.id.saleDate >= :from AND r.id.saleDate < :to
+    """)
+    Totals totalsBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /** Filas de los días en [from, to), para armar series por bucket. */
+    @Query("""
+        SELECT r FROM DailySalesRollup r
+         WHERE r.id.saleDate >= :from AND r.id.saleDate < :to
+         ORDER BY r.id.saleDate
+    """)
+    List<DailySalesRollup> findDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "DELETE FROM {h-schema}daily_sales_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Reconstruye el rollup desde sales + sale_items. Subtotal/total en 0 se
+     * toman de los ítems, igual que en SaleService.toResponse.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO {h-schema}daily_sales_rollup
+               (sale_date, payment_method, invoice_type, sale_count, subtotal, total, units)
+        SELECT CAST(s.created_at AS DATE), s.payment_method, s.invoice_type, COUNT(*),
+               SUM(CASE WHEN s.subtotal = 0 THEN COALESCE(i.items_total, 0) ELSE s.subtotal END),
+               SUM(CASE WHEN s.total = 0
+                        THEN (CASE WHEN s.subtotal = 0 THEN COALESCE(i.items_total, 0) ELSE s.subtotal END)
+                        ELSE s.total END),
+               COALESCE(SUM(i.units), 0)
+          FROM {h-schema}sales s
+          LEFT JOIN (SELECT sale_id, SUM(quantity) AS units, SUM(unit_price * quantity) AS items_total
+                       FROM {h-schema}sale_items
+                      GROUP BY sale_id) i ON i.sale_id = s.id
+         GROUP BY CAST(s.created_at AS DATE), s.payment_method, s.invoice_type
+        """, nativeQuery = true)
+    int insertFromSales();
+}
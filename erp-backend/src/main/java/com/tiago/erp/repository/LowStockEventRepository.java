@@ -0,0 +1,49 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.model.LowStockEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface LowStockEventRepository extends JpaRepository<LowStockEvent, Long> {
+
+    /** Último evento de cada producto indicado (su estado conocido). */
+    @Query("""
+        SELECT e FROM LowStockEvent e
+         WHERE e.id IN (SELECT MAX(e2.id) FROM LowStockEvent e2
+                         WHERE e2.productId IN :productIds
+                         GROUP BY e2.productId)
+    """)
+    List<LowStockEvent> findLatestByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    /** Productos cuyo último evento es "stock bajo". */
+    @Query("""
+        SELECT e.productId FROM LowStockEvent e
+         WHERE e.low = true
+           AND e.id = (SELECT MAX(e2.id) FROM LowStockEvent e2 WHERE e2.productId = e.productId)
+    """)
+    List<Long> findLowProductIds();
+
+    /** Feed: eventos posteriores al cursor (los ids se confirman en orden, ver LowStockFeed). */
+    @Query("""
+        SELECT e FROM LowStockEvent e
+         WHERE e.id > :after
+         ORDER BY e.id
+    """)
+    List<LowStockEvent> findChanges(@Param("after") long after, Pageable page);
+
+    /** Borra eventos viejos salvo el último de cada producto, que es su estado. */
+    @Modifying
+    @Query("""
+        DELETE FROM LowStockEvent e
+         WHERE e.createdAt < :limit
+           AND e.id NOT IN (SELECT MAX(e2.id) FROM LowStockEvent e2 GROUP BY e2.productId)
+    """)
+    int deleteHistoryOlderThan(@Param("limit") Instant limit);
+}
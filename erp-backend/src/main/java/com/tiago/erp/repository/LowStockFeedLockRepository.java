@@ -0,0 +1,18 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.model.LowStockFeedLock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface LowStockFeedLockRepository extends JpaRepository<LowStockFeedLock, Integer> {
+
+    /** Bloquea la fila hasta el fin de la transacción (SELECT ... FOR UPDATE). */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LowStockFeedLock l WHERE l.id = :id")
+    Optional<LowStockFeedLock> lock(@Param("id") Integer id);
+}
@@ -1,9 +1,17 @@
 package com.tiago.erp.repository;
 
+import com.tiago.erp.dto.product.ProductSnapshot;
+import com.tiago.erp.dto.product.ProductSuggestion;
+import com.tiago.erp.dto.product.StockState;
 import com.tiago.erp.model.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,8 +26,53 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     // Buscar producto por SKU (si lo usás en los seeds)
     Optional<Product> findBySku(String sku);
 
+    // Importación masiva: existentes de un bloque en una sola consulta
+    List<Product> findAllBySkuIn(Collection<String> skus);
+
+    // ==============================
+    //   Stock bajo (stock <= stockMin, índice parcial idx_products_low_stock)
     // ==============================
-    //   NUEVO MÉTODO: low stock
+    @Query("SELECT p.id FROM Product p WHERE p.stock <= p.stockMin")
+    List<Long> findLowStockIds();
+
+    @Query("""
+        SELECT new com.tiago.erp.dto.product.StockState(p.id, p.sku, p.stock, p.stockMin)
+          FROM Product p
+         WHERE p.id IN :ids
+    """)
+    List<StockState> findStockStates(@Param("ids") Collection<Long> ids);
+
     // ==============================
-    List<Product> findByStockLessThan(Integer stock);
+    //   Reserva de stock en ventas
+    // ==============================
+
+    /**
+     * Carga y bloquea (SELECT ... FOR UPDATE) los productos indicados en una sola
+     * consulta. El orden por id es fijo para que dos ventas que comparten
+     * productos tomen los locks en el mismo orden y no se produzcan deadlocks.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // ==============================
+    //   Índice de sugerencias (typeahead)
+    // ==============================
+    @Query("""
+        SELECT new com.tiago.erp.dto.product.ProductSuggestion(p.id, p.name, p.sku, p.barcode, p.category, p.salePrice)
+          FROM Product p
+    """)
+    List<ProductSuggestion> findAllSuggestions();
+
+    // ==============================
+    //   Escaneo por código de barras (índice único uk_products_barcode)
+    // ==============================
+    @Query("""
+        SELECT new com.tiago.erp.dto.product.ProductSnapshot(p.id, p.name, p.sku, p.barcode, p.salePrice, p.stock)
+          FROM Product p
+         WHERE p.barcode = :barcode
+    """)
+    Optional<ProductSnapshot> findSnapshotByBarcode(@Param("barcode") String barcode);
+
+    boolean existsByBarcodeAndIdNot(String barcode, Long id);
 }
@@ -0,0 +1,29 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.dto.report.SaleExportRow;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Consultas de exportación de ventas (fragmento de SaleRepository).
+ * Los filtros y la agregación por venta se resuelven en una sola sentencia SQL
+ * (GROUP BY sobre sales + sale_items, usando idx_sales_created_at_id para el rango)
+ * y las filas se leen con un cursor forward-only, de a {@code fetchSize}
+ * por ida y vuelta a la base.
+ */
+public interface SaleExportRepository {
+
+    /**
+     * Ventas en [start, end) cuyo cliente contiene {@code customerName}, ordenadas
+     * por fecha e id. Cualquier filtro puede venir null.
+     * El Stream debe consumirse (y cerrarse) dentro de una transacción.
+     */
+    Stream<SaleExportRow> streamForExport(LocalDateTime start,
+                                          LocalDateTime end,
+                                          String customerName,
+                                          int fetchSize);
+
+    /** Cantidad de ventas que devolvería {@link #streamForExport} con los mismos filtros. */
+    long countForExport(LocalDateTime start, LocalDateTime end, String customerName);
+}
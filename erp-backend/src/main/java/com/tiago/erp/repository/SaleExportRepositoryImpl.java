@@ -0,0 +1,82 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.dto.report.SaleExportRow;
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.Sale;
+import com.tiago.erp.model.SaleItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.hibernate.jpa.HibernateHints;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+class SaleExportRepositoryImpl implements SaleExportRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Stream<SaleExportRow> streamForExport(LocalDateTime start,
+                                                 LocalDateTime end,
+                                                 String customerName,
+                                                 int fetchSize) {
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Sale> root = cq.from(Sale.class);
+        Join<Sale, Customer> customer = root.join("customer", JoinType.INNER);
+        Join<Sale, SaleItem> items = root.join("items", JoinType.LEFT);
+
+        Expression<Number> lineTotal = cb.prod(items.<Number>get("unitPrice"), items.<Number>get("quantity"));
+
+        cq.multiselect(
+                  root.get("id"),
+                  root.get("createdAt"),
+                  customer.get("name"),
+                  cb.count(items.get("id")),
+                  cb.sum(lineTotal))
+          .where(SaleFilters.of(cb, root, customer, start, end, customerName))
+          .groupBy(root.get("id"), root.get("createdAt"), customer.get("name"))
+          .orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("id")));
+
+        return em.createQuery(cq)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(SaleExportRepositoryImpl::toRow);
+    }
+
+    @Override
+    public long countForExport(LocalDateTime start, LocalDateTime end, String customerName) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Sale> root = cq.from(Sale.class);
+        Join<Sale, Customer> customer = root.join("customer", JoinType.INNER);
+
+        cq.select(cb.count(root))
+          .where(SaleFilters.of(cb, root, customer, start, end, customerName));
+
+        return em.createQuery(cq).getSingleResult();
+    }
+
+    private static SaleExportRow toRow(Tuple t) {
+        Number count = (Number) t.get(3);
+        Number total = (Number) t.get(4);
+        return new SaleExportRow(
+                (Long) t.get(0),
+                (LocalDateTime) t.get(1),
+                (String) t.get(2),
+                count != null ? count.intValue() : 0,
+                toBigDecimal(total));
+    }
+
+    private static BigDecimal toBigDecimal(Number n) {
+        if (n == null) return BigDecimal.ZERO;
+        if (n instanceof BigDecimal bd) return bd;
+        return new BigDecimal(n.toString());
+    }
+}
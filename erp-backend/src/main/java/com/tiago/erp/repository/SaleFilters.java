@@ -0,0 +1,41 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.Sale;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filtros comunes de ventas para las consultas Criteria de los fragmentos:
+ * rango [start, end) sobre created_at y cliente que contiene el nombre.
+ * Cualquier filtro puede venir null.
+ */
+final class SaleFilters {
+
+    private SaleFilters() {}
+
+    static Predicate[] of(CriteriaBuilder cb,
+                          Root<Sale> root,
+                          Join<Sale, Customer> customer,
+                          LocalDateTime start,
+                          LocalDateTime end,
+                          String customerName) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (start != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), start));
+        }
+        if (end != null) {
+            predicates.add(cb.lessThan(root.get("createdAt"), end));
+        }
+        if (customerName != null && !customerName.isBlank()) {
+            predicates.add(cb.like(cb.lower(customer.get("name")), "%" + customerName.toLowerCase() + "%"));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+}
@@ -3,16 +3,33 @@ package com.tiago.erp.repository;
 import com.tiago.erp.model.SaleItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public interface SaleItemRepository extends JpaRepository<SaleItem, Long> {
 
+    /** Totales de un día y categoría: ventas que incluyen la categoría, importe y unidades de sus ítems. */
+    record CategoryDayTotals(LocalDate day, String category, long saleCount, BigDecimal total, long units) {}
+
     @Query("""
         SELECT COALESCE(SUM(i.unitPrice * i.quantity), 0)
         FROM SaleItem i
         WHERE i.sale.createdAt >= :start AND i.sale.createdAt < :end
     """)
     BigDecimal totalBetween(LocalDateTime start, LocalDateTime end);
+
+    @Query("""
+        SELECT new com.tiago.erp.repository.SaleItemRepository$CategoryDayTotals(
+               CAST(s.createdAt AS LocalDate), p.category, COUNT(DISTINCT s.id),
+               COALESCE(SUM(i.unitPrice * i.quantity), 0), COALESCE(SUM(i.quantity), 0))
+          FROM SaleItem i JOIN i.sale s JOIN i.product p
+         WHERE s.createdAt >= :start AND s.createdAt < :end
+         GROUP BY CAST(s.createdAt AS LocalDate), p.category
+    """)
+    List<CategoryDayTotals> categoryTotalsByDay(@Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end);
 }
@@ -0,0 +1,63 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.model.InvoiceType;
+import com.tiago.erp.model.PaymentMethod;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lectura del listado de ventas (fragmento de SaleRepository) en dos fases,
+ * sin entidades administradas ni relaciones LAZY:
+ * 1) página de cabeceras (venta + cliente) y, si hace falta, el count;
+ * 2) ítems (con nombre de producto) de todas las ventas de la página juntos.
+ * Así una página cuesta como máximo 3 sentencias, sin importar su tamaño.
+ */
+public interface SaleListingRepository {
+
+    /** Cabecera de una venta con los datos del cliente. */
+    record SaleHeader(Long saleId,
+                      Long customerId,
+                      String customerName,
+                      InvoiceType invoiceType,
+                      PaymentMethod paymentMethod,
+                      LocalDateTime createdAt,
+                      BigDecimal subtotal,
+                      BigDecimal total) {}
+
+    /** Línea de una venta con el nombre del producto. */
+    record SaleItemLine(Long saleId,
+                        Long productId,
+                        String productName,
+                        Integer quantity,
+                        BigDecimal unitPrice,
+                        BigDecimal subtotal) {}
+
+    /**
+     * Ventas en [start, end) cuyo cliente contiene {@code customerName}, según el
+     * orden y la página de {@code pageable}. Cualquier filtro puede venir null.
+     */
+    Page<SaleHeader> findHeaders(LocalDateTime start,
+                                 LocalDateTime end,
+                                 String customerName,
+                                 Pageable pageable);
+
+    /**
+     * Keyset: hasta {@code limit} ventas posteriores (en orden createdAt DESC, id DESC)
+     * a la posición ({@code afterCreatedAt}, {@code afterId}); sin posición, desde el principio.
+     * No hace count y el costo no depende de la profundidad (idx_sales_created_at_id).
+     */
+    List<SaleHeader> findHeadersAfter(LocalDateTime start,
+                                      LocalDateTime end,
+                                      String customerName,
+                                      LocalDateTime afterCreatedAt,
+                                      Long afterId,
+                                      int limit);
+
+    /** Ítems de las ventas indicadas, ordenados por venta e ítem. */
+    List<SaleItemLine> findItemLines(Collection<Long> saleIds);
+}
@@ -0,0 +1,125 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.Sale;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+class SaleListingRepositoryImpl implements SaleListingRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Page<SaleHeader> findHeaders(LocalDateTime start,
+                                        LocalDateTime end,
+                                        String customerName,
+                                        Pageable pageable) {
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<SaleHeader> cq = cb.createQuery(SaleHeader.class);
+        Root<Sale> root = cq.from(Sale.class);
+        Join<Sale, Customer> customer = root.join("customer", JoinType.INNER);
+
+        cq.select(header(cb, root, customer))
+          .where(SaleFilters.of(cb, root, customer, start, end, customerName))
+          .orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        var query = em.createQuery(cq).setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+
+        // El count sólo se ejecuta si no se deduce de la página (p. ej. última página incompleta)
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable,
+                () -> countHeaders(start, end, customerName));
+    }
+
+    @Override
+    public List<SaleHeader> findHeadersAfter(LocalDateTime start,
+                                             LocalDateTime end,
+                                             String customerName,
+                                             LocalDateTime afterCreatedAt,
+                                             Long afterId,
+                                             int limit) {
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<SaleHeader> cq = cb.createQuery(SaleHeader.class);
+        Root<Sale> root = cq.from(Sale.class);
+        Join<Sale, Customer> customer = root.join("customer", JoinType.INNER);
+
+        List<Predicate> where = new ArrayList<>(List.of(SaleFilters.of(cb, root, customer, start, end, customerName)));
+        if (afterCreatedAt != null && afterId != null) {
+            // (created_at, id) < (:createdAt, :id)
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            Path<Long> id = root.get("id");
+            where.add(cb.or(
+                    cb.lessThan(createdAt, afterCreatedAt),
+                    cb.and(cb.equal(createdAt, afterCreatedAt), cb.lessThan(id, afterId))));
+        }
+
+        cq.select(header(cb, root, customer))
+          .where(where.toArray(new Predicate[0]))
+          .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+        return em.createQuery(cq)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<SaleItemLine> findItemLines(Collection<Long> saleIds) {
+        if (saleIds.isEmpty()) return List.of();
+
+        return em.createQuery("""
+                        SELECT new com.tiago.erp.repository.SaleListingRepository$SaleItemLine(
+                               si.sale.id, p.id, p.name, si.quantity, si.unitPrice, si.subtotal)
+                          FROM SaleItem si
+                          JOIN si.product p
+                         WHERE si.sale.id IN :ids
+                         ORDER BY si.sale.id, si.id
+                        """, SaleItemLine.class)
+                .setParameter("ids", saleIds)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+
+    private static CompoundSelection<SaleHeader> header(CriteriaBuilder cb,
+                                                        Root<Sale> root,
+                                                        Join<Sale, Customer> customer) {
+        return cb.construct(SaleHeader.class,
+                root.get("id"),
+                customer.get("id"),
+                customer.get("name"),
+                root.get("invoiceType"),
+                root.get("paymentMethod"),
+                root.get("createdAt"),
+                root.get("subtotal"),
+                root.get("total"));
+    }
+
+    private long countHeaders(LocalDateTime start, LocalDateTime end, String customerName) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Sale> root = cq.from(Sale.class);
+        Join<Sale, Customer> customer = root.join("customer", JoinType.INNER);
+
+        cq.select(cb.count(root))
+          .where(SaleFilters.of(cb, root, customer, start, end, customerName));
+
+        return em.createQuery(cq).getSingleResult();
+    }
+}
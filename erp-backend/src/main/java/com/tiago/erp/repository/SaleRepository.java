@@ -7,7 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.LocalDateTime;
 
-public interface SaleRepository extends JpaRepository<Sale, Long> {
+public interface SaleRepository extends JpaRepository<Sale, Long>, SaleExportRepository, SaleListingRepository {
 
     // ====== Derivadas tipadas (sin parámetros nulos) ======
 
@@ -2,9 +2,33 @@ package com.tiago.erp.repository;
 
 import com.tiago.erp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    /** Usuarios deshabilitados o con tokens revocados (el resto no aparece). */
+    record Revocation(String username, boolean active, OffsetDateTime tokensRevokedAt) {}
+
+    @Query("""
+        SELECT new com.tiago.erp.repository.UserRepository$Revocation(u.username, u.active, u.tokensRevokedAt)
+          FROM User u
+         WHERE u.active = false OR u.tokensRevokedAt IS NOT NULL
+    """)
+    List<Revocation> findRevocations();
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokensRevokedAt = :at WHERE u.username = :username")
+    int revokeTokens(@Param("username") String username, @Param("at") OffsetDateTime at);
+
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :hash WHERE u.username = :username")
+    int updatePasswordHash(@Param("username") String username, @Param("hash") String hash);
 }
@@ -1,15 +1,18 @@
 package com.tiago.erp.security;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -17,7 +20,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
@@ -29,6 +31,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationRegistry revocations;
+
+    /**
+     * true: el principal se arma con los claims verificados, sin consultar la
+     * tabla users; usuarios deshabilitados y tokens revocados se rechazan con
+     * TokenRevocationRegistry. false: se carga el usuario en cada request.
+     */
+    @Value("${security.jwt.stateless-auth:true}")
+    private boolean statelessAuth;
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -43,21 +56,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        final String username = jwtUtil.extractUsername(jwt);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Un solo parseo/verificación por request (y ninguno si el token ya se verificó antes)
+        final VerifiedToken token;
+        try {
+            token = jwtUtil.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // token inválido o vencido: sigue sin autenticar y responde el entry point
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (token.username() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null
+                && !revocations.isRevoked(token)) {
 
-            // ✔ CORREGIDO: usar el nuevo método del JwtUtil
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
+            // Roles desde el token
+            var authorities = token.roles().stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toList());
 
-                // Roles desde el token
-                List<String> roles = jwtUtil.extractRoles(jwt);
+            UserDetails userDetails = statelessAuth
+                    ? User.withUsername(token.username()).password("").authorities(authorities).build()
+                    : userDetailsService.loadUserByUsername(token.username());
 
-                var authorities = roles.stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
+            if (userDetails.isEnabled() && token.username().equals(userDetails.getUsername())) {
 
                 var authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
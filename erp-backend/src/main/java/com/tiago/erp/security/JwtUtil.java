@@ -1,6 +1,11 @@
 package com.tiago.erp.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -9,8 +14,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -18,22 +29,34 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
-    // ================================
-    // PROPIEDADES CORRECTAS DESDE application.yml
-    // ================================
-    @Value("${security.jwt.secret}")
-    private String secret;
-
-    @Value("${security.jwt.access-ttl-minutes}")
-    private long accessTtlMinutes;
-
-    @Value("${security.jwt.refresh-ttl-minutes}")
-    private long refreshTtlMinutes;
+    private final long accessTtlMinutes;
+    private final long refreshTtlMinutes;
+
+    // Clave y parser se arman una sola vez: el parser de JJWT es inmutable y thread-safe
+    private final Key signKey;
+    private final JwtParser parser;
+
+    // Tokens ya verificados, por SHA-256 del token, hasta su vencimiento
+    private final Cache<String, VerifiedToken> verified;
+
+    public JwtUtil(@Value("${security.jwt.secret}") String secret,
+                   @Value("${security.jwt.access-ttl-minutes}") long accessTtlMinutes,
+                   @Value("${security.jwt.refresh-ttl-minutes}") long refreshTtlMinutes,
+                   @Value("${security.jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+        this.accessTtlMinutes = accessTtlMinutes;
+        this.refreshTtlMinutes = refreshTtlMinutes;
+        this.signKey = signKey(secret);
+        this.parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpires())
+                .build();
+    }
 
     // ================================
     // CLAVE DE FIRMA
     // ================================
-    private Key getSignKey() {
+    private static Key signKey(String secret) {
         try {
             return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
         } catch (Exception e) {
@@ -68,66 +91,117 @@ public class JwtUtil {
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + minutes * 60_000))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // ================================
+    // VERIFICACIÓN (un solo parseo por token)
+    // ================================
+
+    /**
+     * Verifica firma y vencimiento y devuelve los claims. Un token ya verificado
+     * se resuelve desde memoria hasta que vence.
+     *
+     * @throws io.jsonwebtoken.JwtException si el token es inválido o está vencido
+     */
+    public VerifiedToken verify(String token) {
+        String key = sha256(token);
+        VerifiedToken cached = verified.getIfPresent(key);
+        if (cached != null) {
+            if (!cached.isExpired(Instant.now())) return cached;
+            verified.invalidate(key);
+            throw new ExpiredJwtException(null, null, "JWT expired at " + cached.expiresAt());
+        }
+
+        VerifiedToken fresh = toVerified(parser.parseClaimsJws(token).getBody());
+        verified.put(key, fresh);
+        return fresh;
+    }
+
     // ================================
     // EXTRACCIÓN
     // ================================
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        Object r = claims.get("role");
-        return r != null ? r.toString() : null;
+        return verify(token).role();
     }
 
     public List<String> extractRoles(String token) {
-        Claims claims = extractAllClaims(token);
-        Object raw = claims.get("roles");
-
-        if (raw instanceof List<?> list)
-            return list.stream().map(Object::toString).toList();
-
-        if (raw instanceof String s)
-            return List.of("ROLE_" + s.toUpperCase());
-
-        return List.of();
+        return verify(token).roles();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        Instant exp = verify(token).expiresAt();
+        return exp != null ? Date.from(exp) : null;
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> resolver) {
-        return resolver.apply(extractAllClaims(token));
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return resolver.apply(parser.parseClaimsJws(token).getBody());
     }
 
     // ================================
     // VALIDACIÓN
     // ================================
     public boolean validateToken(String token, String username) {
-        return extractUsername(token).equals(username)
-                && !isTokenExpired(token);
+        return verify(token).username().equals(username);
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        return extractUsername(token).equals(userDetails.getUsername())
-                && !isTokenExpired(token);
+        return validateToken(token, userDetails.getUsername());
+    }
+
+    // ================================
+    // HELPERS
+    // ================================
+    private static VerifiedToken toVerified(Claims claims) {
+        Object r = claims.get("role");
+        Object raw = claims.get("roles");
+
+        List<String> roles;
+        if (raw instanceof List<?> list)
+            roles = list.stream().map(Object::toString).toList();
+        else if (raw instanceof String s)
+            roles = List.of("ROLE_" + s.toUpperCase());
+        else
+            roles = List.of();
+
+        return new VerifiedToken(
+                claims.getSubject(),
+                r != null ? r.toString() : null,
+                roles,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Cada entrada vive hasta el exp del token (o 0 si no tiene exp: no se cachea). */
+    private static final class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            if (value.expiresAt() == null) return 0;
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
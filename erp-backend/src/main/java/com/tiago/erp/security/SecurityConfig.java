@@ -1,6 +1,8 @@
 package com.tiago.erp.security;
 
 import com.tiago.erp.repository.UserRepository;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -12,9 +14,11 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -22,7 +26,9 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableMethodSecurity
@@ -37,9 +43,24 @@ public class SecurityConfig {
     // ====================================
     // PASSWORD ENCODER
     // ====================================
+    // Hashes nuevos: {bcrypt} con el costo configurado. Los hashes viejos sin
+    // prefijo siguen validando y se rehashean en el próximo login correcto
+    // (UserPasswordUpgrader), igual que los de un costo menor al actual.
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.password.bcrypt-strength:10}") int strength,
+            @Value("${security.password.hashing-threads:0}") int threads,
+            @Value("${security.password.hashing-queue:64}") int queueCapacity,
+            @Value("${security.password.hashing-timeout:PT5S}") Duration timeout
+    ) {
+        return new BoundedPasswordEncoder(delegatingEncoder(strength), threads, queueCapacity, timeout);
+    }
+
+    static PasswordEncoder delegatingEncoder(int strength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     // ====================================
@@ -95,11 +116,19 @@ public class SecurityConfig {
 
                 .authorizeHttpRequests(auth -> auth
 
+                        // Fin de StreamingResponseBody / SseEmitter y páginas de error: son dispatches
+                        // internos de un request que ya pasó por estas reglas. El filtro JWT no corre
+                        // en ellos (OncePerRequestFilter), así que sin esto se rechazaban y el cuerpo
+                        // llegaba cortado.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                         // Preflight CORS
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
                         // Health / Actuator públicos (para Render / monitoreo)
                         .requestMatchers("/api/health").permitAll()
+                        // Métricas (caché, JVM, HTTP) -> SOLO ADMIN
+                        .requestMatchers("/actuator/metrics/**", "/api/actuator/metrics/**").hasRole("ADMIN")
                         .requestMatchers("/actuator/**", "/api/actuator/**").permitAll()
 
                         // Auth pública
@@ -112,15 +141,19 @@ public class SecurityConfig {
                                 "/swagger-ui.html"
                         ).permitAll()
 
+                        // Antes del GET público de productos: gana el primer matcher que coincide
+                        // Importación y reprecio masivos de productos -> SOLO ADMIN
+                        .requestMatchers(HttpMethod.POST, "/api/products/import", "/api/products/reprice").hasRole("ADMIN")
+
+                        // Low stock -> cualquier usuario logueado (página de stock y badge del sidebar)
+                        .requestMatchers(HttpMethod.GET, "/api/products/low-stock", "/api/products/low-stock/**").authenticated()
+
                         // Productos y clientes - GET públicos (para demo front)
                         .requestMatchers(HttpMethod.GET, "/api/products/**", "/api/customers/**").permitAll()
 
                         // Ventas -> SOLO ADMIN
                         .requestMatchers("/api/sales/**").hasRole("ADMIN")
 
-                        // Low stock -> SOLO ADMIN
-                        .requestMatchers(HttpMethod.GET, "/api/products/low-stock").hasRole("ADMIN")
-
                         // Todo lo demás requiere autenticación
                         .anyRequest().authenticated()
                 )
@@ -138,10 +171,12 @@ public class SecurityConfig {
     @Bean
     public AuthenticationProvider authenticationProvider(
             UserDetailsService userDetailsService,
-            PasswordEncoder passwordEncoder
+            PasswordEncoder passwordEncoder,
+            UserDetailsPasswordService passwordUpgrader
     ) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(passwordUpgrader);
         return provider;
     }
 
@@ -0,0 +1,116 @@
+package com.tiago.erp.security;
+
+import com.tiago.erp.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Revocaciones en memoria para la autenticación stateless: por usuario, el
+ * instante antes del cual sus tokens ya no valen. Un usuario deshabilitado
+ * figura con {@link Instant#MAX} (se rechazan todos sus tokens).
+ *
+ * Son pocas filas (sólo usuarios inactivos o con revocación), así que se
+ * recargan completas cada {@code security.jwt.revocation-refresh}; las
+ * revocaciones hechas en esta instancia se aplican al momento. Un refresh cuya
+ * consulta empezó antes de que una revocación local se confirmara puede no
+ * verla: esas se conservan hasta el primer refresh que empiece después.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationRegistry.class);
+
+    private final UserRepository userRepository;
+
+    // snapshot inmutable: las lecturas (una por request) no sincronizan
+    private volatile Map<String, Instant> revokedBefore = Map.of();
+
+    /** Revocaciones locales aún no leídas por un refresh: usuario -> fin de su transacción (null: en curso). */
+    private final Map<String, Instant> localRevocations = new HashMap<>();
+
+    public TokenRevocationRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /** true si el token es de un usuario deshabilitado o se emitió antes de su revocación. */
+    public boolean isRevoked(VerifiedToken token) {
+        Instant cutoff = revokedBefore.get(token.username());
+        if (cutoff == null) return false;
+        return cutoff == Instant.MAX || issuedBefore(token, cutoff);
+    }
+
+    /**
+     * true si el token se emitió antes de {@code cutoff}. iat tiene precisión de
+     * segundos: un token del mismo segundo que la revocación también se rechaza
+     * (puede ser anterior a ella; a lo sumo se pierde un login hecho justo después).
+     */
+    public static boolean issuedBefore(VerifiedToken token, Instant cutoff) {
+        return token.issuedAt() == null || !token.issuedAt().isAfter(cutoff.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /** Invalida todos los tokens emitidos hasta ahora para {@code username}. */
+    @Transactional
+    public void revokeTokens(String username) {
+        OffsetDateTime now = OffsetDateTime.now();
+        userRepository.revokeTokens(username, now);
+        synchronized (this) {
+            Map<String, Instant> next = new HashMap<>(revokedBefore);
+            next.merge(username, now.toInstant(), TokenRevocationRegistry::later);
+            revokedBefore = Map.copyOf(next);
+            localRevocations.put(username, null);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    localRevocationCompleted(username);
+                }
+            });
+        } else {
+            localRevocationCompleted(username);
+        }
+    }
+
+    private synchronized void localRevocationCompleted(String username) {
+        localRevocations.replace(username, null, Instant.now());
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.revocation-refresh:PT30S}")
+    public void refresh() {
+        try {
+            Instant started = Instant.now();
+            Map<String, Instant> next = new HashMap<>();
+            for (UserRepository.Revocation r : userRepository.findRevocations()) {
+                Instant cutoff = !r.active() ? Instant.MAX : r.tokensRevokedAt().toInstant();
+                next.put(r.username(), cutoff);
+            }
+            synchronized (this) {
+                // confirmadas antes de la consulta: ya vienen en next
+                localRevocations.values().removeIf(completed -> completed != null && completed.isBefore(started));
+                for (String username : localRevocations.keySet()) {
+                    Instant local = revokedBefore.get(username);
+                    if (local != null) next.merge(username, local, TokenRevocationRegistry::later);
+                }
+                revokedBefore = Map.copyOf(next);
+            }
+        } catch (RuntimeException e) {
+            // si la base no responde se mantiene la última lista conocida
+            log.warn("Token revocation refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,30 @@
+package com.tiago.erp.security;
+
+import com.tiago.erp.repository.UserRepository;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Rehash en el login: DaoAuthenticationProvider llama acá cuando el hash
+ * guardado quedó viejo (sin prefijo {bcrypt} o con un costo menor al
+ * configurado) y ya tiene la contraseña en claro validada.
+ */
+@Component
+public class UserPasswordUpgrader implements UserDetailsPasswordService {
+
+    private final UserRepository userRepository;
+
+    public UserPasswordUpgrader(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordHash(user.getUsername(), newPassword);
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+}
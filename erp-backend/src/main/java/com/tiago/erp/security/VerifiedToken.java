@@ -0,0 +1,20 @@
+package com.tiago.erp.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims de un JWT ya verificado (firma y vencimiento), leídos una sola vez.
+ * {@code roles} viene en formato Spring Security (ROLE_X).
+ */
+public record VerifiedToken(String username, String role, List<String> roles,
+                            Instant issuedAt, Instant expiresAt) {
+
+    public VerifiedToken {
+        roles = List.copyOf(roles);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
@@ -3,8 +3,14 @@ package com.tiago.erp.service;
 import com.tiago.erp.model.User;
 import com.tiago.erp.repository.UserRepository;
 import com.tiago.erp.security.JwtUtil;
+import com.tiago.erp.security.TokenRevocationRegistry;
+import com.tiago.erp.security.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder; // Import added
 import org.springframework.stereotype.Service;
 
@@ -18,16 +24,19 @@ public class AuthService {
     private final UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationRegistry revocations;
 
     public AuthService(
             AuthenticationManager authenticationManager,
             JwtUtil jwtUtil,
             UserRepository userRepository,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            TokenRevocationRegistry revocations) {
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.revocations = revocations;
     }
 
     public void register(com.tiago.erp.dto.RegisterRequest req) {
@@ -52,16 +61,15 @@ public class AuthService {
 
     public Map<String, String> login(String username, String password) {
 
-        // 🔐 Autentica usuario
-        authenticationManager.authenticate(
+        // 🔐 Autentica usuario (el provider ya cargó el usuario: no se vuelve a buscar)
+        Authentication auth = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(username, password));
 
-        // 🔎 Busca el usuario en la BD
-        User user = userRepository.findByUsername(username).orElseThrow();
+        String role = role(auth);
 
         // 🔥 Genera tokens con roles correctos (CORREGIDO)
-        String access = jwtUtil.generateToken(user.getUsername(), user.getRole().name());
-        String refresh = jwtUtil.generateRefreshToken(user.getUsername(), user.getRole().name());
+        String access = jwtUtil.generateToken(auth.getName(), role);
+        String refresh = jwtUtil.generateRefreshToken(auth.getName(), role);
 
         return Map.of(
                 "accessToken", access,
@@ -69,12 +77,43 @@ public class AuthService {
                 "tokenType", "Bearer");
     }
 
+    /** ROLE_ADMIN -> ADMIN, a partir de las authorities del usuario autenticado. */
+    private static String role(Authentication auth) {
+        return auth.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(a -> a.startsWith("ROLE_"))
+                .map(a -> a.substring("ROLE_".length()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Usuario sin rol: " + auth.getName()));
+    }
+
+    /**
+     * Nuevo access token a partir del refresh token. Se rechaza (401) si el
+     * token no verifica, si se emitió antes de un logout-everywhere o si el
+     * usuario está deshabilitado: se mira el registro en memoria y también la
+     * fila del usuario, por si la revocación se hizo en otra instancia.
+     */
     public Map<String, String> refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new BadCredentialsException("refreshToken requerido");
+        }
 
-        // 🔍 Extrae username del refreshToken
-        String username = jwtUtil.extractUsername(refreshToken);
+        // 🔍 Verifica firma/vencimiento y lee los claims
+        VerifiedToken token;
+        try {
+            token = jwtUtil.verify(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Refresh token inválido", e);
+        }
+        if (token.username() == null || revocations.isRevoked(token)) {
+            throw new BadCredentialsException("Refresh token revocado");
+        }
 
-        User user = userRepository.findByUsername(username).orElseThrow();
+        User user = userRepository.findByUsername(token.username())
+                .filter(User::isActive)
+                .filter(u -> u.getTokensRevokedAt() == null
+                        || !TokenRevocationRegistry.issuedBefore(token, u.getTokensRevokedAt().toInstant()))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token revocado"));
 
         // 🔥 Nuevamente, usa método corregido
         String access = jwtUtil.generateToken(user.getUsername(), user.getRole().name());
@@ -0,0 +1,140 @@
+package com.tiago.erp.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.tiago.erp.dto.product.ProductSnapshot;
+import com.tiago.erp.event.ProductChangedEvent;
+import com.tiago.erp.event.ProductsBulkChangedEvent;
+import com.tiago.erp.event.StockChangedEvent;
+import com.tiago.erp.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché read-through código de barras -> producto para el escaneo en caja.
+ *
+ * Un miss hace una sola consulta por el índice único de products.barcode;
+ * también se recuerdan los códigos inexistentes, así un código desconocido
+ * escaneado varias veces no vuelve a la base. Se invalida después del commit:
+ * - ProductChangedEvent: entrada del producto (código viejo) y código nuevo.
+ * - StockChangedEvent: productos vendidos, porque el snapshot incluye stock.
+ * - ProductsBulkChangedEvent: importación o reprecio masivo, se vacía completa.
+ * El TTL cubre cambios hechos desde otra instancia.
+ *
+ * Para invalidar por producto sin recorrer el caché se mantiene el índice
+ * inverso id -> código de las entradas cargadas. Una carga que estaba leyendo
+ * la base mientras se invalidaba vuelve a leer (ver {@link #load}), así no
+ * queda en el caché el stock anterior a la venta.
+ *
+ * Métricas: cache.gets{cache=products.barcode,result=hit|miss}, cache.size.
+ */
+@Service
+public class BarcodeLookupCache {
+
+    static final String CACHE_NAME = "products.barcode";
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final ProductRepository productRepository;
+    private final LoadingCache<String, Optional<ProductSnapshot>> cache;
+    private final Map<Long, String> codeByProduct = new ConcurrentHashMap<>();
+    /** Se incrementa en cada invalidación; una carga que lo ve cambiar relee. */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public BarcodeLookupCache(ProductRepository productRepository,
+                              ObjectProvider<MeterRegistry> meterRegistry,
+                              @Value("${app.products.barcode-cache.max-size:20000}") long maxSize,
+                              @Value("${app.products.barcode-cache.ttl:PT10M}") Duration ttl) {
+        this(productRepository, meterRegistry.getIfAvailable(SimpleMeterRegistry::new), maxSize, ttl);
+    }
+
+    BarcodeLookupCache(ProductRepository productRepository, MeterRegistry registry, long maxSize, Duration ttl) {
+        this.productRepository = productRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .evictionListener((String code, Optional<ProductSnapshot> value, RemovalCause cause) -> {
+                    if (value != null) value.ifPresent(p -> codeByProduct.remove(p.id(), code));
+                })
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    public Optional<ProductSnapshot> find(String barcode) {
+        String code = normalize(barcode);
+        if (code == null) return Optional.empty();
+        return cache.get(code);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidateProducts(Set.of(event.productId()));
+        if (!event.isDeleted()) {
+            String code = normalize(event.product().barcode());
+            if (code != null) cache.invalidate(code);
+        }
+    }
+
+    @EventListener
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+        codeByProduct.clear();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStockChanged(StockChangedEvent event) {
+        invalidateProducts(event.productIds());
+    }
+
+    /** Código tal como se guarda en products.barcode; null si está vacío. */
+    static String normalize(String barcode) {
+        if (barcode == null) return null;
+        String code = barcode.trim();
+        return code.isEmpty() ? null : code;
+    }
+
+    /**
+     * Carga de un miss. Primero se registra el código en el índice inverso y
+     * después se mira si hubo invalidaciones durante la consulta: si las hubo
+     * se relee (ya con los datos confirmados); si no, una invalidación
+     * posterior encuentra el código y espera a que esta carga termine.
+     */
+    private Optional<ProductSnapshot> load(String code) {
+        Optional<ProductSnapshot> snapshot;
+        int attempts = 0;
+        long before;
+        do {
+            before = invalidations.get();
+            snapshot = productRepository.findSnapshotByBarcode(code);
+            snapshot.ifPresent(p -> codeByProduct.put(p.id(), code));
+        } while (invalidations.get() != before && ++attempts < MAX_LOAD_ATTEMPTS);
+        return snapshot;
+    }
+
+    private void invalidateProducts(Set<Long> ids) {
+        invalidations.incrementAndGet();
+        for (Long id : ids) {
+            String code = codeByProduct.remove(id);
+            if (code != null) cache.invalidate(code);
+        }
+    }
+}
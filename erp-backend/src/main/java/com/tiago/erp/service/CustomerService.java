@@ -3,92 +3,62 @@ package com.tiago.erp.service;
 import com.tiago.erp.dto.customer.CustomerRequest;
 import com.tiago.erp.model.Customer;
 import com.tiago.erp.repository.CustomerRepository;
-import org.springframework.beans.BeanUtils;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.*;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 
 @Service
 public class CustomerService {
 
+    private static final List<String> SEARCH_FIELDS = List.of("name", "email");
+    static final int DEACTIVATE_CHUNK = 1000;
+
     private final CustomerRepository customerRepository;
+    private final TextSearch textSearch;
 
     @PersistenceContext
     private EntityManager em;
 
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository, TextSearch textSearch) {
         this.customerRepository = customerRepository;
+        this.textSearch = textSearch;
     }
 
     public Page<Customer> list(Integer page, Integer size, String sort, String q, Boolean active) {
-        Pageable pageable = buildPageable(page, size, sort);
-
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Customer> cq = cb.createQuery(Customer.class);
-        Root<Customer> root = cq.from(Customer.class);
-
-        List<Predicate> predicates = new ArrayList<>();
-
-        // q -> nombre o email si existen
-        if (q != null && !q.isBlank()) {
-            String like = "%" + q.toLowerCase() + "%";
-            List<Predicate> orParts = new ArrayList<>();
-            try { orParts.add(cb.like(cb.lower(root.get("name")),  like)); } catch (IllegalArgumentException ignored) {}
-            try { orParts.add(cb.like(cb.lower(root.get("email")), like)); } catch (IllegalArgumentException ignored) {}
-            if (!orParts.isEmpty()) {
-                predicates.add(cb.or(orParts.toArray(new Predicate[0])));
-            }
-        }
+        return query(sort, q, active).page(em, buildPageable(page, size, sort));
+    }
 
-        // active si existe
-        if (active != null) {
-            try {
-                predicates.add(cb.equal(root.get("active"), active));
-            } catch (IllegalArgumentException ignored) {}
-        }
+    /** Igual que {@link #list}; con {@code withTotal=false} no calcula el total (sólo hasNext). */
+    public Slice<Customer> list(Integer page, Integer size, String sort, String q, Boolean active,
+                                boolean withTotal) {
+        if (withTotal) return list(page, size, sort, q, active);
+        return query(sort, q, active).slice(em, buildPageable(page, size, sort));
+    }
 
-        cq.where(predicates.toArray(new Predicate[0]));
-        if (sort != null && !sort.isBlank()) {
-            try {
-                cq.orderBy(cb.asc(root.get(sort)));
-            } catch (IllegalArgumentException ignored) {}
-        }
+    private ListQuery<Customer> query(String sort, String q, Boolean active) {
+        ListQuery<Customer> query = ListQuery.of(Customer.class);
 
-        TypedQuery<Customer> query = em.createQuery(cq);
-        query.setFirstResult((int) pageable.getOffset());
-        query.setMaxResults(pageable.getPageSize());
-        List<Customer> content = query.getResultList();
-
-        // count
-        CriteriaQuery<Long> countCq = cb.createQuery(Long.class);
-        Root<Customer> countRoot = countCq.from(Customer.class);
-        countCq.select(cb.count(countRoot));
-
-        List<Predicate> countPred = new ArrayList<>();
-        if (q != null && !q.isBlank()) {
-            String like = "%" + q.toLowerCase() + "%";
-            List<Predicate> orParts = new ArrayList<>();
-            try { orParts.add(cb.like(cb.lower(countRoot.get("name")),  like)); } catch (IllegalArgumentException ignored) {}
-            try { orParts.add(cb.like(cb.lower(countRoot.get("email")), like)); } catch (IllegalArgumentException ignored) {}
-            if (!orParts.isEmpty()) {
-                countPred.add(cb.or(orParts.toArray(new Predicate[0])));
-            }
+        // q -> nombre o email (lower(...) LIKE, servido por los índices trigram)
+        if (TextSearch.hasTerm(q)) {
+            query.where("q", TextSearch.matches(SEARCH_FIELDS, "q"), "q", TextSearch.likePattern(q));
         }
         if (active != null) {
-            try { countPred.add(cb.equal(countRoot.get("active"), active)); } catch (IllegalArgumentException ignored) {}
+            query.where("active", "e.active = :active", "active", active);
         }
-        countCq.where(countPred.toArray(new Predicate[0]));
-        long total = em.createQuery(countCq).getSingleResult();
 
-        return new PageImpl<>(content, pageable, total);
+        if (TextSearch.RELEVANCE.equals(sort)) {
+            if (TextSearch.hasTerm(q)) textSearch.orderByRelevance(query, SEARCH_FIELDS, q);
+        } else {
+            query.orderByAttribute(em, sort);
+        }
+        return query;
     }
 
     public Customer getById(Long id) {
@@ -99,32 +69,45 @@ public class CustomerService {
     @Transactional
     public Customer create(CustomerRequest req) {
         Customer entity = new Customer();
-        BeanUtils.copyProperties(req, entity);
+        req.applyTo(entity);
         return customerRepository.save(entity);
     }
 
     @Transactional
     public Customer update(Long id, CustomerRequest req) {
         Customer entity = getById(id);
-        BeanUtils.copyProperties(req, entity, "id", "createdAt", "createdDate");
+        req.applyTo(entity);
         return customerRepository.save(entity);
     }
 
+    /** Soft-delete (active=false) sin cargar la entidad. */
     @Transactional
     public void delete(Long id) {
-        Customer entity = getById(id);
-        try {
-            entity.getClass().getMethod("setActive", Boolean.class).invoke(entity, Boolean.FALSE);
-            customerRepository.save(entity);
-        } catch (Exception noSoftDelete) {
-            customerRepository.delete(entity);
+        if (customerRepository.deactivateAllById(List.of(id)) == 0) {
+            throw new NoSuchElementException("customer not found: " + id);
+        }
+    }
+
+    /**
+     * Soft-delete de varios clientes con un UPDATE cada {@value #DEACTIVATE_CHUNK}
+     * ids (límite de parámetros del IN); devuelve cuántos existían.
+     */
+    @Transactional
+    public int deactivateAll(Collection<Long> ids) {
+        if (ids == null) return 0;
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        int found = 0;
+        for (int from = 0; from < distinct.size(); from += DEACTIVATE_CHUNK) {
+            found += customerRepository.deactivateAllById(
+                    distinct.subList(from, Math.min(from + DEACTIVATE_CHUNK, distinct.size())));
         }
+        return found;
     }
 
     private Pageable buildPageable(Integer page, Integer size, String sort) {
         int p = (page == null || page < 0) ? 0 : page;
         int s = (size == null || size <= 0) ? 20 : size;
-        if (sort == null || sort.isBlank()) return PageRequest.of(p, s);
+        if (sort == null || sort.isBlank() || TextSearch.RELEVANCE.equals(sort)) return PageRequest.of(p, s);
         return PageRequest.of(p, s, Sort.by(Sort.Order.asc(sort)));
     }
 }
@@ -1,42 +1,37 @@
 package com.tiago.erp.service;
 
-import com.tiago.erp.repository.SaleItemRepository;
-import com.tiago.erp.repository.SaleRepository;
+import com.tiago.erp.repository.DailySalesRollupRepository;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 
+/**
+ * Resumen del dashboard leído de daily_sales_rollup (una fila por día y
+ * combinación de medio de pago/comprobante) en lugar de agregar sales.
+ */
 @Service
 public class DashboardService {
 
-    private final SaleRepository saleRepository;
-    private final SaleItemRepository saleItemRepository;
+    private final SalesRollupService rollupService;
 
-    public DashboardService(SaleRepository saleRepository, SaleItemRepository saleItemRepository) {
-        this.saleRepository = saleRepository;
-        this.saleItemRepository = saleItemRepository;
+    public DashboardService(SalesRollupService rollupService) {
+        this.rollupService = rollupService;
     }
 
     public DashboardSummary summary() {
-        // Mes actual [primer día 00:00, primer día del mes siguiente 00:00)
-        LocalDate firstDay = LocalDate.now().withDayOfMonth(1);
-        LocalDateTime mStart = firstDay.atStartOfDay();
-        LocalDateTime mEnd = firstDay.plusMonths(1).atStartOfDay();
+        LocalDate today = LocalDate.now();
 
-        long monthSalesCount = saleRepository.countByCreatedAtBetween(mStart, mEnd);
-        BigDecimal monthSalesTotal = nz(saleItemRepository.totalBetween(mStart, mEnd));
+        // Mes actual [primer día, primer día del mes siguiente)
+        LocalDate firstDay = today.withDayOfMonth(1);
+        DailySalesRollupRepository.Totals month = rollupService.totals(firstDay, firstDay.plusMonths(1));
 
-        // Últimos 7 días [hoy-7d 00:00, mañana 00:00)
-        LocalDateTime dEnd = LocalDate.now().plusDays(1).atStartOfDay();
-        LocalDateTime dStart = dEnd.minusDays(7);
-        long last7DaysCount = saleRepository.countByCreatedAtBetween(dStart, dEnd);
+        // Últimos 7 días [hoy-6, mañana)
+        LocalDate dEnd = today.plusDays(1);
+        DailySalesRollupRepository.Totals week = rollupService.totals(dEnd.minusDays(7), dEnd);
 
-        return new DashboardSummary(monthSalesCount, monthSalesTotal, last7DaysCount);
+        return new DashboardSummary(month.saleCount(), month.subtotal(), week.saleCount());
     }
 
-    private BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
-
     public record DashboardSummary(long monthSalesCount, BigDecimal monthSalesTotal, long last7DaysCount) {}
 }
@@ -0,0 +1,271 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.DashboardUpdate;
+import com.tiago.erp.event.SaleCreatedEvent;
+import com.tiago.erp.service.DashboardService.DashboardSummary;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Push del dashboard por Server-Sent Events (/api/dashboard/stream).
+ *
+ * Las conexiones son SseEmitter asíncronos: una conexión abierta no ocupa un
+ * hilo de Tomcat, sólo el emitter registrado acá. Las ventas confirmadas
+ * marcan el estado como sucio y un único hilo ("dashboard-stream") hace el
+ * broadcast cada {@code 1000 / max-updates-per-second} ms como mucho: una
+ * ráfaga de ventas se junta en un solo evento por cliente y por tick.
+ *
+ * Sin ventas, cada {@code heartbeat} se manda un comentario SSE para mantener
+ * viva la conexión en proxies y detectar clientes que se fueron.
+ *
+ * El tick no escribe en los sockets: encola el evento en cada cliente y la
+ * escritura corre en un hilo virtual por cliente. Un cliente lento o con la
+ * conexión colgada no frena a los demás; se lo desconecta si un envío tarda
+ * más de {@code send-timeout} o si acumula {@link #MAX_QUEUED} eventos.
+ */
+@Service
+public class DashboardStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStreamService.class);
+
+    /** Ventas recientes por evento (las que muestra la tabla del dashboard). */
+    static final int MAX_RECENT = 5;
+
+    /** Eventos pendientes por cliente antes de considerarlo lento. */
+    static final int MAX_QUEUED = 16;
+
+    private final DashboardSummaryCache summaryCache;
+    private final Duration timeout;
+    private final long heartbeatNanos;
+    private final long sendTimeoutNanos;
+    private final ScheduledExecutorService ticker;
+    private final Executor sender;
+
+    private final Map<SseEmitter, Client> clients = new ConcurrentHashMap<>();
+    private final Deque<DashboardUpdate.RecentSale> pending = new ArrayDeque<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private volatile DashboardSummary lastSent;
+    private volatile long lastSendNanos = System.nanoTime();
+
+    @Autowired
+    public DashboardStreamService(DashboardSummaryCache summaryCache,
+                                  @Value("${app.dashboard.stream.max-updates-per-second:4}") int maxUpdatesPerSecond,
+                                  @Value("${app.dashboard.stream.timeout:PT30M}") Duration timeout,
+                                  @Value("${app.dashboard.stream.heartbeat:PT25S}") Duration heartbeat,
+                                  @Value("${app.dashboard.stream.send-timeout:PT10S}") Duration sendTimeout) {
+        this(summaryCache, timeout, heartbeat, sendTimeout, newTicker(), newSender());
+        long periodMillis = Math.max(1, 1000 / Math.max(1, maxUpdatesPerSecond));
+        ticker.scheduleWithFixedDelay(this::tickSafely, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Sin tick automático: los tests llaman a {@link #tick()} y eligen el executor de envío. */
+    DashboardStreamService(DashboardSummaryCache summaryCache, Duration timeout, Duration heartbeat,
+                           Duration sendTimeout, ScheduledExecutorService ticker, Executor sender) {
+        this.summaryCache = summaryCache;
+        this.timeout = timeout;
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.ticker = ticker;
+        this.sender = sender;
+    }
+
+    // =====================================================
+    // API
+    // =====================================================
+
+    /** Nueva conexión: recibe el resumen actual y después los cambios. */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        register(emitter);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter) {
+        Client client = new Client(emitter);
+        clients.put(emitter, client);
+        emitter.onCompletion(() -> clients.remove(emitter));
+        emitter.onTimeout(() -> {
+            clients.remove(emitter);
+            emitter.complete(); // el cliente (EventSource/fetch) reconecta
+        });
+        emitter.onError(e -> clients.remove(emitter));
+
+        DashboardSummary current = summaryCache.summary();
+        if (lastSent == null) lastSent = current;
+        send(client, new DashboardUpdate(current, null, List.of()));
+    }
+
+    int clientCount() {
+        return clients.size();
+    }
+
+    // después de que DashboardSummaryCache invalide
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSaleCreated(SaleCreatedEvent event) {
+        synchronized (pending) {
+            pending.addFirst(new DashboardUpdate.RecentSale(
+                    event.saleId(), event.customerName(), event.total(), event.createdAt()));
+            while (pending.size() > MAX_RECENT) pending.removeLast();
+        }
+        dirty.set(true);
+    }
+
+    // =====================================================
+    // BROADCAST
+    // =====================================================
+
+    void tick() {
+        if (dirty.getAndSet(false)) {
+            broadcast();
+        } else if (System.nanoTime() - lastSendNanos >= heartbeatNanos && !clients.isEmpty()) {
+            clients.values().forEach(c -> send(c, SseEmitter.event().comment("keepalive")));
+            lastSendNanos = System.nanoTime();
+        }
+    }
+
+    private void broadcast() {
+        List<DashboardUpdate.RecentSale> recent;
+        synchronized (pending) {
+            recent = List.copyOf(pending);
+            pending.clear();
+        }
+        if (clients.isEmpty()) {
+            lastSent = null; // el próximo cliente arranca de un resumen nuevo
+            return;
+        }
+
+        DashboardSummary now = summaryCache.summary();
+        DashboardSummary before = lastSent;
+        lastSent = now;
+
+        DashboardUpdate update = new DashboardUpdate(now,
+                before != null ? DashboardUpdate.Delta.between(before, now) : null, recent);
+        clients.values().forEach(c -> send(c, update));
+        lastSendNanos = System.nanoTime();
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            // un error puntual (p. ej. la base) no debe cortar el scheduler
+            log.warn("Dashboard stream tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void send(Client client, DashboardUpdate update) {
+        send(client, SseEmitter.event().name("summary").data(update, MediaType.APPLICATION_JSON));
+    }
+
+    /** Encola el evento; la escritura la hace {@link #drain} fuera del hilo del tick. */
+    private void send(Client client, SseEmitter.SseEventBuilder event) {
+        long started = client.sendStartedNanos;
+        if ((started != 0 && System.nanoTime() - started > sendTimeoutNanos)
+                || client.queued.get() >= MAX_QUEUED) {
+            drop(client, true);
+            return;
+        }
+        client.queue.add(event);
+        client.queued.incrementAndGet();
+        if (client.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(client));
+            } catch (RejectedExecutionException e) {
+                client.draining.set(false); // apagando
+            }
+        }
+    }
+
+    private void drain(Client client) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = client.queue.poll()) != null) {
+                client.queued.decrementAndGet();
+                if (!clients.containsKey(client.emitter)) return;
+                client.sendStartedNanos = System.nanoTime();
+                try {
+                    client.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // conexión cerrada del lado del cliente o emitter ya completado
+                    drop(client, false);
+                    return;
+                } finally {
+                    client.sendStartedNanos = 0;
+                }
+            }
+            client.draining.set(false);
+            // un evento encolado entre el último poll y el set(false) no queda sin enviar
+        } while (!client.queue.isEmpty() && client.draining.compareAndSet(false, true));
+    }
+
+    /** Saca al cliente; {@code slow}: además se cierra la conexión (el cliente reconecta). */
+    private void drop(Client client, boolean slow) {
+        if (clients.remove(client.emitter) == null) return;
+        client.queue.clear();
+        if (slow) {
+            log.debug("Dashboard stream client dropped: too slow");
+            // complete() puede esperar al envío colgado: no bloquear el tick
+            try {
+                sender.execute(client.emitter::complete);
+            } catch (RejectedExecutionException ignored) {
+                // apagando
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+        if (sender instanceof ExecutorService executor) executor.shutdownNow();
+        clients.keySet().forEach(SseEmitter::complete);
+        clients.clear();
+    }
+
+    private static ExecutorService newSender() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dashboard-stream-send-", 0).factory());
+    }
+
+    private static ScheduledExecutorService newTicker() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dashboard-stream");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static final class Client {
+        final SseEmitter emitter;
+        final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        /** System.nanoTime() del envío en curso; 0 si no hay ninguno. */
+        volatile long sendStartedNanos;
+
+        Client(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
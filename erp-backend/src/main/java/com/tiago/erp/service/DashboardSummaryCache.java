@@ -0,0 +1,95 @@
+package com.tiago.erp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tiago.erp.event.SaleCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Caché del resumen del dashboard, por día (los períodos del resumen se
+ * calculan a partir de la fecha de hoy).
+ *
+ * Los dashboards abiertos consultan el resumen periódicamente: mientras no
+ * haya ventas nuevas se responde desde memoria. Cada venta confirmada
+ * invalida la entrada (SaleCreatedEvent, AFTER_COMMIT) y el TTL acota lo
+ * que puede quedar viejo por ventas cargadas desde otra instancia.
+ *
+ * Métricas (Actuator /actuator/metrics):
+ * - cache.gets{cache=dashboard.summary,result=hit|miss}, cache.size, cache.evictions
+ * - dashboard.summary.cache.invalidations
+ * - dashboard.summary.cache.age: segundos desde que se calculó la entrada vigente
+ */
+@Service
+public class DashboardSummaryCache {
+
+    static final String CACHE_NAME = "dashboard.summary";
+
+    private final DashboardService dashboardService;
+    private final Clock clock;
+    private final Cache<LocalDate, Entry> cache;
+    private final Counter invalidations;
+
+    @Autowired
+    public DashboardSummaryCache(DashboardService dashboardService,
+                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${app.dashboard.cache.ttl:PT5M}") Duration ttl) {
+        this(dashboardService, meterRegistry.getIfAvailable(SimpleMeterRegistry::new), ttl, Clock.systemDefaultZone());
+    }
+
+    DashboardSummaryCache(DashboardService dashboardService, MeterRegistry registry, Duration ttl, Clock clock) {
+        this.dashboardService = dashboardService;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(4) // hoy (y, alrededor de medianoche, ayer)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        this.invalidations = Counter.builder(CACHE_NAME + ".cache.invalidations")
+                .description("Invalidaciones del resumen por ventas confirmadas")
+                .register(registry);
+        Gauge.builder(CACHE_NAME + ".cache.age", this, DashboardSummaryCache::ageSeconds)
+                .description("Antigüedad en segundos del resumen en caché (0 si no hay)")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /** Resumen de hoy; a lo sumo una consulta concurrente por día ante un miss. */
+    public DashboardService.DashboardSummary summary() {
+        LocalDate today = LocalDate.now(clock);
+        return cache.get(today, d -> new Entry(dashboardService.summary(), clock.instant())).summary();
+    }
+
+    // primero que el resto de listeners (p. ej. DashboardStreamService), que leen el resumen
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSaleCreated(SaleCreatedEvent event) {
+        cache.invalidateAll();
+        invalidations.increment();
+    }
+
+    private double ageSeconds() {
+        Entry e = cache.getIfPresent(LocalDate.now(clock));
+        return e == null ? 0 : Duration.between(e.computedAt(), clock.instant()).toMillis() / 1000.0;
+    }
+
+    private record Entry(DashboardService.DashboardSummary summary, Instant computedAt) {}
+}
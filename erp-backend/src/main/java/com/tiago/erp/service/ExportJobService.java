@@ -0,0 +1,309 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.report.ExportJobResponse;
+import com.tiago.erp.exception.ExportJobRejectedException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Exportes de ventas asíncronos: el request sólo encola el job y devuelve su id;
+ * el archivo se genera en un executor acotado y queda en un directorio de spool
+ * hasta que vence su TTL.
+ *
+ * Reutiliza la generación de SalesExportService (CSV/PDF) escribiendo a disco,
+ * así un exporte grande no retiene un hilo de Tomcat mientras se arma.
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private final SalesExportService exportService;
+    private final Path spoolDir;
+    private final Duration ttl;
+    private final int maxPerUser;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Integer> activeByUser = new ConcurrentHashMap<>();
+
+    public ExportJobService(SalesExportService exportService,
+                            @Value("${app.export.jobs.spool-dir:${java.io.tmpdir}/erp-exports}") Path spoolDir,
+                            @Value("${app.export.jobs.ttl:PT1H}") Duration ttl,
+                            @Value("${app.export.jobs.threads:2}") int threads,
+                            @Value("${app.export.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${app.export.jobs.max-per-user:2}") int maxPerUser) {
+        this.exportService = exportService;
+        this.spoolDir = spoolDir;
+        this.ttl = ttl;
+        this.maxPerUser = maxPerUser;
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "export-job");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        initSpoolDir();
+    }
+
+    // =====================================================
+    // API
+    // =====================================================
+
+    /** {@code layout} aplica sólo a PDF (null = detalle), igual que el exporte sincrónico. */
+    public ExportJobResponse submit(String owner, String format, LocalDate start, LocalDate end,
+                                    String customerName, SalesExportService.PdfLayout layout) {
+        String fmt = format == null ? "" : format.toLowerCase();
+        if (!fmt.equals("csv") && !fmt.equals("pdf")) {
+            throw new IllegalArgumentException("format must be csv|pdf");
+        }
+
+        acquireSlot(owner);
+        Job job = new Job(UUID.randomUUID().toString(), owner, fmt, start, end, customerName,
+                layout != null ? layout : SalesExportService.PdfLayout.DETAIL);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            releaseSlot(owner);
+            throw new ExportJobRejectedException("EXPORT_QUEUE_FULL", "La cola de exportes está llena, reintente más tarde");
+        }
+        return toResponse(job);
+    }
+
+    /** Estado del job; vacío si no existe o pertenece a otro usuario. */
+    public Optional<ExportJobResponse> find(String id, String owner) {
+        return findJob(id, owner).map(this::toResponse);
+    }
+
+    /** Jobs del usuario (más recientes primero). */
+    public List<ExportJobResponse> list(String owner) {
+        return jobs.values().stream()
+                .filter(j -> j.owner.equals(owner))
+                .sorted((a, b) -> b.createdAt.compareTo(a.createdAt))
+                .map(this::toResponse)
+                .toList();
+    }
+
+    /** Archivo terminado del job; vacío si no existe, es de otro usuario o todavía no está listo. */
+    public Optional<Download> download(String id, String owner) {
+        return findJob(id, owner)
+                .filter(j -> j.status == Status.DONE && j.file != null && Files.exists(j.file))
+                .map(j -> new Download(j.file, j.filename(), j.contentType(), j.finishedAt));
+    }
+
+    public record Download(Path file, String filename, String contentType, Instant finishedAt) {}
+
+    // =====================================================
+    // EJECUCIÓN
+    // =====================================================
+
+    private void run(Job job) {
+        job.status = Status.RUNNING;
+        Path part = spoolDir.resolve(job.id + ".part");
+        try {
+            job.totalRows = exportService.countForExport(job.start, job.end, job.customerName);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                if (job.format.equals("csv")) {
+                    exportService.writeCsv(job.start, job.end, job.customerName, out, n -> job.rowsWritten = n);
+                } else {
+                    exportService.writePdf(job.start, job.end, job.customerName, job.layout, out,
+                            n -> job.rowsWritten = n);
+                }
+            }
+            Path done = spoolDir.resolve(job.id + "." + job.format);
+            Files.move(part, done, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.file = done;
+            job.status = Status.DONE;
+        } catch (Exception e) {
+            log.error("Export job {} failed: {}", job.id, e.getMessage(), e);
+            deleteQuietly(part);
+            job.error = "Error generando el exporte";
+            job.status = Status.FAILED;
+        } finally {
+            job.finishedAt = Instant.now();
+            releaseSlot(job.owner);
+        }
+    }
+
+    /**
+     * Borra jobs terminados (y sus archivos) con más de {@code ttl} de antigüedad,
+     * y los archivos sueltos del spool sin tocar hace más de {@code ttl}: los que
+     * dejó una ejecución anterior que se cortó.
+     */
+    @Scheduled(fixedDelayString = "${app.export.jobs.cleanup-interval:PT5M}")
+    public void purgeExpired() {
+        Instant limit = Instant.now().minus(ttl);
+        jobs.values().removeIf(j -> {
+            boolean expired = j.finishedAt != null && j.finishedAt.isBefore(limit);
+            if (expired && j.file != null) {
+                deleteQuietly(j.file);
+            }
+            return expired;
+        });
+        deleteStaleFiles(limit);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    private void acquireSlot(String owner) {
+        boolean[] accepted = {false};
+        activeByUser.compute(owner, (k, active) -> {
+            int current = active == null ? 0 : active;
+            if (current >= maxPerUser) return active;
+            accepted[0] = true;
+            return current + 1;
+        });
+        if (!accepted[0]) {
+            throw new ExportJobRejectedException("EXPORT_LIMIT_PER_USER",
+                    "Ya tiene " + maxPerUser + " exportes en curso");
+        }
+    }
+
+    private void releaseSlot(String owner) {
+        activeByUser.computeIfPresent(owner, (k, active) -> active <= 1 ? null : active - 1);
+    }
+
+    private Optional<Job> findJob(String id, String owner) {
+        Job job = jobs.get(id);
+        return (job != null && job.owner.equals(owner)) ? Optional.of(job) : Optional.empty();
+    }
+
+    private ExportJobResponse toResponse(Job j) {
+        long total = j.totalRows;
+        long written = j.rowsWritten;
+        int progress;
+        if (j.status == Status.DONE) progress = 100;
+        else if (total <= 0) progress = 0;
+        else progress = (int) Math.min(99, written * 100 / total);
+
+        return new ExportJobResponse(
+                j.id,
+                j.format,
+                j.status.name(),
+                progress,
+                written,
+                total,
+                j.createdAt,
+                j.finishedAt,
+                j.status == Status.DONE ? "/api/reports/jobs/" + j.id + "/download" : null,
+                j.error);
+    }
+
+    private void initSpoolDir() {
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo preparar el directorio de exportes " + spoolDir, e);
+        }
+        // el spool puede ser compartido (otra instancia, deploy rolling): sólo lo vencido
+        deleteStaleFiles(Instant.now().minus(ttl));
+    }
+
+    /**
+     * Archivos del spool modificados antes de {@code limit} que no son de un job
+     * de esta instancia. Un .part en curso se escribe todo el tiempo y un exporte
+     * terminado de otra instancia vence a su TTL, así que no se borra nada vigente.
+     */
+    private void deleteStaleFiles(Instant limit) {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            files.filter(f -> !jobs.containsKey(jobId(f)) && modifiedBefore(f, limit))
+                    .forEach(ExportJobService::deleteQuietly);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Export spool cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private static String jobId(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    private static boolean modifiedBefore(Path file, Instant limit) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(limit);
+        } catch (IOException e) {
+            return false; // ya se borró
+        }
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ignored) {
+            // se reintenta en la próxima limpieza
+        }
+    }
+
+    private static final class Job {
+        final String id;
+        final String owner;
+        final String format;
+        final LocalDate start;
+        final LocalDate end;
+        final String customerName;
+        final SalesExportService.PdfLayout layout;
+        final Instant createdAt = Instant.now();
+
+        volatile Status status = Status.QUEUED;
+        volatile long totalRows;
+        volatile long rowsWritten;
+        volatile Path file;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Job(String id, String owner, String format, LocalDate start, LocalDate end, String customerName,
+            SalesExportService.PdfLayout layout) {
+            this.id = id;
+            this.owner = owner;
+            this.format = format;
+            this.start = start;
+            this.end = end;
+            this.customerName = customerName;
+            this.layout = layout;
+        }
+
+        String filename() {
+            return SalesExportService.filename(start, end, format);
+        }
+
+        String contentType() {
+            return format.equals("csv") ? "text/csv;charset=UTF-8" : "application/pdf";
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.tiago.erp.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listado paginado con filtros opcionales (productos, clientes) en una sola
+ * consulta HQL sobre el alias {@code e}.
+ *
+ * - {@link #page}: contenido y total juntos con {@code count(*) over()}; sólo
+ *   si la página pedida quedó vacía (más allá del final) se cuenta aparte.
+ * - {@link #slice}: sin total, lee {@code size + 1} filas para saber si hay
+ *   página siguiente.
+ *
+ * El HQL de cada combinación de filtros y orden (la "forma" del listado) se
+ * arma una vez y se reutiliza; al ser el mismo texto, Hibernate también
+ * reutiliza el plan ya interpretado.
+ */
+public final class ListQuery<T> {
+
+    static final String ALIAS = "e";
+
+    private static final Map<String, String> HQL_BY_SHAPE = new ConcurrentHashMap<>();
+
+    private final Class<T> type;
+    private final List<String> shape = new ArrayList<>();
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> conditionParams = new LinkedHashMap<>();
+    private final Map<String, Object> orderParams = new LinkedHashMap<>();
+    private String orderKey;
+    private String orderHql;
+
+    private ListQuery(Class<T> type) {
+        this.type = type;
+    }
+
+    public static <T> ListQuery<T> of(Class<T> type) {
+        return new ListQuery<>(type);
+    }
+
+    /**
+     * Agrega la condición {@code hql} (un fragmento sobre {@code e} que usa
+     * {@code :param}) identificada por {@code name}; para un mismo name el
+     * fragmento tiene que ser siempre el mismo.
+     */
+    public ListQuery<T> where(String name, String hql, String param, Object value) {
+        shape.add(name);
+        conditions.add(hql);
+        conditionParams.put(param, value);
+        return this;
+    }
+
+    /** Condición sin parámetros (p. ej. comparar dos columnas). */
+    public ListQuery<T> where(String name, String hql) {
+        shape.add(name);
+        conditions.add(hql);
+        return this;
+    }
+
+    /** Orden identificado por {@code key}, con sus propios parámetros. */
+    public ListQuery<T> orderBy(String key, String hql, Map<String, Object> params) {
+        this.orderKey = key;
+        this.orderHql = hql;
+        orderParams.clear();
+        orderParams.putAll(params);
+        return this;
+    }
+
+    /** Orden ascendente por un atributo de la entidad; si no existe, se ignora. */
+    public ListQuery<T> orderByAttribute(EntityManager em, String attribute) {
+        if (attribute == null || attribute.isBlank()) return this;
+        EntityType<T> entity = em.getMetamodel().entity(type);
+        Attribute<? super T, ?> attr = entity.getAttributes().stream()
+                .filter(a -> a.getName().equals(attribute))
+                .filter(a -> a.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+                .findFirst()
+                .orElse(null);
+        if (attr == null) return this;
+        return orderBy("attr:" + attr.getName(), ALIAS + "." + attr.getName() + " asc", Map.of());
+    }
+
+    public Page<T> page(EntityManager em, Pageable pageable) {
+        TypedQuery<Object[]> query = em.createQuery(hql("page"), Object[].class);
+        conditionParams.forEach(query::setParameter);
+        orderParams.forEach(query::setParameter);
+        List<Object[]> rows = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        List<T> content = new ArrayList<>(rows.size());
+        rows.forEach(r -> content.add(type.cast(r[0])));
+        long total;
+        if (!rows.isEmpty()) {
+            total = ((Number) rows.get(0)[1]).longValue();
+        } else if (pageable.getOffset() == 0) {
+            total = 0;
+        } else {
+            total = count(em);
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    public Slice<T> slice(EntityManager em, Pageable pageable) {
+        TypedQuery<T> query = em.createQuery(hql("slice"), type);
+        conditionParams.forEach(query::setParameter);
+        orderParams.forEach(query::setParameter);
+        List<T> rows = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<T> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(new ArrayList<>(content), pageable, hasNext);
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    private long count(EntityManager em) {
+        TypedQuery<Long> query = em.createQuery(hql("count"), Long.class);
+        conditionParams.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    private String hql(String mode) {
+        String key = type.getName() + "|" + mode + "|" + String.join(",", shape) + "|" + orderKey;
+        return HQL_BY_SHAPE.computeIfAbsent(key, k -> build(mode));
+    }
+
+    private String build(String mode) {
+        StringBuilder hql = new StringBuilder("select ");
+        switch (mode) {
+            case "page" -> hql.append(ALIAS).append(", count(*) over()");
+            case "count" -> hql.append("count(").append(ALIAS).append(')');
+            default -> hql.append(ALIAS);
+        }
+        hql.append(" from ").append(type.getSimpleName()).append(' ').append(ALIAS);
+        if (!conditions.isEmpty()) {
+            hql.append(" where ").append(String.join(" and ", conditions));
+        }
+        if (!mode.equals("count")) {
+            // id al final: orden total, las páginas no repiten ni saltean filas
+            hql.append(" order by ");
+            if (orderHql != null) hql.append(orderHql).append(", ");
+            hql.append(ALIAS).append(".id");
+        }
+        return hql.toString();
+    }
+
+    static int cachedShapes() {
+        return HQL_BY_SHAPE.size();
+    }
+}
@@ -0,0 +1,175 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.product.LowStockChange;
+import com.tiago.erp.dto.product.LowStockFeedResponse;
+import com.tiago.erp.dto.product.StockState;
+import com.tiago.erp.event.ProductChangedEvent;
+import com.tiago.erp.event.ProductsBulkChangedEvent;
+import com.tiago.erp.event.StockChangedEvent;
+import com.tiago.erp.model.LowStockEvent;
+import com.tiago.erp.model.LowStockFeedLock;
+import com.tiago.erp.repository.LowStockEventRepository;
+import com.tiago.erp.repository.LowStockFeedLockRepository;
+import jakarta.annotation.PostConstruct;
+import com.tiago.erp.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Feed incremental de stock bajo (stock <= stockMin): tabla low_stock_events
+ * con un evento cada vez que un producto entra o sale de ese estado.
+ *
+ * - Ventas (StockChangedEvent) y altas/ediciones/bajas (ProductChangedEvent):
+ *   se evalúan sólo los productos tocados, antes del commit y en la misma
+ *   transacción, así el evento queda grabado junto con el cambio de stock.
+ * - Cambios masivos (importación) y cada {@code reconcile-interval}: se
+ *   compara el índice parcial de stock bajo contra el último evento de cada
+ *   producto, por si hubo cambios por fuera de la aplicación.
+ *
+ * El feed devuelve eventos con id mayor al cursor. Antes de tomar ids,
+ * {@link #record} bloquea la fila de low_stock_feed_lock hasta el commit: las
+ * transacciones que graban eventos confirman de a una y en orden de id, así
+ * que un id menor nunca aparece después de que un cliente avanzó el cursor
+ * (sin depender del reloj ni de cuánto tarde el commit). Sólo se serializan
+ * las transacciones que cambian el estado de algún producto.
+ */
+@Service
+public class LowStockFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockFeed.class);
+
+    static final int MAX_LIMIT = 500;
+    private static final int RECONCILE_CHUNK = 1000;
+
+    private final ProductRepository productRepository;
+    private final LowStockEventRepository eventRepository;
+    private final LowStockFeedLockRepository lockRepository;
+    private final TransactionTemplate tx;
+    private final Duration retention;
+
+    public LowStockFeed(ProductRepository productRepository,
+                        LowStockEventRepository eventRepository,
+                        LowStockFeedLockRepository lockRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.products.low-stock.feed-retention:P7D}") Duration retention) {
+        this.productRepository = productRepository;
+        this.eventRepository = eventRepository;
+        this.lockRepository = lockRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+    }
+
+    /** La fila de lock la crea V10; con ddl-auto (dev, tests) se crea acá. */
+    @PostConstruct
+    void ensureLockRow() {
+        try {
+            tx.executeWithoutResult(status -> {
+                if (!lockRepository.existsById(LowStockFeedLock.ID)) {
+                    lockRepository.saveAndFlush(new LowStockFeedLock(LowStockFeedLock.ID));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // otra instancia la creó al mismo tiempo
+        }
+    }
+
+    // =====================================================
+    // FEED
+    // =====================================================
+
+    public LowStockFeedResponse changes(long after, int limit) {
+        int n = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<LowStockChange> changes = eventRepository
+                .findChanges(Math.max(0, after), PageRequest.of(0, n))
+                .stream().map(LowStockChange::of).toList();
+        long cursor = changes.isEmpty() ? Math.max(0, after) : changes.get(changes.size() - 1).eventId();
+        return new LowStockFeedResponse(changes, cursor);
+    }
+
+    // =====================================================
+    // MANTENIMIENTO INCREMENTAL
+    // =====================================================
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onStockChanged(StockChangedEvent event) {
+        record(event.productIds());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        record(Set.of(event.productId()));
+    }
+
+    @EventListener
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        reconcile();
+    }
+
+    /** Graba un evento por cada producto de {@code productIds} cuyo estado cambió. */
+    void record(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return;
+        Map<Long, StockState> current = productRepository.findStockStates(productIds).stream()
+                .collect(Collectors.toMap(StockState::id, Function.identity()));
+        Map<Long, Boolean> known = eventRepository.findLatestByProductIds(productIds).stream()
+                .collect(Collectors.toMap(LowStockEvent::getProductId, LowStockEvent::isLow));
+
+        Instant now = Instant.now();
+        List<LowStockEvent> events = new ArrayList<>();
+        for (Long id : productIds) {
+            StockState state = current.get(id);
+            boolean low = state != null && state.isLow();
+            if (low == known.getOrDefault(id, false)) continue;
+            events.add(state == null
+                    ? new LowStockEvent(id, null, null, null, false, now)
+                    : new LowStockEvent(id, state.sku(), state.stock(), state.stockMin(), low, now));
+        }
+        if (events.isEmpty()) return;
+        // hasta el commit: el próximo que grabe toma ids mayores y confirma después
+        lockRepository.lock(LowStockFeedLock.ID)
+                .orElseThrow(() -> new IllegalStateException("low_stock_feed_lock row missing (V10)"));
+        eventRepository.saveAll(events);
+    }
+
+    /** Alinea el feed con la tabla products (índice parcial vs último evento). */
+    @Scheduled(fixedDelayString = "${app.products.low-stock.reconcile-interval:PT15M}",
+               initialDelayString = "${app.products.low-stock.reconcile-interval:PT15M}")
+    public void reconcile() {
+        tx.executeWithoutResult(status -> {
+            Set<Long> lowNow = new HashSet<>(productRepository.findLowStockIds());
+            Set<Long> lowKnown = new HashSet<>(eventRepository.findLowProductIds());
+            Set<Long> changed = new HashSet<>(lowNow);
+            changed.addAll(lowKnown);
+            changed.removeIf(id -> lowNow.contains(id) && lowKnown.contains(id));
+            List<Long> ids = new ArrayList<>(changed);
+            for (int from = 0; from < ids.size(); from += RECONCILE_CHUNK) {
+                record(ids.subList(from, Math.min(from + RECONCILE_CHUNK, ids.size())));
+            }
+            if (!changed.isEmpty()) log.debug("Low stock feed reconciled: {} products changed", changed.size());
+        });
+    }
+
+    /** Borra la historia vieja; el último evento de cada producto se conserva. */
+    @Scheduled(fixedDelayString = "${app.products.low-stock.cleanup-interval:PT1H}")
+    public void purgeExpired() {
+        Integer deleted = tx.execute(status -> eventRepository.deleteHistoryOlderThan(Instant.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.debug("Low stock events purged: {}", deleted);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.tiago.erp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Lee filas de productos de a una desde un CSV (con cabecera) o NDJSON (un
+ * objeto JSON por línea), sin cargar el archivo en memoria.
+ *
+ * Las columnas/claves se reconocen sin importar mayúsculas, guiones ni
+ * guiones bajos (costPrice, cost_price, COST-PRICE); las desconocidas se
+ * ignoran. Una fila mal formada vuelve con {@link Row#error()} y la lectura
+ * sigue con la próxima.
+ */
+final class ProductImportReader implements Closeable {
+
+    static final Set<String> FORMATS = Set.of("csv", "ndjson");
+
+    /** Tope por campo CSV: una comilla sin cerrar no se traga el archivo entero. */
+    static final int MAX_FIELD_LENGTH = 20_000;
+
+    private static final int HEADER_PEEK = 64 * 1024;
+
+    /** Una fila del archivo; los campos vacíos o ausentes son null. */
+    record Row(long line, String sku, String name, String category, String description, String barcode,
+               String imageUrl, BigDecimal costPrice, BigDecimal profitMargin, BigDecimal salePrice,
+               Integer stock, Integer stockMin, String error) {
+
+        static Row failed(long line, String sku, String error) {
+            return new Row(line, sku, null, null, null, null, null, null, null, null, null, null, error);
+        }
+    }
+
+    private final BufferedReader in;
+    private final boolean csv;
+    private final ObjectMapper objectMapper;
+    private char delimiter = ',';
+    private List<String> header;
+    private long line = 1;
+    private long recordLine;
+    private boolean finished;
+
+    ProductImportReader(InputStream stream, String format, ObjectMapper objectMapper) throws IOException {
+        if (format == null || !FORMATS.contains(format)) {
+            throw new IllegalArgumentException("format must be csv|ndjson");
+        }
+        this.in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        this.csv = format.equals("csv");
+        this.objectMapper = objectMapper;
+        if (csv) readHeader();
+    }
+
+    /** Próxima fila, o null al final del archivo. */
+    Row next() throws IOException {
+        if (finished) return null;
+        return csv ? nextCsv() : nextJson();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // =====================================================
+    // CSV
+    // =====================================================
+
+    private void readHeader() throws IOException {
+        // ; en lugar de , cuando el archivo viene de una planilla con coma decimal
+        in.mark(HEADER_PEEK);
+        String first = in.readLine();
+        in.reset();
+        if (first == null) {
+            finished = true;
+            return;
+        }
+        if (count(first, ';') > count(first, ',')) delimiter = ';';
+
+        List<String> names = readRecord();
+        if (names == null) {
+            finished = true;
+            return;
+        }
+        header = new ArrayList<>(names.size());
+        for (String name : names) header.add(key(name));
+        if (!header.contains("sku") || !header.contains("name")) {
+            throw new IllegalArgumentException("CSV header must include sku and name");
+        }
+    }
+
+    private Row nextCsv() throws IOException {
+        List<String> fields;
+        long start;
+        try {
+            fields = readRecord();
+            start = recordLine;
+        } catch (MalformedRecordException e) {
+            finished = true;
+            return Row.failed(e.line, null, e.getMessage());
+        }
+        if (fields == null) return null;
+
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < header.size() && i < fields.size(); i++) {
+            values.putIfAbsent(header.get(i), fields.get(i));
+        }
+        return toRow(start, values);
+    }
+
+    /** Un registro CSV (RFC 4180: comillas dobles, saltos de línea dentro de comillas). */
+    private List<String> readRecord() throws IOException {
+        int c = in.read();
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') line++;
+            c = in.read();
+        }
+        if (c == -1) return null;
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (field.length() > MAX_FIELD_LENGTH) {
+                throw new MalformedRecordException(recordLine, "field longer than " + MAX_FIELD_LENGTH + " chars");
+            }
+            if (quoted) {
+                if (c == -1) throw new MalformedRecordException(recordLine, "unterminated quoted field");
+                if (c == '"') {
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                        c = in.read();
+                    } else {
+                        quoted = false;
+                        c = next;
+                    }
+                    continue;
+                }
+                if (c == '\n') line++;
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+
+    // =====================================================
+    // NDJSON
+    // =====================================================
+
+    private Row nextJson() throws IOException {
+        String text;
+        long start;
+        do {
+            text = in.readLine();
+            start = line++;
+            if (text == null) return null;
+        } while (text.isBlank());
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (IOException e) {
+            return Row.failed(start, null, "invalid JSON");
+        }
+        if (node == null || !node.isObject()) return Row.failed(start, null, "expected a JSON object");
+
+        Map<String, String> values = new HashMap<>();
+        node.properties().forEach(f -> {
+            JsonNode v = f.getValue();
+            if (v.isValueNode() && !v.isNull()) values.putIfAbsent(key(f.getKey()), v.asText());
+        });
+        return toRow(start, values);
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    private Row toRow(long line, Map<String, String> values) {
+        String sku = text(values.get("sku"));
+        try {
+            return new Row(line, sku,
+                    text(values.get("name")),
+                    text(values.get("category")),
+                    text(values.get("description")),
+                    text(values.get("barcode")),
+                    text(values.get("imageurl")),
+                    decimal(values, "costprice"),
+                    decimal(values, "profitmargin"),
+                    decimal(values, "saleprice"),
+                    integer(values, "stock"),
+                    integer(values, "stockmin"),
+                    null);
+        } catch (NumberFormatException e) {
+            return Row.failed(line, sku, e.getMessage());
+        }
+    }
+
+    private BigDecimal decimal(Map<String, String> values, String key) {
+        String s = text(values.get(key));
+        if (s == null) return null;
+        // coma decimal sólo en archivos separados por ;
+        if (delimiter == ';' && s.indexOf('.') < 0) s = s.replace(',', '.');
+        try {
+            return new BigDecimal(s);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(key + ": invalid number '" + s + "'");
+        }
+    }
+
+    private static Integer integer(Map<String, String> values, String key) {
+        String s = text(values.get(key));
+        if (s == null) return null;
+        try {
+            return new BigDecimal(s).intValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new NumberFormatException(key + ": invalid integer '" + s + "'");
+        }
+    }
+
+    private static String text(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+
+    /** "Cost_Price" -> "costprice". */
+    static String key(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (char ch : name.toCharArray()) {
+            if (Character.isLetterOrDigit(ch)) sb.append(Character.toLowerCase(ch));
+        }
+        return sb.toString();
+    }
+
+    private static int count(String s, char ch) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) == ch) n++;
+        return n;
+    }
+
+    private static final class MalformedRecordException extends IOException {
+        final long line;
+
+        MalformedRecordException(long line, String message) {
+            super(message);
+            this.line = line;
+        }
+    }
+}
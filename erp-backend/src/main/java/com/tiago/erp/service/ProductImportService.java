@@ -0,0 +1,339 @@
+package com.tiago.erp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiago.erp.dto.product.ProductImportResult;
+import com.tiago.erp.event.ProductsBulkChangedEvent;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva del catálogo (listas de precios de proveedores):
+ * POST /api/products/import con CSV o NDJSON, alta o actualización por SKU.
+ *
+ * - El archivo se lee de a una fila ({@link ProductImportReader}) y se escribe
+ *   en bloques de {@code chunk-size}, cada uno en su transacción: la memoria
+ *   no depende del tamaño del archivo.
+ * - PostgreSQL: un INSERT ... ON CONFLICT (sku) DO UPDATE por fila, enviados
+ *   juntos en un batch JDBC. Los ids salen de products_seq en bloques de
+ *   {@link #ID_BLOCK}, igual que el optimizador pooled de Hibernate.
+ * - Resto de bases (H2 en tests): una consulta por bloque para los SKU
+ *   existentes, updates sobre las entidades y persist de las nuevas.
+ *
+ * Si un bloque falla al escribir (p. ej. un código de barras repetido), se
+ * reintenta fila por fila para aislar las que fallan. Al terminar se publica
+ * {@link ProductsBulkChangedEvent} en lugar de un evento por producto.
+ *
+ * Columnas opcionales vacías no pisan el valor que ya tenía el producto; en
+ * un alta, stock y stockMin vacíos quedan en 0.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    /** = allocationSize de products_seq en Product. */
+    static final int ID_BLOCK = 50;
+
+    private static final String PG_UPSERT = """
+        INSERT INTO %1$sproducts AS p
+               (id, sku, name, category, description, barcode, image_url,
+                cost_price, profit_margin, sale_price, stock, stock_min, version)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, COALESCE(?, 0), COALESCE(?, 0), 0)
+        ON CONFLICT (sku) DO UPDATE
+           SET name          = EXCLUDED.name,
+               category      = COALESCE(EXCLUDED.category, p.category),
+               description   = COALESCE(EXCLUDED.description, p.description),
+               barcode       = COALESCE(EXCLUDED.barcode, p.barcode),
+               image_url     = COALESCE(EXCLUDED.image_url, p.image_url),
+               cost_price    = EXCLUDED.cost_price,
+               profit_margin = COALESCE(EXCLUDED.profit_margin, p.profit_margin),
+               sale_price    = EXCLUDED.sale_price,
+               stock         = COALESCE(?, p.stock),
+               stock_min     = COALESCE(?, p.stock_min),
+               version       = COALESCE(p.version, 0) + 1
+        """;
+
+    private static final String PG_NEXT_IDS = "SELECT nextval('%1$sproducts_seq') FROM generate_series(1, ?)";
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final boolean postgres;
+    private final String upsertSql;
+    private final String nextIdsSql;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public ProductImportService(ProductRepository productRepository,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher events,
+                                PlatformTransactionManager transactionManager,
+                                EntityManagerFactory emf,
+                                @Value("${app.products.import.chunk-size:1000}") int chunkSize,
+                                @Value("${app.products.import.max-errors:1000}") int maxErrors) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.postgres = emf.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+        Object schema = emf.getProperties().get(AvailableSettings.DEFAULT_SCHEMA);
+        String prefix = schema == null || schema.toString().isBlank() ? "" : schema + ".";
+        this.upsertSql = PG_UPSERT.formatted(prefix);
+        this.nextIdsSql = PG_NEXT_IDS.formatted(prefix);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxErrors = Math.max(0, maxErrors);
+    }
+
+    /** Importa el archivo completo; los bloques ya escritos quedan aunque falle una fila. */
+    public ProductImportResult importProducts(InputStream body, String format) {
+        Progress progress = new Progress(maxErrors);
+        try (ProductImportReader reader = new ProductImportReader(body, format, objectMapper)) {
+            List<ProductImportReader.Row> chunk = new ArrayList<>(chunkSize);
+            ProductImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                progress.rows++;
+                String error = row.error() != null ? row.error() : validate(row);
+                if (error != null) {
+                    progress.fail(row, error);
+                    continue;
+                }
+                chunk.add(normalized(row));
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) writeChunk(chunk, progress);
+        } catch (IOException e) {
+            log.warn("Product import aborted after {} rows: {}", progress.rows, e.getMessage());
+            throw new IllegalArgumentException("could not read import body after row " + progress.rows, e);
+        } finally {
+            if (progress.upserted > 0) events.publishEvent(new ProductsBulkChangedEvent(progress.upserted));
+        }
+
+        log.info("Product import: {} rows, {} upserted, {} failed", progress.rows, progress.upserted, progress.failed);
+        return progress.result();
+    }
+
+    // =====================================================
+    // ESCRITURA
+    // =====================================================
+
+    private void writeChunk(List<ProductImportReader.Row> rows, Progress progress) {
+        // un SKU repetido dentro del bloque: gana la última fila
+        Collection<ProductImportReader.Row> bySku = rows.stream()
+                .collect(Collectors.toMap(ProductImportReader.Row::sku, Function.identity(),
+                        (first, last) -> last, LinkedHashMap::new))
+                .values();
+        try {
+            tx.executeWithoutResult(status -> upsert(bySku));
+            progress.upserted += rows.size();
+        } catch (RuntimeException chunkFailure) {
+            log.debug("Import chunk failed, retrying row by row: {}", message(chunkFailure));
+            for (ProductImportReader.Row row : rows) {
+                try {
+                    tx.executeWithoutResult(status -> upsert(List.of(row)));
+                    progress.upserted++;
+                } catch (RuntimeException e) {
+                    progress.fail(row, message(e));
+                }
+            }
+        }
+    }
+
+    private void upsert(Collection<ProductImportReader.Row> rows) {
+        if (postgres) {
+            em.unwrap(Session.class).doWork(connection -> upsertBatch(connection, rows));
+            return;
+        }
+
+        // Resto de bases: los existentes en una consulta, el resto con persist
+        Set<String> skus = rows.stream().map(ProductImportReader.Row::sku).collect(Collectors.toSet());
+        Map<String, Product> existing = productRepository.findAllBySkuIn(skus).stream()
+                .collect(Collectors.toMap(Product::getSku, Function.identity()));
+        for (ProductImportReader.Row row : rows) {
+            Product p = existing.get(row.sku());
+            if (p == null) {
+                p = new Product();
+                p.setStock(0);
+                p.setStockMin(0);
+                apply(row, p);
+                em.persist(p);
+            } else {
+                apply(row, p);
+            }
+        }
+        em.flush();
+    }
+
+    private void upsertBatch(Connection connection, Collection<ProductImportReader.Row> rows) throws SQLException {
+        Iterator<Long> ids = nextIds(connection, rows.size()).iterator();
+        try (PreparedStatement ps = connection.prepareStatement(upsertSql)) {
+            for (ProductImportReader.Row r : rows) {
+                int i = 1;
+                ps.setLong(i++, ids.next());
+                ps.setString(i++, r.sku());
+                ps.setString(i++, r.name());
+                setString(ps, i++, r.category());
+                setString(ps, i++, r.description());
+                setString(ps, i++, r.barcode());
+                setString(ps, i++, r.imageUrl());
+                ps.setBigDecimal(i++, r.costPrice());
+                setDecimal(ps, i++, r.profitMargin());
+                ps.setBigDecimal(i++, r.salePrice());
+                setInt(ps, i++, r.stock());
+                setInt(ps, i++, r.stockMin());
+                setInt(ps, i++, r.stock());
+                setInt(ps, i, r.stockMin());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** {@code n} ids nuevos: cada nextval() es el tope de un bloque de {@link #ID_BLOCK}. */
+    private List<Long> nextIds(Connection connection, int n) throws SQLException {
+        List<Long> ids = new ArrayList<>(n);
+        try (PreparedStatement ps = connection.prepareStatement(nextIdsSql)) {
+            while (ids.size() < n) {
+                ps.setInt(1, (n - ids.size() + ID_BLOCK - 1) / ID_BLOCK);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next() && ids.size() < n) {
+                        long top = rs.getLong(1);
+                        for (long id = Math.max(1, top - ID_BLOCK + 1); id <= top && ids.size() < n; id++) {
+                            ids.add(id);
+                        }
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void apply(ProductImportReader.Row r, Product p) {
+        p.setSku(r.sku());
+        p.setName(r.name());
+        p.setCostPrice(r.costPrice());
+        p.setSalePrice(r.salePrice());
+        if (r.category() != null) p.setCategory(r.category());
+        if (r.description() != null) p.setDescription(r.description());
+        if (r.barcode() != null) p.setBarcode(r.barcode());
+        if (r.imageUrl() != null) p.setImageUrl(r.imageUrl());
+        if (r.profitMargin() != null) p.setProfitMargin(r.profitMargin());
+        if (r.stock() != null) p.setStock(r.stock());
+        if (r.stockMin() != null) p.setStockMin(r.stockMin());
+    }
+
+    // =====================================================
+    // VALIDACIÓN
+    // =====================================================
+
+    /** Mismas reglas que ProductRequest y los largos de columna de Product. */
+    static String validate(ProductImportReader.Row r) {
+        if (r.sku() == null) return "sku is required";
+        if (r.sku().length() > 60) return "sku: max 60 chars";
+        if (r.name() == null) return "name is required";
+        if (r.name().length() > 120) return "name: max 120 chars";
+        if (r.costPrice() == null) return "costPrice is required";
+        if (r.salePrice() == null) return "salePrice is required";
+        if (r.costPrice().signum() < 0) return "costPrice must be >= 0";
+        if (r.salePrice().signum() < 0) return "salePrice must be >= 0";
+        if (r.profitMargin() != null && r.profitMargin().signum() < 0) return "profitMargin must be >= 0";
+        if (r.stock() != null && r.stock() < 0) return "stock must be >= 0";
+        if (r.stockMin() != null && r.stockMin() < 0) return "stockMin must be >= 0";
+        if (tooLong(r.category(), 100)) return "category: max 100 chars";
+        if (tooLong(r.barcode(), 100)) return "barcode: max 100 chars";
+        if (tooLong(r.imageUrl(), 255)) return "imageUrl: max 255 chars";
+        if (tooLong(r.description(), 10000)) return "description: max 10000 chars";
+        return null;
+    }
+
+    /** Código de barras como lo guarda ProductService (sin espacios extremos). */
+    private static ProductImportReader.Row normalized(ProductImportReader.Row r) {
+        String barcode = BarcodeLookupCache.normalize(r.barcode());
+        if (Objects.equals(barcode, r.barcode())) return r;
+        return new ProductImportReader.Row(r.line(), r.sku(), r.name(), r.category(), r.description(), barcode,
+                r.imageUrl(), r.costPrice(), r.profitMargin(), r.salePrice(), r.stock(), r.stockMin(), null);
+    }
+
+    private static boolean tooLong(String s, int max) {
+        return s != null && s.length() > max;
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    private static void setString(PreparedStatement ps, int i, String v) throws SQLException {
+        if (v == null) ps.setNull(i, Types.VARCHAR); else ps.setString(i, v);
+    }
+
+    private static void setDecimal(PreparedStatement ps, int i, BigDecimal v) throws SQLException {
+        if (v == null) ps.setNull(i, Types.NUMERIC); else ps.setBigDecimal(i, v);
+    }
+
+    private static void setInt(PreparedStatement ps, int i, Integer v) throws SQLException {
+        if (v == null) ps.setNull(i, Types.INTEGER); else ps.setInt(i, v);
+    }
+
+    private static String message(RuntimeException e) {
+        String msg = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        if (msg == null) return e.getClass().getSimpleName();
+        return msg.length() > 200 ? msg.substring(0, 200) : msg;
+    }
+
+    private static final class Progress {
+        final int maxErrors;
+        final List<ProductImportResult.RowError> errors = new ArrayList<>();
+        long rows;
+        long upserted;
+        long failed;
+
+        Progress(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void fail(ProductImportReader.Row row, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ProductImportResult.RowError(row.line(), row.sku(), message));
+            }
+        }
+
+        ProductImportResult result() {
+            return new ProductImportResult(rows, upserted, failed, List.copyOf(errors), failed > errors.size());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.product.RepriceRequest;
+import com.tiago.erp.dto.product.RepriceResult;
+import com.tiago.erp.event.ProductsBulkChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reprecio masivo (POST /api/products/reprice): ajusta el costo un porcentaje
+ * y recalcula el precio de venta con el margen de cada producto.
+ *
+ * Todo se resuelve en la base con UPDATE por conjunto, sin cargar entidades:
+ * por bloque de {@code chunk-size} ids (en orden de id, cada bloque en su
+ * transacción) se hace un SELECT de ids y un UPDATE ... WHERE id IN. El
+ * UPDATE sube version, así una venta que tenía cargado el producto antes
+ * del cambio falla por optimistic locking en lugar de pisar el precio nuevo.
+ *
+ * El dry-run calcula la vista previa con las mismas expresiones del UPDATE,
+ * para que lo que se muestra sea exactamente lo que se va a grabar.
+ */
+@Service
+public class ProductRepriceService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductRepriceService.class);
+
+    static final int DEFAULT_PREVIEW_LIMIT = 50;
+
+    private static final String NEW_COST = "round(p.costPrice * :factor, 2)";
+
+    /** Con margen: costo nuevo + margen; sin margen: mismo porcentaje que el costo. */
+    private static final String NEW_SALE_FROM_MARGIN = """
+        case when p.profitMargin is null then round(p.salePrice * :factor, 2)
+             else round(round(p.costPrice * :factor, 2) * (1 + p.profitMargin / 100), 2) end""";
+
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public ProductRepriceService(ApplicationEventPublisher events,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.products.reprice.chunk-size:1000}") int chunkSize) {
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public RepriceResult reprice(RepriceRequest req) {
+        if (req.getCostChangePercent() == null) {
+            throw new IllegalArgumentException("costChangePercent is required");
+        }
+        BigDecimal factor = BigDecimal.ONE.add(req.getCostChangePercent().movePointLeft(2), MathContext.DECIMAL64);
+        if (factor.signum() <= 0) {
+            throw new IllegalArgumentException("costChangePercent must be > -100");
+        }
+        String category = TextSearch.hasTerm(req.getCategory())
+                ? req.getCategory().trim().toLowerCase(Locale.ROOT) : null;
+        String newSale = req.isRecomputeSalePrice() ? NEW_SALE_FROM_MARGIN : "p.salePrice";
+
+        if (req.isDryRun()) {
+            int limit = req.getPreviewLimit() != null ? req.getPreviewLimit() : DEFAULT_PREVIEW_LIMIT;
+            return tx.execute(status -> new RepriceResult(true, count(category), 0,
+                    preview(category, factor, newSale, limit)));
+        }
+
+        long matched = 0;
+        long updated = 0;
+        long after = 0;
+        while (true) {
+            long from = after;
+            Chunk chunk = tx.execute(status -> updateChunk(category, factor, newSale, from));
+            matched += chunk.matched;
+            updated += chunk.updated;
+            if (chunk.matched < chunkSize) break;
+            after = chunk.lastId;
+        }
+
+        if (updated > 0) events.publishEvent(new ProductsBulkChangedEvent(updated));
+        log.info("Products repriced: category={}, costChangePercent={}, updated={}",
+                category, req.getCostChangePercent(), updated);
+        return new RepriceResult(false, matched, updated, List.of());
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    private Chunk updateChunk(String category, BigDecimal factor, String newSale, long after) {
+        TypedQuery<Long> select = em.createQuery(
+                "select p.id from Product p where " + where(category) + " order by p.id", Long.class);
+        bind(select, category, after);
+        List<Long> ids = select.setMaxResults(chunkSize).getResultList();
+        if (ids.isEmpty()) return new Chunk(0, 0, after);
+
+        Query update = em.createQuery("""
+                update Product p
+                   set p.costPrice = %s,
+                       p.salePrice = %s,
+                       p.version = coalesce(p.version, 0) + 1
+                 where p.id in :ids
+                """.formatted(NEW_COST, newSale));
+        int updated = update.setParameter("factor", factor).setParameter("ids", ids).executeUpdate();
+        return new Chunk(ids.size(), updated, ids.get(ids.size() - 1));
+    }
+
+    private long count(String category) {
+        TypedQuery<Long> query = em.createQuery("select count(p) from Product p where " + where(category), Long.class);
+        bind(query, category, 0);
+        return query.getSingleResult();
+    }
+
+    private List<RepriceResult.Change> preview(String category, BigDecimal factor, String newSale, int limit) {
+        if (limit <= 0) return List.of();
+        TypedQuery<RepriceResult.Change> query = em.createQuery("""
+                select new com.tiago.erp.dto.product.RepriceResult$Change(
+                       p.id, p.sku, p.name, p.costPrice, %s, p.salePrice, %s)
+                  from Product p
+                 where %s
+                 order by p.id
+                """.formatted(NEW_COST, newSale, where(category)), RepriceResult.Change.class);
+        bind(query, category, 0);
+        return query.setParameter("factor", factor).setMaxResults(limit).getResultList();
+    }
+
+    private static String where(String category) {
+        return category == null ? "p.id > :after" : "p.id > :after and lower(p.category) = :category";
+    }
+
+    private static void bind(Query query, String category, long after) {
+        query.setParameter("after", after);
+        if (category != null) query.setParameter("category", category);
+    }
+
+    private record Chunk(int matched, int updated, long lastId) {}
+}
@@ -1,133 +1,93 @@
 package com.tiago.erp.service;
 
 import com.tiago.erp.dto.product.ProductRequest;
+import com.tiago.erp.event.ProductChangedEvent;
 import com.tiago.erp.model.Product;
 import com.tiago.erp.repository.ProductRepository;
-import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 @Service
 public class ProductService {
 
+    private static final List<String> SEARCH_FIELDS = List.of("name", "sku");
+
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher events;
+    private final TextSearch textSearch;
 
     @PersistenceContext
     private EntityManager em;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ApplicationEventPublisher events,
+                          TextSearch textSearch) {
         this.productRepository = productRepository;
+        this.events = events;
+        this.textSearch = textSearch;
     }
 
     public Page<Product> list(Integer page, Integer size, String sort,
-                              String q, Integer minStock, Boolean active) {
-
-        Pageable pageable = buildPageable(page, size, sort);
-
-        // --- Query principal ---
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Product> cq = cb.createQuery(Product.class);
-        Root<Product> root = cq.from(Product.class);
-
-        List<Predicate> predicates = new ArrayList<>();
-
-        // filtro q -> nombre o sku
-        if (q != null && !q.isBlank()) {
-            String like = "%" + q.toLowerCase() + "%";
-            List<Predicate> orParts = new ArrayList<>();
-            try {
-                orParts.add(cb.like(cb.lower(root.get("name")), like));
-            } catch (IllegalArgumentException ignored) {}
-            try {
-                orParts.add(cb.like(cb.lower(root.get("sku")), like));
-            } catch (IllegalArgumentException ignored) {}
-            if (!orParts.isEmpty()) {
-                predicates.add(cb.or(orParts.toArray(new Predicate[0])));
-            }
-        }
-
-        // minStock
-        if (minStock != null) {
-            try {
-                predicates.add(cb.greaterThanOrEqualTo(root.get("stock"), minStock));
-            } catch (IllegalArgumentException ignored) {}
-        }
-
-        // active
-        if (active != null) {
-            try {
-                predicates.add(cb.equal(root.get("active"), active));
-            } catch (IllegalArgumentException ignored) {}
-        }
+                              String q, Integer minStock, Integer stockLt, Boolean active) {
+        return query(sort, q, minStock, stockLt).page(em, buildPageable(page, size, sort));
+    }
 
-        cq.where(predicates.toArray(new Predicate[0]));
+    /** Igual que {@link #list}; con {@code withTotal=false} no calcula el total (sólo hasNext). */
+    public Slice<Product> list(Integer page, Integer size, String sort, String q, Integer minStock,
+                               Integer stockLt, Boolean active, boolean withTotal) {
+        if (withTotal) return list(page, size, sort, q, minStock, stockLt, active);
+        return query(sort, q, minStock, stockLt).slice(em, buildPageable(page, size, sort));
+    }
 
-        // sort asc simple
-        if (sort != null && !sort.isBlank()) {
-            try {
-                cq.orderBy(cb.asc(root.get(sort)));
-            } catch (IllegalArgumentException ignored) {}
-        }
+    /**
+     * Filtros del listado. {@code active} no aplica: Product no tiene esa
+     * columna (se acepta el parámetro por compatibilidad con el front).
+     */
+    private ListQuery<Product> query(String sort, String q, Integer minStock, Integer stockLt) {
+        ListQuery<Product> query = ListQuery.of(Product.class);
 
-        TypedQuery<Product> query = em.createQuery(cq);
-        query.setFirstResult((int) pageable.getOffset());
-        query.setMaxResults(pageable.getPageSize());
-        List<Product> content = query.getResultList();
-
-        // --- Count ---
-        CriteriaQuery<Long> countCq = cb.createQuery(Long.class);
-        Root<Product> countRoot = countCq.from(Product.class);
-        countCq.select(cb.count(countRoot));
-
-        List<Predicate> countPred = new ArrayList<>();
-
-        if (q != null && !q.isBlank()) {
-            String like = "%" + q.toLowerCase() + "%";
-            List<Predicate> orParts = new ArrayList<>();
-            try {
-                orParts.add(cb.like(cb.lower(countRoot.get("name")), like));
-            } catch (IllegalArgumentException ignored) {}
-            try {
-                orParts.add(cb.like(cb.lower(countRoot.get("sku")), like));
-            } catch (IllegalArgumentException ignored) {}
-            if (!orParts.isEmpty()) {
-                countPred.add(cb.or(orParts.toArray(new Predicate[0])));
-            }
+        // q -> nombre o sku (lower(...) LIKE, servido por los índices trigram)
+        if (TextSearch.hasTerm(q)) {
+            query.where("q", TextSearch.matches(SEARCH_FIELDS, "q"), "q", TextSearch.likePattern(q));
         }
-
         if (minStock != null) {
-            try {
-                countPred.add(cb.greaterThanOrEqualTo(countRoot.get("stock"), minStock));
-            } catch (IllegalArgumentException ignored) {}
+            query.where("minStock", "e.stock >= :minStock", "minStock", minStock);
         }
-
-        if (active != null) {
-            try {
-                countPred.add(cb.equal(countRoot.get("active"), active));
-            } catch (IllegalArgumentException ignored) {}
+        if (stockLt != null) {
+            query.where("stockLt", "e.stock < :stockLt", "stockLt", stockLt);
         }
 
-        countCq.where(countPred.toArray(new Predicate[0]));
-        long total = em.createQuery(countCq).getSingleResult();
-
-        return new PageImpl<>(content, pageable, total);
+        // sort asc simple, o relevance (requiere q)
+        if (TextSearch.RELEVANCE.equals(sort)) {
+            if (TextSearch.hasTerm(q)) textSearch.orderByRelevance(query, SEARCH_FIELDS, q);
+        } else {
+            query.orderByAttribute(em, sort);
+        }
+        return query;
     }
 
-    // ==========================================
-    //   ESTE MÉTODO QUEDA IGUAL
-    // ==========================================
-    public List<Product> findLowStock(Integer threshold) {
-        if (threshold == null || threshold < 0) threshold = 0;
-        return productRepository.findByStockLessThan(threshold);
+    /**
+     * Productos en stock bajo (stock <= stockMin de cada uno), paginados por
+     * id: el índice parcial idx_products_low_stock sólo tiene esos productos.
+     * Con {@code threshold} se usa el criterio anterior (stock < threshold).
+     */
+    public Page<Product> lowStock(Integer page, Integer size, String q, Integer threshold) {
+        ListQuery<Product> query = ListQuery.of(Product.class);
+        if (threshold != null) {
+            query.where("stockLt", "e.stock < :stockLt", "stockLt", Math.max(threshold, 0));
+        } else {
+            query.where("lowStock", "e.stock <= e.stockMin");
+        }
+        if (TextSearch.hasTerm(q)) {
+            query.where("q", TextSearch.matches(SEARCH_FIELDS, "q"), "q", TextSearch.likePattern(q));
+        }
+        return query.page(em, buildPageable(page, size, null));
     }
 
     public Product getById(Long id) {
@@ -135,66 +95,48 @@ public class ProductService {
                 .orElseThrow(() -> new NoSuchElementException("product not found: " + id));
     }
 
-    // ==========================================
-    //   CREATE — con mapeo extra para nuevos campos
-    // ==========================================
     @Transactional
     public Product create(ProductRequest req) {
         Product entity = new Product();
+        req.applyTo(entity);
+        entity.setBarcode(checkedBarcode(req.getBarcode(), null));
 
-        // copia original de los campos que ya existían
-        BeanUtils.copyProperties(req, entity);
-
-        // mapeo manual para campos nuevos según tu Product.java actualizado
-        entity.setCategory(req.getCategory());
-        entity.setDescription(req.getDescription());
-        entity.setBarcode(req.getBarcode());
-        entity.setImageUrl(req.getImageUrl());
-        entity.setCostPrice(req.getCostPrice());
-        entity.setProfitMargin(req.getProfitMargin());
-        entity.setSalePrice(req.getSalePrice());
-        entity.setStockMin(req.getStockMin());
-
-        return productRepository.save(entity);
+        Product saved = productRepository.save(entity);
+        events.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
     }
 
-    // ==========================================
-    //   UPDATE — sin romper nada
-    // ==========================================
     @Transactional
     public Product update(Long id, ProductRequest req) {
         Product entity = getById(id);
+        req.applyTo(entity);
+        entity.setBarcode(checkedBarcode(req.getBarcode(), id));
 
-        BeanUtils.copyProperties(req, entity, "id", "version");
-
-        // mapeo manual de los nuevos campos
-        entity.setCategory(req.getCategory());
-        entity.setDescription(req.getDescription());
-        entity.setBarcode(req.getBarcode());
-        entity.setImageUrl(req.getImageUrl());
-        entity.setCostPrice(req.getCostPrice());
-        entity.setProfitMargin(req.getProfitMargin());
-        entity.setSalePrice(req.getSalePrice());
-        entity.setStockMin(req.getStockMin());
-
-        return productRepository.save(entity);
+        Product saved = productRepository.save(entity);
+        events.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
     }
 
+    /** Product no tiene columna active: el borrado es físico. */
     @Transactional
     public void delete(Long id) {
-        Product entity = getById(id);
-        try {
-            entity.getClass().getMethod("setActive", Boolean.class).invoke(entity, Boolean.FALSE);
-            productRepository.save(entity);
-        } catch (Exception noSoftDelete) {
-            productRepository.delete(entity);
+        productRepository.delete(getById(id));
+        events.publishEvent(ProductChangedEvent.deleted(id));
+    }
+
+    /** Código de barras sin espacios (vacío -> null) y sin repetir en otro producto. */
+    private String checkedBarcode(String barcode, Long productId) {
+        String code = BarcodeLookupCache.normalize(barcode);
+        if (code != null && productRepository.existsByBarcodeAndIdNot(code, productId == null ? -1L : productId)) {
+            throw new IllegalArgumentException("barcode already in use: " + code);
         }
+        return code;
     }
 
     private Pageable buildPageable(Integer page, Integer size, String sort) {
         int p = (page == null || page < 0) ? 0 : page;
         int s = (size == null || size <= 0) ? 20 : size;
-        if (sort == null || sort.isBlank()) return PageRequest.of(p, s);
+        if (sort == null || sort.isBlank() || TextSearch.RELEVANCE.equals(sort)) return PageRequest.of(p, s);
         return PageRequest.of(p, s, Sort.by(Sort.Order.asc(sort)));
     }
 }
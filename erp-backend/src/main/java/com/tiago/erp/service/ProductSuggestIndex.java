@@ -0,0 +1,272 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.product.ProductSuggestion;
+import com.tiago.erp.event.ProductChangedEvent;
+import com.tiago.erp.event.ProductsBulkChangedEvent;
+import com.tiago.erp.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria para el typeahead de productos (/api/products/suggest).
+ *
+ * - Cada token de nombre, SKU y código de barras (en minúsculas y sin acentos)
+ *   aporta sus prefijos de 1-2 letras y sus trigramas; una búsqueda intersecta
+ *   esas listas y verifica los candidatos, sin tocar la base.
+ * - Se arma al arrancar, se actualiza con {@link ProductChangedEvent} después
+ *   del commit, se rearma después de un cambio masivo y se reconstruye
+ *   cada {@code rebuild-interval} por si hubo cambios por fuera de la
+ *   aplicación.
+ * - Los eventos que llegan mientras se lee la tabla se aplican al índice
+ *   actual y se guardan; al terminar la lectura se vuelven a aplicar sobre el
+ *   índice nuevo antes de publicarlo, así no se pierden con el reemplazo.
+ */
+@Service
+public class ProductSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    static final int MAX_LIMIT = 50;
+    private static final int GRAM = 3;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private final ProductRepository productRepository;
+    private volatile Index index = new Index();
+    /** Cambios llegados durante un rebuild en curso (null si no hay); guardado por {@code this}. */
+    private List<ProductChangedEvent> changedDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    public ProductSuggestIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    // =====================================================
+    // API
+    // =====================================================
+
+    /**
+     * Hasta {@code limit} productos cuyo nombre, SKU o código contienen cada
+     * palabra de {@code prefix}. Orden: SKU/código exacto, nombre que empieza
+     * con el texto, palabras que empiezan con el texto, el resto; a igualdad,
+     * nombres más cortos primero.
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        List<String> terms = tokenize(prefix);
+        if (terms.isEmpty()) return List.of();
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        String query = String.join(" ", terms);
+        String compact = String.join("", terms);
+
+        Index current = index;
+        PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.<Scored>naturalOrder().reversed());
+        for (Long id : current.candidates(terms)) {
+            Entry e = current.byId.get(id);
+            if (e == null || !e.matchesAll(terms)) continue;
+            top.add(new Scored(e, e.score(query, compact, terms)));
+            if (top.size() > k) top.poll();
+        }
+
+        List<Scored> sorted = new ArrayList<>(top);
+        Collections.sort(sorted);
+        return sorted.stream().map(s -> s.entry.product).toList();
+    }
+
+    public int size() {
+        return index.byId.size();
+    }
+
+    /** Reconstruye el índice completo a partir de la tabla products. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.products.suggest.rebuild-interval:PT15M}",
+               initialDelayString = "${app.products.suggest.rebuild-interval:PT15M}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new ArrayList<>();
+            }
+            Index fresh = new Index();
+            try {
+                productRepository.findAllSuggestions().forEach(fresh::put);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                changedDuringRebuild.forEach(event -> apply(fresh, event));
+                changedDuringRebuild = null;
+                index = fresh;
+            }
+            log.debug("Product suggest index rebuilt: {} products", fresh.byId.size());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        apply(index, event);
+        if (changedDuringRebuild != null) changedDuringRebuild.add(event);
+    }
+
+    private static void apply(Index target, ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            target.remove(event.productId());
+        } else {
+            target.put(event.product());
+        }
+    }
+
+    /** Un cambio masivo no avisa producto por producto: se rearma todo. */
+    @EventListener
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        rebuild();
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    static String normalize(String s) {
+        if (s == null) return "";
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+        return stripped.toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String s) {
+        List<String> out = new ArrayList<>();
+        for (String t : SEPARATORS.split(normalize(s))) {
+            if (!t.isEmpty()) out.add(t);
+        }
+        return out;
+    }
+
+    private static Set<String> tokenKeys(String token) {
+        Set<String> keys = new HashSet<>();
+        keys.add("^" + token.substring(0, 1));
+        if (token.length() >= 2) keys.add("^" + token.substring(0, 2));
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            keys.add(token.substring(i, i + GRAM));
+        }
+        return keys;
+    }
+
+    /** Claves que debe tener un producto para contener {@code term}. */
+    private static List<String> queryKeys(String term) {
+        if (term.length() < GRAM) return List.of("^" + term);
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            grams.add(term.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static final class Index {
+        final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+        final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+        synchronized void put(ProductSuggestion p) {
+            if (p == null || p.id() == null) return;
+            remove(p.id());
+            Entry e = Entry.of(p);
+            byId.put(p.id(), e);
+            for (String key : e.keys) {
+                postings.computeIfAbsent(key, x -> ConcurrentHashMap.newKeySet()).add(p.id());
+            }
+        }
+
+        synchronized void remove(Long id) {
+            Entry old = byId.remove(id);
+            if (old == null) return;
+            for (String key : old.keys) {
+                postings.computeIfPresent(key, (x, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+
+        /** Intersección de las listas de cada clave, empezando por la más corta. */
+        Collection<Long> candidates(List<String> terms) {
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String term : terms) {
+                for (String key : queryKeys(term)) {
+                    Set<Long> ids = postings.get(key);
+                    if (ids == null) return List.of();
+                    lists.add(ids);
+                }
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            Set<Long> result = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.retainAll(lists.get(i));
+            }
+            return result;
+        }
+    }
+
+    private record Entry(ProductSuggestion product, String name, String sku, String barcode,
+                         List<String> tokens, Set<String> keys) {
+
+        static Entry of(ProductSuggestion p) {
+            List<String> tokens = new ArrayList<>(tokenize(p.name()));
+            List<String> skuTokens = tokenize(p.sku());
+            List<String> barcodeTokens = tokenize(p.barcode());
+            tokens.addAll(skuTokens);
+            tokens.addAll(barcodeTokens);
+            // "YER-1KG" también se encuentra escrito como "yer1kg"
+            String sku = String.join("", skuTokens);
+            String barcode = String.join("", barcodeTokens);
+            if (skuTokens.size() > 1) tokens.add(sku);
+            if (barcodeTokens.size() > 1) tokens.add(barcode);
+
+            Set<String> keys = new HashSet<>();
+            tokens.forEach(t -> keys.addAll(tokenKeys(t)));
+            return new Entry(p, String.join(" ", tokenize(p.name())), sku, barcode, List.copyOf(tokens), keys);
+        }
+
+        boolean matchesAll(List<String> terms) {
+            for (String term : terms) {
+                boolean found = false;
+                for (String t : tokens) {
+                    if (term.length() < GRAM ? t.startsWith(term) : t.contains(term)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) return false;
+            }
+            return true;
+        }
+
+        int score(String query, String compact, List<String> terms) {
+            if (compact.equals(sku) || compact.equals(barcode)) return 0;
+            if (name.startsWith(query)) return 1;
+            boolean allPrefixes = terms.stream().allMatch(term -> tokens.stream().anyMatch(t -> t.startsWith(term)));
+            return allPrefixes ? 2 : 3;
+        }
+    }
+
+    private record Scored(Entry entry, int score) implements Comparable<Scored> {
+        @Override
+        public int compareTo(Scored o) {
+            int c = Integer.compare(score, o.score);
+            if (c != 0) return c;
+            c = Integer.compare(entry.name.length(), o.entry.name.length());
+            if (c != 0) return c;
+            c = entry.name.compareTo(o.entry.name);
+            return c != 0 ? c : Long.compare(entry.product.id(), o.entry.product.id());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.CreateSaleItemRequest;
+import com.tiago.erp.dto.CreateSaleRequest;
+import com.tiago.erp.dto.SaleBatchResponse;
+import com.tiago.erp.dto.SaleBatchResult;
+import com.tiago.erp.event.SaleCreatedEvent;
+import com.tiago.erp.event.StockChangedEvent;
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.InvoiceType;
+import com.tiago.erp.model.PaymentMethod;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.model.Sale;
+import com.tiago.erp.model.SaleItem;
+import com.tiago.erp.repository.CustomerRepository;
+import com.tiago.erp.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Alta masiva de ventas (sincronización de POS offline).
+ *
+ * Las ventas se procesan en bloques de {@link #CHUNK_SIZE}, cada uno en su
+ * transacción: productos y clientes del bloque se resuelven con una consulta
+ * por tipo (productos bloqueados FOR UPDATE en orden de id, como en
+ * SaleService.createSale), el stock se descuenta sobre las entidades cargadas
+ * (un UPDATE por producto) y las ventas se insertan juntas al hacer flush.
+ *
+ * Las validaciones de negocio se resuelven por venta sin cortar el bloque; si
+ * el bloque falla al escribir, se reintenta venta por venta para aislar la que
+ * falla.
+ */
+@Service
+public class SaleBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SaleBatchService.class);
+
+    /** Máximo de ventas por request. */
+    static final int MAX_BATCH_SIZE = 5000;
+
+    /** Ventas por transacción. */
+    static final int CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final CustomerRepository customerRepository;
+    private final SalesRollupService rollupService;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public SaleBatchService(ProductRepository productRepository,
+                            CustomerRepository customerRepository,
+                            SalesRollupService rollupService,
+                            ApplicationEventPublisher events,
+                            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.customerRepository = customerRepository;
+        this.rollupService = rollupService;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    public SaleBatchResponse createSales(List<CreateSaleRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("El lote de ventas no puede estar vacío");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("El lote no puede superar " + MAX_BATCH_SIZE + " ventas");
+        }
+
+        SaleBatchResult[] results = new SaleBatchResult[requests.size()];
+
+        for (int from = 0; from < requests.size(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, requests.size());
+            List<Integer> chunk = new ArrayList<>();
+            for (int i = from; i < to; i++) chunk.add(i);
+
+            try {
+                store(results, tx.execute(status -> processChunk(requests, chunk)));
+            } catch (RuntimeException e) {
+                log.warn("Sale batch chunk [{}, {}) failed, retrying one by one: {}", from, to, e.getMessage());
+                for (int i : chunk) {
+                    try {
+                        store(results, tx.execute(status -> processChunk(requests, List.of(i))));
+                    } catch (RuntimeException ex) {
+                        results[i] = SaleBatchResult.failed(i, message(ex));
+                    }
+                }
+            }
+        }
+        return SaleBatchResponse.of(Arrays.asList(results));
+    }
+
+    // =====================================================
+    // BLOQUE
+    // =====================================================
+
+    private Map<Integer, SaleBatchResult> processChunk(List<CreateSaleRequest> requests, List<Integer> indices) {
+        Map<Integer, SaleBatchResult> results = new HashMap<>();
+
+        // 1) Validaciones que no necesitan base
+        List<Integer> valid = new ArrayList<>();
+        for (int i : indices) {
+            String error = validate(requests.get(i));
+            if (error != null) results.put(i, SaleBatchResult.failed(i, error));
+            else valid.add(i);
+        }
+
+        // 2) Productos y clientes del bloque, una consulta por tipo
+        Set<Long> productIds = new TreeSet<>();
+        Set<Long> customerIds = new HashSet<>();
+        Set<String> customerNames = new HashSet<>();
+        boolean needsConsumidorFinal = false;
+        for (int i : valid) {
+            CreateSaleRequest req = requests.get(i);
+            req.getItems().forEach(it -> productIds.add(it.getProductId()));
+            if (req.getCustomerId() != null) customerIds.add(req.getCustomerId());
+            else if (hasText(req.getCustomerName())) customerNames.add(req.getCustomerName().toLowerCase());
+            else needsConsumidorFinal = true;
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findAllByIdInForUpdate(productIds).forEach(p -> products.put(p.getId(), p));
+        }
+        Map<Long, Customer> customersById = new HashMap<>();
+        if (!customerIds.isEmpty()) {
+            customerRepository.findAllById(customerIds).forEach(c -> customersById.put(c.getId(), c));
+        }
+        Map<String, Customer> customersByName = findCustomersByName(customerNames);
+        Customer consumidorFinal = needsConsumidorFinal
+                ? em.find(Customer.class, SaleService.CONSUMIDOR_FINAL_ID)
+                : null;
+
+        // 3) Ventas en el orden del request, descontando stock en memoria
+        List<Sale> created = new ArrayList<>();
+        Set<Long> soldProducts = new TreeSet<>();
+        for (int i : valid) {
+            CreateSaleRequest req = requests.get(i);
+
+            Map<Long, Integer> qtyByProduct = new TreeMap<>();
+            req.getItems().forEach(it -> qtyByProduct.merge(it.getProductId(), it.getQuantity(), Integer::sum));
+            String stockError = checkStock(qtyByProduct, products);
+            if (stockError != null) {
+                results.put(i, SaleBatchResult.failed(i, stockError));
+                continue;
+            }
+
+            Customer customer;
+            if (req.getCustomerId() != null) {
+                customer = customersById.get(req.getCustomerId());
+                if (customer == null) {
+                    results.put(i, SaleBatchResult.failed(i, "Cliente no encontrado con id " + req.getCustomerId()));
+                    continue;
+                }
+            } else if (hasText(req.getCustomerName())) {
+                customer = customersByName.computeIfAbsent(req.getCustomerName().toLowerCase(), k -> {
+                    Customer c = new Customer();
+                    c.setName(req.getCustomerName());
+                    em.persist(c);
+                    return c;
+                });
+            } else {
+                customer = consumidorFinal;
+                if (customer == null) {
+                    results.put(i, SaleBatchResult.failed(i,
+                            "No se encontró el cliente Consumidor Final (id=" + SaleService.CONSUMIDOR_FINAL_ID + ")"));
+                    continue;
+                }
+            }
+
+            qtyByProduct.forEach((id, qty) -> {
+                Product p = products.get(id);
+                p.setStock(p.getStock() - qty);
+            });
+            soldProducts.addAll(qtyByProduct.keySet());
+
+            Sale sale = buildSale(req, customer, products);
+            em.persist(sale);
+            created.add(sale);
+            results.put(i, SaleBatchResult.created(i, sale.getId()));
+        }
+
+        // 4) Rollup diario: una escritura por (día, medio de pago, comprobante) del bloque
+        rollupService.record(created);
+        created.forEach(s -> events.publishEvent(SaleCreatedEvent.of(s)));
+        if (!soldProducts.isEmpty()) {
+            events.publishEvent(new StockChangedEvent(soldProducts));
+        }
+
+        em.flush();
+        em.clear();
+        return results;
+    }
+
+    /** Mismas reglas que SaleService.createSale, sin tocar la base. */
+    private static String validate(CreateSaleRequest req) {
+        if (req == null) return "El cuerpo de la venta no puede ser nulo";
+        if (req.getItems() == null || req.getItems().isEmpty()) return "La venta debe tener al menos un ítem";
+        for (CreateSaleItemRequest it : req.getItems()) {
+            if (it == null || it.getProductId() == null) return "productId es obligatorio";
+            if (it.getQuantity() == null || it.getQuantity() <= 0) return "La cantidad debe ser mayor a cero";
+        }
+        if (req.getInvoiceType() == InvoiceType.A && req.getCustomerId() == null) {
+            return "Para Factura A debe seleccionar un cliente";
+        }
+        return null;
+    }
+
+    private static String checkStock(Map<Long, Integer> qtyByProduct, Map<Long, Product> products) {
+        for (Map.Entry<Long, Integer> e : qtyByProduct.entrySet()) {
+            Product p = products.get(e.getKey());
+            if (p == null) return "Producto no encontrado: " + e.getKey();
+            if (p.getStock() < e.getValue()) return "Stock insuficiente para " + p.getName();
+        }
+        return null;
+    }
+
+    private static Sale buildSale(CreateSaleRequest req, Customer customer, Map<Long, Product> products) {
+        Sale sale = new Sale();
+        sale.setCustomer(customer);
+        sale.setInvoiceType(req.getInvoiceType() != null ? req.getInvoiceType() : InvoiceType.B);
+        sale.setPaymentMethod(req.getPaymentMethod() != null ? req.getPaymentMethod() : PaymentMethod.EFECTIVO);
+        sale.setCreatedAt(LocalDateTime.now());
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (CreateSaleItemRequest it : req.getItems()) {
+            Product p = products.get(it.getProductId());
+            BigDecimal unitPrice = p.getSalePrice() != null ? p.getSalePrice() : BigDecimal.ZERO;
+            BigDecimal lineSubtotal = unitPrice.multiply(BigDecimal.valueOf(it.getQuantity()));
+            subtotal = subtotal.add(lineSubtotal);
+
+            SaleItem si = new SaleItem();
+            si.setProduct(p);
+            si.setQuantity(it.getQuantity());
+            si.setUnitPrice(unitPrice);
+            si.setSubtotal(lineSubtotal);
+            sale.addItem(si);
+        }
+        sale.setSubtotal(subtotal);
+        sale.setTotal(subtotal);
+        return sale;
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    /** Clientes cuyo nombre (sin distinguir mayúsculas) está en {@code lowerNames}; el primero por nombre. */
+    private Map<String, Customer> findCustomersByName(Set<String> lowerNames) {
+        Map<String, Customer> byName = new HashMap<>();
+        if (lowerNames.isEmpty()) return byName;
+        em.createQuery("SELECT c FROM Customer c WHERE LOWER(c.name) IN :names ORDER BY c.id", Customer.class)
+                .setParameter("names", lowerNames)
+                .getResultList()
+                .forEach(c -> byName.putIfAbsent(c.getName().toLowerCase(), c));
+        return byName;
+    }
+
+    private static void store(SaleBatchResult[] results, Map<Integer, SaleBatchResult> chunk) {
+        if (chunk != null) chunk.forEach((i, r) -> results[i] = r);
+    }
+
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
+    }
+
+    private static String message(RuntimeException e) {
+        String msg = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        if (msg == null) return e.getClass().getSimpleName();
+        return msg.length() > 200 ? msg.substring(0, 200) : msg;
+    }
+}
@@ -0,0 +1,221 @@
+package com.tiago.erp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiago.erp.dto.CreateSaleRequest;
+import com.tiago.erp.dto.SaleResponse;
+import com.tiago.erp.exception.IdempotencyConflictException;
+import com.tiago.erp.model.IdempotencyRecord;
+import com.tiago.erp.repository.IdempotencyRecordRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * POST /api/sales con Idempotency-Key: un reintento con la misma clave devuelve
+ * la venta ya creada en lugar de crear otra (y descontar stock dos veces).
+ *
+ * - Tabla idempotency_keys (V9): la clave se inserta al empezar la transacción
+ *   de la venta, así un duplicado (en cualquier instancia) espera en el INSERT y
+ *   luego lee la respuesta guardada. Las claves son por usuario: dos cajeros
+ *   con la misma clave crean ventas distintas.
+ * - LRU en memoria acotado ({@code max-entries}) con TTL: los reintentos
+ *   recientes no van a la base, y un duplicado concurrente en la misma
+ *   instancia espera el resultado del primero en lugar de competir.
+ */
+@Service
+public class SaleIdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(SaleIdempotencyService.class);
+
+    static final int MAX_KEY_LENGTH = 100;
+
+    private final SaleService saleService;
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Map<IdempotencyRecord.Key, Entry> recent;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public SaleIdempotencyService(SaleService saleService,
+                                  IdempotencyRecordRepository recordRepository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.idempotency.max-entries:10000}") int maxEntries,
+                                  @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                                  @Value("${app.idempotency.wait-timeout:PT30S}") Duration waitTimeout) {
+        this.saleService = saleService;
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.recent = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdempotencyRecord.Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Crea la venta una sola vez por ({@code username}, {@code idempotencyKey}); los reintentos reciben la misma respuesta. */
+    public SaleResponse createSale(String username, String idempotencyKey, CreateSaleRequest req) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key inválida (1 a " + MAX_KEY_LENGTH + " caracteres)");
+        }
+        IdempotencyRecord.Key key = new IdempotencyRecord.Key(username, idempotencyKey);
+        String hash = requestHash(req);
+
+        CompletableFuture<SaleResponse> mine = new CompletableFuture<>();
+        Entry existing;
+        synchronized (recent) {
+            existing = recent.get(key);
+            if (existing != null && existing.isExpired(ttl)) {
+                recent.remove(key);
+                existing = null;
+            }
+            if (existing == null) {
+                recent.put(key, new Entry(hash, mine, Instant.now()));
+            }
+        }
+
+        if (existing != null) {
+            checkSameRequest(existing.requestHash, hash);
+            return await(key, existing.result);
+        }
+
+        try {
+            SaleResponse resp = storedResponse(key, hash).orElseGet(() -> createOnce(key, hash, req));
+            mine.complete(resp);
+            return resp;
+        } catch (RuntimeException e) {
+            // no se cachean errores: el cliente puede reintentar con la misma clave
+            synchronized (recent) {
+                recent.remove(key);
+            }
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Borra claves vencidas de la base y de la memoria. */
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval:PT1H}")
+    public void purgeExpired() {
+        synchronized (recent) {
+            recent.values().removeIf(e -> e.isExpired(ttl) && e.result.isDone());
+        }
+        int deleted = recordRepository.deleteOlderThan(Instant.now().minus(ttl));
+        if (deleted > 0) {
+            log.debug("Idempotency keys purged: {}", deleted);
+        }
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    private SaleResponse createOnce(IdempotencyRecord.Key key, String hash, CreateSaleRequest req) {
+        try {
+            return tx.execute(status -> {
+                IdempotencyRecord record = new IdempotencyRecord(key, hash, Instant.now());
+                em.persist(record);
+                em.flush(); // un duplicado concurrente espera acá hasta nuestro commit/rollback
+
+                SaleResponse resp = saleService.createSale(req);
+                record.setSaleId(resp.getSaleId());
+                record.setResponse(toJson(resp));
+                return resp;
+            });
+        } catch (RuntimeException e) {
+            // si la clave la grabó otra transacción en paralelo, devolvemos su resultado
+            return storedResponse(key, hash).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<SaleResponse> storedResponse(IdempotencyRecord.Key key, String hash) {
+        return recordRepository.findById(key)
+                .filter(r -> r.getResponse() != null)
+                .map(r -> {
+                    checkSameRequest(r.getRequestHash(), hash);
+                    return fromJson(r.getResponse());
+                });
+    }
+
+    private SaleResponse await(IdempotencyRecord.Key key, CompletableFuture<SaleResponse> result) {
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("IDEMPOTENCY_IN_PROGRESS",
+                    "La venta con esta Idempotency-Key todavía se está procesando");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la venta " + key.getKey(), e);
+        } catch (ExecutionException e) {
+            // el primer intento falló: este reintento recibe el mismo error
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void checkSameRequest(String storedHash, String hash) {
+        if (!storedHash.equals(hash)) {
+            throw new IdempotencyConflictException("IDEMPOTENCY_KEY_REUSED",
+                    "La Idempotency-Key ya se usó con otra venta");
+        }
+    }
+
+    private String requestHash(CreateSaleRequest req) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(req));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular el hash del request", e);
+        }
+    }
+
+    private String toJson(SaleResponse resp) {
+        try {
+            return objectMapper.writeValueAsString(resp);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la venta", e);
+        }
+    }
+
+    private SaleResponse fromJson(String json) {
+        try {
+            return objectMapper.readValue(json.getBytes(StandardCharsets.UTF_8), SaleResponse.class);
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException("Respuesta idempotente ilegible", e);
+        }
+    }
+
+    private record Entry(String requestHash, CompletableFuture<SaleResponse> result, Instant createdAt) {
+        boolean isExpired(Duration ttl) {
+            return createdAt.plus(ttl).isBefore(Instant.now());
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.tiago.erp.service;
 
+import com.tiago.erp.api.CursorPageResponse;
+import com.tiago.erp.api.SaleCursor;
 import com.tiago.erp.dto.CreateSaleItemRequest;
 import com.tiago.erp.dto.CreateSaleRequest;
 import com.tiago.erp.dto.SaleItemResponse;
 import com.tiago.erp.dto.SaleResponse;
+import com.tiago.erp.event.SaleCreatedEvent;
+import com.tiago.erp.event.StockChangedEvent;
 import com.tiago.erp.model.Customer;
 import com.tiago.erp.model.Product;
 import com.tiago.erp.model.Sale;
@@ -11,10 +15,13 @@ import com.tiago.erp.model.SaleItem;
 import com.tiago.erp.model.InvoiceType;
 import com.tiago.erp.model.PaymentMethod;
 import com.tiago.erp.repository.ProductRepository;
+import com.tiago.erp.repository.SaleListingRepository.SaleHeader;
+import com.tiago.erp.repository.SaleListingRepository.SaleItemLine;
 import com.tiago.erp.repository.SaleRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.validation.Valid;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -22,63 +29,94 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 public class SaleService {
 
     private final SaleRepository saleRepository;
     private final ProductRepository productRepository;
+    private final SalesRollupService rollupService;
+    private final ApplicationEventPublisher events;
 
     // Cliente por defecto: Consumidor Final
-    private static final Long CONSUMIDOR_FINAL_ID = 1L;
+    static final Long CONSUMIDOR_FINAL_ID = 1L;
 
     @PersistenceContext
     private EntityManager em;
 
-    public SaleService(SaleRepository saleRepository, ProductRepository productRepository) {
+    public SaleService(SaleRepository saleRepository, ProductRepository productRepository,
+                       SalesRollupService rollupService,
+                       ApplicationEventPublisher events) {
         this.saleRepository = saleRepository;
         this.productRepository = productRepository;
+        this.rollupService = rollupService;
+        this.events = events;
     }
 
     // =====================================================
     // LISTADOS
     // =====================================================
+    /**
+     * Página de ventas con cliente e ítems en a lo sumo 3 sentencias
+     * (cabeceras, count si hace falta, ítems de toda la página), armando las
+     * respuestas desde proyecciones en lugar de recorrer relaciones LAZY.
+     */
     @Transactional(readOnly = true)
     public Page<SaleResponse> list(LocalDateTime start,
                                    LocalDateTime end,
                                    String customerName,
                                    Pageable pageable) {
 
-        boolean hasName  = (customerName != null && !customerName.isBlank());
-        boolean hasStart = (start != null);
-        boolean hasEnd   = (end   != null);
+        Page<SaleHeader> headers = saleRepository.findHeaders(start, end, customerName, pageable);
 
-        if (hasStart && hasEnd && hasName) {
-            return saleRepository
-                    .findByCreatedAtGreaterThanEqualAndCreatedAtLessThanAndCustomer_NameContainingIgnoreCase(
-                            start, end, customerName, pageable)
-                    .map(this::toResponse);
-        }
-        if (hasStart && hasEnd) {
-            return saleRepository
-                    .findByCreatedAtGreaterThanEqualAndCreatedAtLessThan(start, end, pageable)
-                    .map(this::toResponse);
-        }
-        if (hasStart && !hasEnd) {
-            return saleRepository.findByCreatedAtGreaterThanEqual(start, pageable)
-                    .map(this::toResponse);
-        }
-        if (!hasStart && hasEnd) {
-            return saleRepository.findByCreatedAtLessThan(end, pageable)
-                    .map(this::toResponse);
-        }
-        if (hasName) {
-            return saleRepository.findByCustomer_NameContainingIgnoreCase(customerName, pageable)
-                    .map(this::toResponse);
-        }
+        List<Long> ids = headers.getContent().stream().map(SaleHeader::saleId).toList();
+        Map<Long, List<SaleItemLine>> itemsBySale = saleRepository.findItemLines(ids).stream()
+                .collect(Collectors.groupingBy(SaleItemLine::saleId));
 
-        return saleRepository.findAll(pageable).map(this::toResponse);
+        return headers.map(h -> toResponse(h, itemsBySale.getOrDefault(h.saleId(), List.of())));
+    }
+
+    /**
+     * Página por cursor (keyset) en orden createdAt DESC, id DESC: sin count y con
+     * costo constante a cualquier profundidad. Se pide una fila de más para saber
+     * si hay página siguiente.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<SaleResponse> listAfter(LocalDateTime start,
+                                                      LocalDateTime end,
+                                                      String customerName,
+                                                      String after,
+                                                      int size) {
+
+        SaleCursor cursor = SaleCursor.decode(after);
+        List<SaleHeader> rows = saleRepository.findHeadersAfter(
+                start, end, customerName,
+                cursor != null ? cursor.createdAt() : null,
+                cursor != null ? cursor.id() : null,
+                size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<SaleHeader> headers = hasNext ? rows.subList(0, size) : rows;
+
+        List<Long> ids = headers.stream().map(SaleHeader::saleId).toList();
+        Map<Long, List<SaleItemLine>> itemsBySale = saleRepository.findItemLines(ids).stream()
+                .collect(Collectors.groupingBy(SaleItemLine::saleId));
+
+        List<SaleResponse> content = headers.stream()
+                .map(h -> toResponse(h, itemsBySale.getOrDefault(h.saleId(), List.of())))
+                .toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            SaleHeader last = headers.get(headers.size() - 1);
+            nextCursor = new SaleCursor(last.createdAt(), last.saleId()).encode();
+        }
+        return new CursorPageResponse<>(content, size, nextCursor);
     }
 
     // =====================================================
@@ -148,24 +186,25 @@ public class SaleService {
         sale.setPaymentMethod(paymentMethod);
         sale.setCreatedAt(LocalDateTime.now());
 
-        BigDecimal subtotal = BigDecimal.ZERO;
-
-        // 7) Procesar ítems con sus validaciones
+        // 7) Reservar stock: cantidades agregadas por producto, productos bloqueados
+        //    en una sola consulta (FOR UPDATE, orden por id → sin deadlocks)
+        Map<Long, Integer> qtyByProduct = new TreeMap<>();
         for (CreateSaleItemRequest it : req.getItems()) {
-
+            if (it.getProductId() == null) {
+                throw new IllegalArgumentException("productId es obligatorio");
+            }
             if (it.getQuantity() == null || it.getQuantity() <= 0) {
                 throw new IllegalArgumentException("La cantidad debe ser mayor a cero");
             }
+            qtyByProduct.merge(it.getProductId(), it.getQuantity(), Integer::sum);
+        }
+        Map<Long, Product> products = lockProducts(qtyByProduct);
 
-            Product p = productRepository.findById(it.getProductId())
-                    .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + it.getProductId()));
-
-            if (p.getStock() < it.getQuantity()) {
-                throw new IllegalArgumentException("Stock insuficiente para " + p.getName());
-            }
+        // 8) Crear ítems en el orden del request
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (CreateSaleItemRequest it : req.getItems()) {
 
-            // Actualizar stock
-            p.setStock(p.getStock() - it.getQuantity());
+            Product p = products.get(it.getProductId());
 
             // Calcular precios
             BigDecimal unitPrice = p.getSalePrice() != null ? p.getSalePrice() : BigDecimal.ZERO;
@@ -185,14 +224,19 @@ public class SaleService {
             sale.getItems().add(si);
         }
 
-        // 8) Setear totales en la venta (por ahora total = subtotal)
+        // 9) Setear totales en la venta (por ahora total = subtotal)
         sale.setSubtotal(subtotal);
         sale.setTotal(subtotal);
 
-        // 9) Guardar
+        // 10) Guardar
         Sale saved = saleRepository.save(sale);
 
-        // 10) Respuesta final
+        // 11) Rollup diario, en la misma transacción
+        rollupService.record(saved);
+        events.publishEvent(SaleCreatedEvent.of(saved));
+        events.publishEvent(new StockChangedEvent(qtyByProduct.keySet()));
+
+        // 12) Respuesta final
         return toResponse(saved);
     }
 
@@ -200,6 +244,31 @@ public class SaleService {
     // HELPERS
     // =====================================================
 
+    /**
+     * Bloquea los productos de la venta y descuenta las cantidades agregadas.
+     * El lock se mantiene hasta el commit, así otra venta del mismo producto
+     * espera y luego lee el stock ya descontado (sin OptimisticLockException).
+     */
+    private Map<Long, Product> lockProducts(Map<Long, Integer> qtyByProduct) {
+        Map<Long, Product> products = new HashMap<>();
+        for (Product p : productRepository.findAllByIdInForUpdate(qtyByProduct.keySet())) {
+            products.put(p.getId(), p);
+        }
+
+        for (Map.Entry<Long, Integer> e : qtyByProduct.entrySet()) {
+            Product p = products.get(e.getKey());
+            if (p == null) {
+                throw new IllegalArgumentException("Producto no encontrado: " + e.getKey());
+            }
+            if (p.getStock() < e.getValue()) {
+                throw new IllegalArgumentException("Stock insuficiente para " + p.getName());
+            }
+            // Actualizar stock (flush por dirty checking al commit)
+            p.setStock(p.getStock() - e.getValue());
+        }
+        return products;
+    }
+
     Customer findOrCreateCustomerByName(String name) {
         if (name == null || name.isBlank()) {
             throw new IllegalArgumentException("El nombre del cliente es obligatorio");
@@ -225,35 +294,14 @@ public class SaleService {
     private SaleResponse toResponse(Sale sale) {
 
         List<SaleItemResponse> itemResponses = sale.getItems().stream()
-                .map(si -> {
-                    BigDecimal unit = si.getUnitPrice() != null ? si.getUnitPrice() : BigDecimal.ZERO;
-                    BigDecimal lineSubtotal = si.getSubtotal() != null
-                            ? si.getSubtotal()
-                            : unit.multiply(BigDecimal.valueOf(si.getQuantity()));
-
-                    SaleItemResponse r = new SaleItemResponse();
-                    r.setProductId(si.getProduct().getId());
-                    r.setProductName(si.getProduct().getName());
-                    r.setQuantity(si.getQuantity());
-                    r.setUnitPrice(unit.doubleValue());
-                    r.setSubtotal(lineSubtotal.doubleValue());
-                    return r;
-                })
+                .map(si -> toItemResponse(
+                        si.getProduct().getId(),
+                        si.getProduct().getName(),
+                        si.getQuantity(),
+                        si.getUnitPrice(),
+                        si.getSubtotal()))
                 .toList();
 
-        BigDecimal subtotal = sale.getSubtotal();
-        if (subtotal == null || subtotal.compareTo(BigDecimal.ZERO) == 0) {
-            subtotal = itemResponses.stream()
-                    .map(SaleItemResponse::getSubtotal)
-                    .map(BigDecimal::valueOf)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
-
-        BigDecimal total = sale.getTotal();
-        if (total == null || total.compareTo(BigDecimal.ZERO) == 0) {
-            total = subtotal;
-        }
-
         SaleResponse out = new SaleResponse();
         out.setSaleId(sale.getId());
         out.setCustomerId(
@@ -266,14 +314,68 @@ public class SaleService {
                 sale.getInvoiceType() != null ? sale.getInvoiceType().name() : null
         );
         out.setCreatedAt(sale.getCreatedAt());
-        out.setSubtotal(subtotal.doubleValue());
-        out.setTotal(total.doubleValue());
         out.setPaymentMethod(
                 sale.getPaymentMethod() != null
                         ? sale.getPaymentMethod().name()
                         : null
         );
-        out.setItems(itemResponses);
+        setTotals(out, sale.getSubtotal(), sale.getTotal(), itemResponses);
+        return out;
+    }
+
+    /** Igual que {@link #toResponse(Sale)} pero desde las proyecciones del listado. */
+    private SaleResponse toResponse(SaleHeader h, List<SaleItemLine> lines) {
+
+        List<SaleItemResponse> itemResponses = lines.stream()
+                .map(l -> toItemResponse(l.productId(), l.productName(), l.quantity(), l.unitPrice(), l.subtotal()))
+                .toList();
+
+        SaleResponse out = new SaleResponse();
+        out.setSaleId(h.saleId());
+        out.setCustomerId(h.customerId());
+        out.setCustomerName(h.customerName());
+        out.setInvoiceType(h.invoiceType() != null ? h.invoiceType().name() : null);
+        out.setCreatedAt(h.createdAt());
+        out.setPaymentMethod(h.paymentMethod() != null ? h.paymentMethod().name() : null);
+        setTotals(out, h.subtotal(), h.total(), itemResponses);
         return out;
     }
+
+    private static SaleItemResponse toItemResponse(Long productId,
+                                                   String productName,
+                                                   Integer quantity,
+                                                   BigDecimal unitPrice,
+                                                   BigDecimal subtotal) {
+        BigDecimal unit = unitPrice != null ? unitPrice : BigDecimal.ZERO;
+        BigDecimal lineSubtotal = subtotal != null
+                ? subtotal
+                : unit.multiply(BigDecimal.valueOf(quantity));
+
+        SaleItemResponse r = new SaleItemResponse();
+        r.setProductId(productId);
+        r.setProductName(productName);
+        r.setQuantity(quantity);
+        r.setUnitPrice(unit.doubleValue());
+        r.setSubtotal(lineSubtotal.doubleValue());
+        return r;
+    }
+
+    /** Subtotal/total guardados; si faltan, se recalculan desde los ítems. */
+    private static void setTotals(SaleResponse out,
+                                  BigDecimal subtotal,
+                                  BigDecimal total,
+                                  List<SaleItemResponse> itemResponses) {
+        if (subtotal == null || subtotal.compareTo(BigDecimal.ZERO) == 0) {
+            subtotal = itemResponses.stream()
+                    .map(SaleItemResponse::getSubtotal)
+                    .map(BigDecimal::valueOf)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+        if (total == null || total.compareTo(BigDecimal.ZERO) == 0) {
+            total = subtotal;
+        }
+        out.setSubtotal(subtotal.doubleValue());
+        out.setTotal(total.doubleValue());
+        out.setItems(itemResponses);
+    }
 }
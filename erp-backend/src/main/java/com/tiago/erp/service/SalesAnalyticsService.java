@@ -0,0 +1,169 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.report.SalesSeriesResponse;
+import com.tiago.erp.model.DailySalesRollup;
+import com.tiago.erp.repository.DailySalesRollupRepository;
+import com.tiago.erp.repository.SaleItemRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Series de ventas por día/semana/mes para los gráficos.
+ *
+ * Sin agrupar, o agrupando por medio de pago o comprobante, se arma desde
+ * daily_sales_rollup (filas por día); por categoría se agrega en SQL por día
+ * sobre sale_items. El pase a semanas/meses se hace acá sobre esas filas
+ * diarias, que ya son pocas.
+ */
+@Service
+public class SalesAnalyticsService {
+
+    /** Tope de buckets por respuesta (~5 años por día). */
+    static final int MAX_BUCKETS = 2000;
+
+    static final String ALL = "ALL";
+    static final String NO_CATEGORY = "SIN_CATEGORIA";
+
+    public enum Bucket {
+        DAY, WEEK, MONTH;
+
+        public static Bucket parse(String value) {
+            if (value == null || value.isBlank()) return DAY;
+            return switch (value.toLowerCase()) {
+                case "day"   -> DAY;
+                case "week"  -> WEEK;
+                case "month" -> MONTH;
+                default      -> throw new IllegalArgumentException("bucket must be day|week|month");
+            };
+        }
+
+        /** Primer día del período que contiene {@code d} (semanas ISO, de lunes a domingo). */
+        LocalDate start(LocalDate d) {
+            return switch (this) {
+                case DAY   -> d;
+                case WEEK  -> d.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> d.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate d) {
+            return switch (this) {
+                case DAY   -> d.plusDays(1);
+                case WEEK  -> d.plusWeeks(1);
+                case MONTH -> d.plusMonths(1);
+            };
+        }
+    }
+
+    public enum GroupBy {
+        NONE, PAYMENT_METHOD, INVOICE_TYPE, CATEGORY;
+
+        public static GroupBy parse(String value) {
+            if (value == null || value.isBlank()) return NONE;
+            return switch (value.toLowerCase()) {
+                case "paymentmethod" -> PAYMENT_METHOD;
+                case "invoicetype"   -> INVOICE_TYPE;
+                case "category"      -> CATEGORY;
+                default -> throw new IllegalArgumentException("groupBy must be paymentMethod|invoiceType|category");
+            };
+        }
+    }
+
+    private final DailySalesRollupRepository rollupRepository;
+    private final SaleItemRepository saleItemRepository;
+
+    public SalesAnalyticsService(DailySalesRollupRepository rollupRepository,
+                                 SaleItemRepository saleItemRepository) {
+        this.rollupRepository = rollupRepository;
+        this.saleItemRepository = saleItemRepository;
+    }
+
+    /** Serie de ventas entre {@code from} y {@code to} (ambos inclusive). */
+    @Transactional(readOnly = true)
+    public SalesSeriesResponse series(LocalDate from, LocalDate to, Bucket bucket, GroupBy groupBy) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from y to son obligatorios");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to no puede ser anterior a from");
+        }
+
+        List<LocalDate> buckets = new ArrayList<>();
+        Map<LocalDate, Integer> index = new HashMap<>();
+        for (LocalDate b = bucket.start(from); !b.isAfter(to); b = bucket.next(b)) {
+            if (buckets.size() == MAX_BUCKETS) {
+                throw new IllegalArgumentException("El rango supera " + MAX_BUCKETS + " buckets; use week o month");
+            }
+            index.put(b, buckets.size());
+            buckets.add(b);
+        }
+
+        SeriesBuilder builder = new SeriesBuilder(buckets.size());
+        LocalDate end = to.plusDays(1);
+        if (groupBy == GroupBy.CATEGORY) {
+            for (var row : saleItemRepository.categoryTotalsByDay(from.atStartOfDay(), end.atStartOfDay())) {
+                String key = row.category() == null || row.category().isBlank() ? NO_CATEGORY : row.category();
+                builder.add(key, index.get(bucket.start(row.day())), row.saleCount(), row.total(), row.units());
+            }
+        } else {
+            for (DailySalesRollup row : rollupRepository.findDays(from, end)) {
+                builder.add(key(row, groupBy), index.get(bucket.start(row.getId().getSaleDate())),
+                        row.getSaleCount(), row.getTotal(), row.getUnits());
+            }
+        }
+
+        if (groupBy == GroupBy.NONE) {
+            // sin ventas en el rango igual hay una serie (en 0) para el gráfico
+            builder.ensure(ALL);
+        }
+        return new SalesSeriesResponse(from, to, bucket.name().toLowerCase(),
+                groupBy == GroupBy.NONE ? null : groupBy.name(), buckets, builder.build());
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    private static String key(DailySalesRollup row, GroupBy groupBy) {
+        return switch (groupBy) {
+            case PAYMENT_METHOD -> row.getId().getPaymentMethod().name();
+            case INVOICE_TYPE   -> row.getId().getInvoiceType().name();
+            default             -> ALL;
+        };
+    }
+
+    /** Acumula arrays por clave; las claves salen ordenadas alfabéticamente. */
+    private static final class SeriesBuilder {
+        private final int size;
+        private final Map<String, SalesSeriesResponse.Series> byKey = new TreeMap<>();
+
+        SeriesBuilder(int size) {
+            this.size = size;
+        }
+
+        SalesSeriesResponse.Series ensure(String key) {
+            return byKey.computeIfAbsent(key, k -> {
+                BigDecimal[] totals = new BigDecimal[size];
+                Arrays.fill(totals, BigDecimal.ZERO);
+                return new SalesSeriesResponse.Series(k, new long[size], totals, new long[size]);
+            });
+        }
+
+        void add(String key, int i, long count, BigDecimal total, long units) {
+            SalesSeriesResponse.Series s = ensure(key);
+            s.counts()[i] += count;
+            s.totals()[i] = s.totals()[i].add(total != null ? total : BigDecimal.ZERO);
+            s.units()[i] += units;
+        }
+
+        List<SalesSeriesResponse.Series> build() {
+            return List.copyOf(byKey.values());
+        }
+    }
+}
@@ -2,111 +2,320 @@ package com.tiago.erp.service;
 
 import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
 import com.lowagie.text.PageSize;
 import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
-import com.tiago.erp.model.Sale;
+import com.tiago.erp.dto.report.SaleExportRow;
 import com.tiago.erp.repository.SaleRepository;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class SalesExportService {
 
     private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ISO_DATE;
 
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    /** Filas por ida y vuelta del cursor (y cada cuánto se hace flush de la salida). */
+    static final int EXPORT_CHUNK_SIZE = 500;
+
+    /** Filas de la tabla PDF que se maquetan y vuelcan a la salida de una vez. */
+    static final int PDF_CHUNK_ROWS = 200;
+
+    private static final Font BOLD = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+
     private final SaleRepository saleRepository;
+    private final TransactionTemplate readOnlyTx;
 
-    public SalesExportService(SaleRepository saleRepository) {
+    public SalesExportService(SaleRepository saleRepository, PlatformTransactionManager transactionManager) {
         this.saleRepository = saleRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
     }
 
+    // =====================================================
+    // CSV
+    // =====================================================
+
+    /**
+     * CSV en streaming: las filas se escriben en la respuesta a medida que
+     * llegan del cursor, sin armar el archivo completo en memoria.
+     */
+    public ResponseEntity<StreamingResponseBody> streamCsv(LocalDate start, LocalDate end, String customerName) {
+        StreamingResponseBody body = out -> writeCsv(start, end, customerName, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename(start, end, "csv") + "\"")
+                .contentType(TEXT_CSV)
+                .body(body);
+    }
+
+    /** Variante en memoria (compatibilidad); para rangos grandes usar {@link #streamCsv}. */
     public ResponseEntity<byte[]> exportCsv(LocalDate start, LocalDate end, String customerName) {
-        List<Sale> sales = querySales(start, end, customerName);
-        StringBuilder sb = new StringBuilder();
-        sb.append("id,fecha,cliente,items,total\n");
-        for (Sale s : sales) {
-            int items = s.getItems() != null ? s.getItems().size() : 0;
-            BigDecimal total = s.getItems() == null ? BigDecimal.ZERO :
-                    s.getItems().stream()
-                            .map(i -> i.getUnitPrice().multiply(BigDecimal.valueOf(i.getQuantity())))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-            sb.append(s.getId()).append(',')
-              .append(s.getCreatedAt().toLocalDate()).append(',')
-              .append(s.getCustomer().getName()).append(',')
-              .append(items).append(',')
-              .append(total).append('\n');
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeCsv(start, end, customerName, baos);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename(start, end, "csv") + "\"")
+                .contentType(TEXT_CSV)
+                .body(baos.toByteArray());
+    }
+
+    /**
+     * Escribe el CSV en {@code out}. Lee filas ya agregadas en SQL con un cursor
+     * de a {@link #EXPORT_CHUNK_SIZE} filas (sin entidades administradas), así
+     * el heap no crece con la cantidad de filas.
+     */
+    public void writeCsv(LocalDate start, LocalDate end, String customerName, OutputStream out) {
+        writeCsv(start, end, customerName, out, rows -> {});
+    }
+
+    /**
+     * Igual que {@link #writeCsv(LocalDate, LocalDate, String, OutputStream)}, informando
+     * a {@code progress} la cantidad acumulada de filas escritas por cada bloque.
+     */
+    public void writeCsv(LocalDate start, LocalDate end, String customerName,
+                         OutputStream out, LongConsumer progress) {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            w.write("id,fecha,cliente,items,total\n");
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<SaleExportRow> rows = saleRepository.streamForExport(
+                        startOf(start), endOf(end), customerName, EXPORT_CHUNK_SIZE)) {
+                    int n = 0;
+                    for (SaleExportRow r : (Iterable<SaleExportRow>) rows::iterator) {
+                        w.write(String.valueOf(r.saleId()));
+                        w.write(',');
+                        w.write(r.createdAt().toLocalDate().toString());
+                        w.write(',');
+                        w.write(csv(r.customerName()));
+                        w.write(',');
+                        w.write(String.valueOf(r.itemCount()));
+                        w.write(',');
+                        w.write(r.total().toPlainString());
+                        w.write('\n');
+                        if (++n % EXPORT_CHUNK_SIZE == 0) {
+                            w.flush();
+                            progress.accept(n);
+                        }
+                    }
+                    progress.accept(n);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            w.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        String filename = String.format("ventas_%s_%s.csv",
-                start != null ? start.format(ISO_DATE) : "all",
-                end != null ? end.format(ISO_DATE) : "all");
+    }
+
+    // =====================================================
+    // PDF
+    // =====================================================
+
+    /** Diseño del PDF: detalle por venta, o detalle con subtotal por día. */
+    public enum PdfLayout {
+        DETAIL, DAILY;
+
+        public static PdfLayout parse(String value) {
+            if (value == null || value.isBlank()) return DETAIL;
+            return switch (value.toLowerCase()) {
+                case "detail" -> DETAIL;
+                case "daily"  -> DAILY;
+                default       -> throw new IllegalArgumentException("layout must be detail|daily");
+            };
+        }
+    }
+
+    /**
+     * PDF en streaming: la tabla se vuelca a la respuesta por bloques, así el
+     * primer byte sale enseguida y la memoria no depende de la cantidad de filas.
+     */
+    public ResponseEntity<StreamingResponseBody> streamPdf(LocalDate start, LocalDate end,
+                                                           String customerName, PdfLayout layout) {
+        StreamingResponseBody body = out -> writePdf(start, end, customerName, layout, out, rows -> {});
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(sb.toString().getBytes());
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename(start, end, "pdf") + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
     }
 
+    /** Variante en memoria (compatibilidad); para rangos grandes usar {@link #streamPdf}. */
     public ResponseEntity<byte[]> exportPdf(LocalDate start, LocalDate end, String customerName) {
-        List<Sale> sales = querySales(start, end, customerName);
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            Document doc = new Document(PageSize.A4.rotate());
-            PdfWriter.getInstance(doc, baos);
-            doc.open();
-            doc.add(new Paragraph("Ventas"));
-            PdfPTable table = new PdfPTable(5);
-            table.setWidthPercentage(100);
-            table.addCell(new PdfPCell(new com.lowagie.text.Phrase("ID")));
-            table.addCell(new PdfPCell(new com.lowagie.text.Phrase("Fecha")));
-            table.addCell(new PdfPCell(new com.lowagie.text.Phrase("Cliente")));
-            table.addCell(new PdfPCell(new com.lowagie.text.Phrase("Items")));
-            table.addCell(new PdfPCell(new com.lowagie.text.Phrase("Total")));
-
-            for (Sale s : sales) {
-                int items = s.getItems() != null ? s.getItems().size() : 0;
-                BigDecimal total = s.getItems() == null ? BigDecimal.ZERO :
-                        s.getItems().stream()
-                                .map(i -> i.getUnitPrice().multiply(BigDecimal.valueOf(i.getQuantity())))
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                table.addCell(String.valueOf(s.getId()));
-                table.addCell(s.getCreatedAt().toLocalDate().toString());
-                table.addCell(s.getCustomer().getName());
-                table.addCell(String.valueOf(items));
-                table.addCell(total.toPlainString());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writePdf(start, end, customerName, baos, rows -> {});
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename(start, end, "pdf") + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(baos.toByteArray());
+    }
+
+    /** Escribe el PDF de detalle en {@code out}, informando a {@code progress} las filas agregadas. */
+    public void writePdf(LocalDate start, LocalDate end, String customerName,
+                         OutputStream out, LongConsumer progress) {
+        writePdf(start, end, customerName, PdfLayout.DETAIL, out, progress);
+    }
+
+    /**
+     * Escribe el PDF en {@code out} leyendo el mismo cursor que el CSV.
+     * La tabla queda en modo incompleto: cada {@link #PDF_CHUNK_ROWS} filas se
+     * agrega al documento (OpenPDF maqueta y descarta las filas ya escritas) y se
+     * hace flush, así sólo hay un bloque de filas en memoria a la vez.
+     * {@code out} no se cierra.
+     */
+    public void writePdf(LocalDate start, LocalDate end, String customerName, PdfLayout layout,
+                         OutputStream out, LongConsumer progress) {
+        readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<SaleExportRow> rows = saleRepository.streamForExport(
+                    startOf(start), endOf(end), customerName, EXPORT_CHUNK_SIZE)) {
+
+                Document doc = new Document(PageSize.A4.rotate());
+                PdfWriter writer = PdfWriter.getInstance(doc, out);
+                writer.setCloseStream(false);
+                doc.open();
+                doc.add(new Paragraph(layout == PdfLayout.DAILY ? "Ventas (subtotal por día)" : "Ventas"));
+
+                PdfPTable table = newPdfTable();
+                DailyTotals day = new DailyTotals();
+                DailyTotals all = new DailyTotals();
+                int n = 0;
+                for (SaleExportRow r : (Iterable<SaleExportRow>) rows::iterator) {
+                    LocalDate date = r.createdAt().toLocalDate();
+                    if (layout == PdfLayout.DAILY && day.date != null && !day.date.equals(date)) {
+                        addTotalRow(table, "Subtotal " + day.date, day);
+                        day.reset();
+                    }
+
+                    table.addCell(String.valueOf(r.saleId()));
+                    table.addCell(date.toString());
+                    table.addCell(r.customerName());
+                    table.addCell(String.valueOf(r.itemCount()));
+                    table.addCell(r.total().toPlainString());
+                    day.add(date, r);
+                    all.add(date, r);
+
+                    if (++n % PDF_CHUNK_ROWS == 0) {
+                        doc.add(table);
+                        out.flush();
+                        progress.accept(n);
+                    }
+                }
+                if (layout == PdfLayout.DAILY) {
+                    if (day.date != null) addTotalRow(table, "Subtotal " + day.date, day);
+                    addTotalRow(table, "Total", all);
+                }
+                table.setComplete(true);
+                doc.add(table);
+                doc.close();
+                out.flush();
+                progress.accept(n);
+            } catch (DocumentException e) {
+                throw new RuntimeException("Error generando PDF", e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            doc.add(table);
-            doc.close();
-
-            String filename = String.format("ventas_%s_%s.pdf",
-                    start != null ? start.format(ISO_DATE) : "all",
-                    end != null ? end.format(ISO_DATE) : "all");
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(baos.toByteArray());
-        } catch (DocumentException e) {
-            throw new RuntimeException("Error generando PDF", e);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        });
+    }
+
+    /** Tabla en modo incompleto con el encabezado repetido en cada página. */
+    private static PdfPTable newPdfTable() {
+        PdfPTable table = new PdfPTable(5);
+        table.setWidthPercentage(100);
+        table.setComplete(false);
+        table.setHeaderRows(1);
+        for (String h : new String[]{"ID", "Fecha", "Cliente", "Items", "Total"}) {
+            table.addCell(new PdfPCell(new Phrase(h, BOLD)));
+        }
+        return table;
+    }
+
+    private static void addTotalRow(PdfPTable table, String label, DailyTotals totals) {
+        PdfPCell labelCell = new PdfPCell(new Phrase(label + " (" + totals.sales + " ventas)", BOLD));
+        labelCell.setColspan(3);
+        table.addCell(labelCell);
+        table.addCell(new PdfPCell(new Phrase(String.valueOf(totals.items), BOLD)));
+        table.addCell(new PdfPCell(new Phrase(totals.total.toPlainString(), BOLD)));
+    }
+
+    /** Acumulador de ventas/items/total para los subtotales del PDF. */
+    private static final class DailyTotals {
+        LocalDate date;
+        long sales;
+        long items;
+        BigDecimal total = BigDecimal.ZERO;
+
+        void add(LocalDate date, SaleExportRow r) {
+            this.date = date;
+            sales++;
+            items += r.itemCount();
+            total = total.add(r.total());
         }
+
+        void reset() {
+            date = null;
+            sales = 0;
+            items = 0;
+            total = BigDecimal.ZERO;
+        }
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    /** Cantidad de ventas que entran en el exporte (para informar progreso). */
+    public long countForExport(LocalDate start, LocalDate end, String customerName) {
+        Long count = readOnlyTx.execute(status ->
+                saleRepository.countForExport(startOf(start), endOf(end), customerName));
+        return count != null ? count : 0L;
+    }
+
+    /** Fecha inicial inclusiva → inicio del día. */
+    private static LocalDateTime startOf(LocalDate start) {
+        return start != null ? start.atStartOfDay() : null;
+    }
+
+    /** Fecha final inclusiva → inicio del día siguiente (límite exclusivo). */
+    private static LocalDateTime endOf(LocalDate end) {
+        return end != null ? end.plusDays(1).atStartOfDay() : null;
+    }
+
+    static String filename(LocalDate start, LocalDate end, String ext) {
+        return String.format("ventas_%s_%s.%s",
+                start != null ? start.format(ISO_DATE) : "all",
+                end != null ? end.format(ISO_DATE) : "all",
+                ext);
     }
 
-    private List<Sale> querySales(LocalDate start, LocalDate end, String customerName) {
-        List<Sale> all = saleRepository.findAll();
-        return all.stream()
-                .filter(s -> start == null || !s.getCreatedAt().toLocalDate().isBefore(start))
-                .filter(s -> end == null || !s.getCreatedAt().toLocalDate().isAfter(end))
-                .filter(s -> customerName == null || s.getCustomer().getName().toLowerCase().contains(customerName.toLowerCase()))
-                .toList();
+    /** Escapa un valor CSV (comillas si contiene separadores o comillas). */
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
 }
@@ -0,0 +1,150 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.model.DailySalesRollup;
+import com.tiago.erp.model.Sale;
+import com.tiago.erp.model.SaleItem;
+import com.tiago.erp.repository.DailySalesRollupRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene daily_sales_rollup: una fila por (día, medio de pago, comprobante)
+ * con cantidad de ventas, subtotal, total y unidades.
+ *
+ * Cada alta de venta suma su delta dentro de la transacción que la crea, así
+ * el dashboard y los reportes por rango leen O(días) filas en lugar de
+ * recorrer sales/sale_items. {@link #rebuild()} lo recalcula desde cero.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final String PG_UPSERT = """
+        INSERT INTO {h-schema}daily_sales_rollup
+               (sale_date, payment_method, invoice_type, sale_count, subtotal, total, units)
+        VALUES (:day, :paymentMethod, :invoiceType, :sales, :subtotal, :total, :units)
+        ON CONFLICT (sale_date, payment_method, invoice_type) DO UPDATE
+           SET sale_count = daily_sales_rollup.sale_count + EXCLUDED.sale_count,
+               subtotal   = daily_sales_rollup.subtotal + EXCLUDED.subtotal,
+               total      = daily_sales_rollup.total + EXCLUDED.total,
+               units      = daily_sales_rollup.units + EXCLUDED.units
+        """;
+
+    private final DailySalesRollupRepository rollupRepository;
+    private final boolean postgres;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public SalesRollupService(DailySalesRollupRepository rollupRepository, EntityManagerFactory emf) {
+        this.rollupRepository = rollupRepository;
+        this.postgres = emf.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    // =====================================================
+    // ESCRITURA (dentro de la transacción de la venta)
+    // =====================================================
+
+    /** Suma la venta al rollup. Debe llamarse en la transacción que la crea. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Sale sale) {
+        record(List.of(sale));
+    }
+
+    /** Suma varias ventas, agrupadas antes para escribir una vez por fila del rollup. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Collection<Sale> sales) {
+        Map<DailySalesRollup.Key, Delta> deltas = new LinkedHashMap<>();
+        for (Sale s : sales) {
+            DailySalesRollup.Key key = new DailySalesRollup.Key(
+                    s.getCreatedAt().toLocalDate(), s.getPaymentMethod(), s.getInvoiceType());
+            deltas.computeIfAbsent(key, k -> new Delta()).add(s);
+        }
+        deltas.forEach(this::apply);
+    }
+
+    /** Recalcula todo el rollup desde sales/sale_items. Devuelve las filas generadas. */
+    @Transactional
+    public int rebuild() {
+        int deleted = rollupRepository.deleteAllRows();
+        int inserted = rollupRepository.insertFromSales();
+        log.info("Daily sales rollup rebuilt: {} rows removed, {} rows inserted", deleted, inserted);
+        return inserted;
+    }
+
+    // =====================================================
+    // LECTURA
+    // =====================================================
+
+    /** Totales de los días en [from, to). */
+    @Transactional(readOnly = true)
+    public DailySalesRollupRepository.Totals totals(LocalDate from, LocalDate to) {
+        return rollupRepository.totalsBetween(from, to);
+    }
+
+    // =====================================================
+    // HELPERS
+    // =====================================================
+
+    private void apply(DailySalesRollup.Key key, Delta d) {
+        if (postgres) {
+            // una sola sentencia: sin carrera entre ventas concurrentes del mismo día
+            em.createNativeQuery(PG_UPSERT)
+                    .setParameter("day", key.getSaleDate())
+                    .setParameter("paymentMethod", key.getPaymentMethod().name())
+                    .setParameter("invoiceType", key.getInvoiceType().name())
+                    .setParameter("sales", d.sales)
+                    .setParameter("subtotal", d.subtotal)
+                    .setParameter("total", d.total)
+                    .setParameter("units", d.units)
+                    .executeUpdate();
+            return;
+        }
+
+        // Resto de bases (H2 en tests): UPDATE y, si la fila no existe, INSERT
+        int updated = rollupRepository.increment(key.getSaleDate(), key.getPaymentMethod(), key.getInvoiceType(),
+                d.sales, d.subtotal, d.total, d.units);
+        if (updated == 0) {
+            DailySalesRollup row = new DailySalesRollup(key);
+            row.setSaleCount(d.sales);
+            row.setSubtotal(d.subtotal);
+            row.setTotal(d.total);
+            row.setUnits(d.units);
+            em.persist(row);
+        }
+    }
+
+    private static final class Delta {
+        long sales;
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal total = BigDecimal.ZERO;
+        long units;
+
+        void add(Sale s) {
+            BigDecimal sub = s.getSubtotal() != null ? s.getSubtotal() : BigDecimal.ZERO;
+            sales++;
+            subtotal = subtotal.add(sub);
+            total = total.add(s.getTotal() != null ? s.getTotal() : sub);
+            for (SaleItem it : s.getItems()) {
+                units += it.getQuantity() != null ? it.getQuantity() : 0;
+            }
+        }
+    }
+}
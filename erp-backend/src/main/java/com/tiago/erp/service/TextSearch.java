@@ -0,0 +1,98 @@
+package com.tiago.erp.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de texto de los listados (productos, clientes).
+ *
+ * Arma fragmentos HQL para {@link ListQuery}. El filtro es
+ * {@code lower(col) LIKE '%term%'}, la misma expresión que indexan los GIN
+ * pg_trgm de V7__search_trgm_indexes.sql, así PostgreSQL puede usar el
+ * índice en lugar de recorrer la tabla (con 3+ caracteres).
+ *
+ * {@code sort=relevance}: en PostgreSQL ordena por similarity() de pg_trgm;
+ * en otras bases (H2 en tests) por coincidencia exacta, prefijo y largo.
+ */
+@Component
+public class TextSearch {
+
+    public static final String RELEVANCE = "relevance";
+
+    private static final char ESCAPE = '\\';
+
+    private final boolean postgres;
+
+    @Autowired
+    public TextSearch(EntityManagerFactory emf) {
+        this(emf.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect);
+    }
+
+    TextSearch(boolean postgres) {
+        this.postgres = postgres;
+    }
+
+    public static boolean hasTerm(String q) {
+        return q != null && !q.isBlank();
+    }
+
+    /** Término normalizado como se compara: sin espacios extremos y en minúsculas. */
+    public static String term(String q) {
+        return q.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Patrón para {@link #matches}: {@code %term%} con % y _ escapados. */
+    public static String likePattern(String q) {
+        return "%" + escapeLike(term(q)) + "%";
+    }
+
+    /**
+     * Condición HQL {@code lower(e.f1) like :param or lower(e.f2) like :param ...}
+     * sobre los atributos {@code fields}; el parámetro es {@link #likePattern}.
+     */
+    public static String matches(List<String> fields, String param) {
+        return fields.stream()
+                .map(f -> "lower(" + ListQuery.ALIAS + "." + f + ") like :" + param + " escape '" + ESCAPE + "'")
+                .collect(Collectors.joining(" or ", "(", ")"));
+    }
+
+    /** Ordena {@code query} por relevancia respecto de {@code q}; el primer campo pesa más. */
+    public <T> ListQuery<T> orderByRelevance(ListQuery<T> query, List<String> fields, String q) {
+        String term = term(q);
+        List<String> orders = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        params.put("relevanceTerm", term);
+        if (postgres) {
+            for (String f : fields) {
+                orders.add("similarity(lower(" + ListQuery.ALIAS + "." + f + "), :relevanceTerm) desc");
+            }
+        } else {
+            String main = "lower(" + ListQuery.ALIAS + "." + fields.get(0) + ")";
+            orders.add("case when " + main + " = :relevanceTerm then 0"
+                    + " when " + main + " like :relevancePrefix escape '" + ESCAPE + "' then 1 else 2 end");
+            params.put("relevancePrefix", escapeLike(term) + "%");
+        }
+        orders.add("length(" + ListQuery.ALIAS + "." + fields.get(0) + ")");
+        return query.orderBy(RELEVANCE, String.join(", ", orders), params);
+    }
+
+    static String escapeLike(String s) {
+        StringBuilder out = new StringBuilder(s.length());
+        for (char c : s.toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE) out.append(ESCAPE);
+            out.append(c);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,8 @@
+-- Fila que serializa las transacciones que graban low_stock_events (LowStockFeed):
+-- los ids del feed se confirman en orden y el cursor no saltea eventos.
+CREATE TABLE IF NOT EXISTS erp_schema.low_stock_feed_lock (
+    id  INTEGER PRIMARY KEY
+);
+
+INSERT INTO erp_schema.low_stock_feed_lock (id) VALUES (1)
+ON CONFLICT (id) DO NOTHING;
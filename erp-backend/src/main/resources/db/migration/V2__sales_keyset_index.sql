@@ -0,0 +1,4 @@
+-- Keyset de /api/sales/cursor: orden (created_at DESC, id DESC).
+-- Hibernate (ddl-auto=update) crea el índice nuevo; el de una sola columna queda redundante.
+CREATE INDEX IF NOT EXISTS idx_sales_created_at_id ON erp_schema.sales (created_at, id);
+DROP INDEX IF EXISTS erp_schema.idx_sales_created_at;
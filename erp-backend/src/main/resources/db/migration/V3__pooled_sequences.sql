@@ -0,0 +1,25 @@
+-- IDENTITY → SEQUENCE (optimizador pooled, allocationSize = 50) en sales, sale_items, products y customers.
+-- Aplicar ANTES de desplegar la versión que usa secuencias: si Hibernate (ddl-auto=update)
+-- crea las secuencias vacías empezarían en 1 y chocarían con los ids existentes.
+-- (Como red de seguridad, PooledSequenceAligner hace el mismo setval al arrancar.)
+--
+-- Idempotente: se puede correr más de una vez; setval nunca retrocede una secuencia.
+--
+-- Con pooled, nextval() devuelve el tope del bloque: tras setval(seq, max(id)) el
+-- próximo bloque es (max(id) + 1 .. max(id) + 50).
+
+CREATE SEQUENCE IF NOT EXISTS erp_schema.sales_seq      START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS erp_schema.sale_items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS erp_schema.products_seq   START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS erp_schema.customers_seq  START WITH 1 INCREMENT BY 50;
+
+SELECT setval('erp_schema.sales_seq',      GREATEST((SELECT COALESCE(MAX(id), 0) FROM erp_schema.sales),      (SELECT last_value FROM erp_schema.sales_seq), 1));
+SELECT setval('erp_schema.sale_items_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM erp_schema.sale_items), (SELECT last_value FROM erp_schema.sale_items_seq), 1));
+SELECT setval('erp_schema.products_seq',   GREATEST((SELECT COALESCE(MAX(id), 0) FROM erp_schema.products),   (SELECT last_value FROM erp_schema.products_seq), 1));
+SELECT setval('erp_schema.customers_seq',  GREATEST((SELECT COALESCE(MAX(id), 0) FROM erp_schema.customers),  (SELECT last_value FROM erp_schema.customers_seq), 1));
+
+-- Las columnas id dejan de generarse en la base (los ids los asigna Hibernate).
+ALTER TABLE erp_schema.sales      ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE erp_schema.sale_items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE erp_schema.products   ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE erp_schema.customers  ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,30 @@
+-- Rollup diario de ventas: una fila por (día, medio de pago, tipo de comprobante).
+-- Lo mantiene SalesRollupService en la transacción de cada venta; el dashboard y
+-- los reportes por rango leen O(días) filas en lugar de agregar sales/sale_items.
+
+CREATE TABLE IF NOT EXISTS erp_schema.daily_sales_rollup (
+    sale_date      DATE           NOT NULL,
+    payment_method VARCHAR(20)    NOT NULL,
+    invoice_type   VARCHAR(10)    NOT NULL,
+    sale_count     BIGINT         NOT NULL,
+    subtotal       NUMERIC(14, 2) NOT NULL,
+    total          NUMERIC(14, 2) NOT NULL,
+    units          BIGINT         NOT NULL,
+    PRIMARY KEY (sale_date, payment_method, invoice_type)
+);
+
+-- Backfill de las ventas existentes (equivale a arrancar la app con --rebuild-rollup).
+DELETE FROM erp_schema.daily_sales_rollup;
+INSERT INTO erp_schema.daily_sales_rollup
+       (sale_date, payment_method, invoice_type, sale_count, subtotal, total, units)
+SELECT CAST(s.created_at AS DATE), s.payment_method, s.invoice_type, COUNT(*),
+       SUM(CASE WHEN s.subtotal = 0 THEN COALESCE(i.items_total, 0) ELSE s.subtotal END),
+       SUM(CASE WHEN s.total = 0
+                THEN (CASE WHEN s.subtotal = 0 THEN COALESCE(i.items_total, 0) ELSE s.subtotal END)
+                ELSE s.total END),
+       COALESCE(SUM(i.units), 0)
+  FROM erp_schema.sales s
+  LEFT JOIN (SELECT sale_id, SUM(quantity) AS units, SUM(unit_price * quantity) AS items_total
+               FROM erp_schema.sale_items
+              GROUP BY sale_id) i ON i.sale_id = s.id
+ GROUP BY CAST(s.created_at AS DATE), s.payment_method, s.invoice_type;
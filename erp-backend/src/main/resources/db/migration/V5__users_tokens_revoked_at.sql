@@ -0,0 +1,3 @@
+-- Revocación de tokens para la autenticación stateless (TokenRevocationRegistry):
+-- los JWT emitidos antes de tokens_revoked_at dejan de aceptarse.
+ALTER TABLE erp_schema.users ADD COLUMN IF NOT EXISTS tokens_revoked_at TIMESTAMP WITH TIME ZONE;
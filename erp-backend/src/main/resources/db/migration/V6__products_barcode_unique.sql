@@ -0,0 +1,6 @@
+-- Búsqueda por código de barras (/api/products/by-barcode/{code}).
+-- Los códigos vacíos pasan a NULL (varios NULL no violan el índice único).
+UPDATE erp_schema.products SET barcode = NULL WHERE btrim(barcode) = '';
+UPDATE erp_schema.products SET barcode = btrim(barcode) WHERE barcode <> btrim(barcode);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_products_barcode ON erp_schema.products (barcode);
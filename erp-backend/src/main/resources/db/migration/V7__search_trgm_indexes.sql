@@ -0,0 +1,12 @@
+-- Búsqueda de texto de /api/products y /api/customers (TextSearch):
+-- lower(col) LIKE '%term%' usa estos GIN en lugar de recorrer la tabla.
+-- Con términos de menos de 3 caracteres PostgreSQL sigue haciendo seq scan.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm  ON erp_schema.products  USING gin (lower(name)  gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_products_sku_trgm   ON erp_schema.products  USING gin (lower(sku)   gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_customers_name_trgm ON erp_schema.customers USING gin (lower(name)  gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_customers_email_trgm ON erp_schema.customers USING gin (lower(email) gin_trgm_ops);
+
+ANALYZE erp_schema.products;
+ANALYZE erp_schema.customers;
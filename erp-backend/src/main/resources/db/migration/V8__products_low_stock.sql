@@ -0,0 +1,30 @@
+-- Stock bajo = stock <= stock_min (el mínimo de cada producto).
+-- Índice parcial: sólo contiene los productos en stock bajo, así
+-- /api/products/low-stock y el conteo no recorren el catálogo.
+CREATE INDEX IF NOT EXISTS idx_products_low_stock
+    ON erp_schema.products (id)
+    WHERE stock <= stock_min;
+
+-- Feed incremental (/api/products/low-stock/changes): un evento cada vez que un
+-- producto entra o sale de stock bajo. El id es el cursor del feed.
+CREATE SEQUENCE IF NOT EXISTS erp_schema.low_stock_events_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS erp_schema.low_stock_events (
+    id          BIGINT PRIMARY KEY,
+    product_id  BIGINT       NOT NULL,
+    sku         VARCHAR(60),
+    stock       INTEGER,
+    stock_min   INTEGER,
+    low         BOOLEAN      NOT NULL,
+    created_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_low_stock_events_product    ON erp_schema.low_stock_events (product_id, id);
+CREATE INDEX IF NOT EXISTS idx_low_stock_events_created_at ON erp_schema.low_stock_events (created_at);
+
+-- Estado inicial: un evento por producto que ya está en stock bajo.
+INSERT INTO erp_schema.low_stock_events (id, product_id, sku, stock, stock_min, low, created_at)
+SELECT nextval('erp_schema.low_stock_events_seq'), p.id, p.sku, p.stock, p.stock_min, TRUE, now()
+  FROM erp_schema.products p
+ WHERE p.stock <= p.stock_min
+   AND NOT EXISTS (SELECT 1 FROM erp_schema.low_stock_events e WHERE e.product_id = p.id);
@@ -0,0 +1,37 @@
+-- Idempotency-Key de POST /api/sales (SaleIdempotencyService): respuesta guardada por
+-- (usuario, clave) durante app.idempotency.ttl. La PK compuesta hace que un duplicado
+-- concurrente espere en el INSERT y que dos usuarios con la misma clave no compartan venta.
+
+CREATE TABLE IF NOT EXISTS erp_schema.idempotency_keys (
+    username     VARCHAR(100)                NOT NULL,
+    idem_key     VARCHAR(100)                NOT NULL,
+    request_hash VARCHAR(64)                 NOT NULL,
+    sale_id      BIGINT,
+    response     TEXT,
+    created_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT idempotency_keys_pkey PRIMARY KEY (username, idem_key)
+);
+
+-- Tabla creada antes por ddl-auto con PK sólo en idem_key: son claves de a lo sumo 24 h,
+-- se descartan y se pasa a la PK por usuario.
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+          FROM information_schema.table_constraints c
+          JOIN information_schema.key_column_usage k
+            ON k.constraint_schema = c.constraint_schema AND k.constraint_name = c.constraint_name
+         WHERE c.table_schema = 'erp_schema'
+           AND c.table_name = 'idempotency_keys'
+           AND c.constraint_type = 'PRIMARY KEY'
+           AND k.column_name = 'username'
+    ) THEN
+        DELETE FROM erp_schema.idempotency_keys;
+        ALTER TABLE erp_schema.idempotency_keys ADD COLUMN IF NOT EXISTS username VARCHAR(100);
+        ALTER TABLE erp_schema.idempotency_keys ALTER COLUMN username SET NOT NULL;
+        ALTER TABLE erp_schema.idempotency_keys DROP CONSTRAINT IF EXISTS idempotency_keys_pkey;
+        ALTER TABLE erp_schema.idempotency_keys ADD CONSTRAINT idempotency_keys_pkey PRIMARY KEY (username, idem_key);
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON erp_schema.idempotency_keys (created_at);
@@ -64,14 +64,16 @@ class ProductControllerTest {
                 1
         );
 
-        // Mock del service: coincide con la firma (page, size, sort, q, minStock, active)
+        // Mock del service: coincide con la firma (page, size, sort, q, minStock, stockLt, active, withTotal)
         when(productService.list(
                 ArgumentMatchers.any(),  // page
                 ArgumentMatchers.any(),  // size
                 ArgumentMatchers.any(),  // sort
                 ArgumentMatchers.any(),  // q
                 ArgumentMatchers.any(),  // minStock
-                ArgumentMatchers.any()   // active
+                ArgumentMatchers.any(),  // stockLt
+                ArgumentMatchers.any(),  // active
+                ArgumentMatchers.eq(true) // withTotal (default)
         )).thenReturn(page);
 
         mvc.perform(get("/api/products")
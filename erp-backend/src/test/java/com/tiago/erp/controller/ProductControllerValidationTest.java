@@ -3,7 +3,12 @@ package com.tiago.erp.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tiago.erp.dto.product.ProductRequest;
 import com.tiago.erp.model.Product;
+import com.tiago.erp.service.BarcodeLookupCache;
+import com.tiago.erp.service.LowStockFeed;
+import com.tiago.erp.service.ProductImportService;
+import com.tiago.erp.service.ProductRepriceService;
 import com.tiago.erp.service.ProductService;
+import com.tiago.erp.service.ProductSuggestIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -33,7 +38,8 @@ class ProductControllerValidationTest {
     @BeforeEach
     void setUp() {
         productService = mock(ProductService.class);
-        ProductController controller = new ProductController(productService);
+        ProductController controller = new ProductController(productService, mock(ProductSuggestIndex.class), mock(BarcodeLookupCache.class),
+                mock(ProductImportService.class), mock(ProductRepriceService.class), mock(LowStockFeed.class));
 
         // Spring Validator (no Jakarta) para que @Valid funcione en standaloneSetup
         Validator springValidator = localSpringValidator();
@@ -10,11 +10,14 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.nio.charset.StandardCharsets;
 
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -34,26 +37,30 @@ class ReportsControllerTest {
     }
 
     @Test
-    @DisplayName("CSV: retorna headers y body pasados por el service")
+    @DisplayName("CSV: retorna headers y body (streaming) pasados por el service")
     void export_csv_headers_ok() throws Exception {
         byte[] csv = "id,total\n1,1000\n".getBytes(StandardCharsets.UTF_8);
 
-        ResponseEntity<byte[]> mocked =
+        ResponseEntity<StreamingResponseBody> mocked =
                 ResponseEntity.ok()
                         .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
                         .header(HttpHeaders.CONTENT_DISPOSITION,
                                 "attachment; filename=\"sales_20250101-20251231_juan-pérez.csv\"")
-                        .body(csv);
+                        .body(out -> out.write(csv));
 
-        when(exportService.exportCsv(
+        when(exportService.streamCsv(
                 ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any())
         ).thenReturn(mocked);
 
-        mvc.perform(get("/api/reports/sales/export")
+        MvcResult started = mvc.perform(get("/api/reports/sales/export")
                         .param("format", "csv")
                         .param("from", "2025-01-01")
                         .param("to", "2025-12-31")
                         .param("customer", "Juan Pérez"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
                 .andExpect(header().string("Content-Disposition",
@@ -64,23 +71,29 @@ class ReportsControllerTest {
     }
 
     @Test
-    @DisplayName("PDF: retorna headers y body pasados por el service")
+    @DisplayName("PDF: retorna headers y body (streaming) pasados por el service")
     void export_pdf_headers_ok() throws Exception {
         byte[] pdf = new byte[]{1,2,3};
 
-        ResponseEntity<byte[]> mocked =
+        ResponseEntity<StreamingResponseBody> mocked =
                 ResponseEntity.ok()
                         .contentType(MediaType.APPLICATION_PDF)
                         .header(HttpHeaders.CONTENT_DISPOSITION,
                                 "attachment; filename=\"sales_min-max_all.pdf\"")
-                        .body(pdf);
+                        .body(out -> out.write(pdf));
 
-        when(exportService.exportPdf(
-                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any())
+        when(exportService.streamPdf(
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.eq(SalesExportService.PdfLayout.DAILY))
         ).thenReturn(mocked);
 
-        mvc.perform(get("/api/reports/sales/export")
-                        .param("format", "pdf"))
+        MvcResult started = mvc.perform(get("/api/reports/sales/export")
+                        .param("format", "pdf")
+                        .param("layout", "daily"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", "application/pdf"))
                 .andExpect(header().string("Content-Disposition",
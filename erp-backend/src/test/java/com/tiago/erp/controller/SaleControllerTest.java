@@ -6,11 +6,14 @@ import com.tiago.erp.dto.CreateSaleRequest;
 import com.tiago.erp.dto.SaleItemResponse;
 import com.tiago.erp.dto.SaleResponse;
 import com.tiago.erp.model.PaymentMethod;
+import com.tiago.erp.service.SaleBatchService;
+import com.tiago.erp.service.SaleIdempotencyService;
 import com.tiago.erp.service.SaleService;
 import com.tiago.erp.service.SalesExportService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.MediaType;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
@@ -18,17 +21,22 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class SaleControllerTest {
 
     private final SaleService saleService = Mockito.mock(SaleService.class);
+    private final SaleIdempotencyService idempotencyService = Mockito.mock(SaleIdempotencyService.class);
+    private final SaleBatchService saleBatchService = Mockito.mock(SaleBatchService.class);
     private final SalesExportService exportService = Mockito.mock(SalesExportService.class);
 
     private final MockMvc mvc = MockMvcBuilders
-            .standaloneSetup(new SaleController(saleService, exportService))
+            .standaloneSetup(new SaleController(saleService, idempotencyService, saleBatchService, exportService))
+            .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
             .build();
 
     private final ObjectMapper om = new ObjectMapper();
@@ -68,4 +76,20 @@ class SaleControllerTest {
                         .content(om.writeValueAsString(req)))
                 .andExpect(status().isCreated());
     }
+
+    @Test
+    void createSale_conIdempotencyKey_ReturnsCreated() throws Exception {
+        var resp = new SaleResponse(2L, "Juan", LocalDateTime.now(), 100.0, 100.0,
+                PaymentMethod.EFECTIVO.name(), List.of());
+        when(idempotencyService.createSale(eq("anonymous"), eq("pos-1-42"), any(CreateSaleRequest.class))).thenReturn(resp);
+
+        var req = new CreateSaleRequest("Juan", List.of(new CreateSaleItemRequest(1L, 1)));
+
+        mvc.perform(post("/api/sales")
+                        .header("Idempotency-Key", "pos-1-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(req)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.saleId").value(2));
+    }
 }
@@ -0,0 +1,100 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.dto.report.SaleExportRow;
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.model.Sale;
+import com.tiago.erp.model.SaleItem;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true")
+class SaleExportRepositoryTest {
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private Customer juan;
+    private Customer ana;
+    private Product yerba;
+
+    @BeforeEach
+    void setUp() {
+        juan = customer("Juan Pérez");
+        ana = customer("Ana Gómez");
+        yerba = new Product("Yerba 1Kg", "YER-1KG", new BigDecimal("2000.00"), new BigDecimal("3500.00"), 100, 1);
+        em.persist(yerba);
+
+        sale(juan, LocalDateTime.of(2025, 3, 1, 10, 0), 2, 1);
+        sale(ana,  LocalDateTime.of(2025, 3, 2, 11, 0), 1);
+        sale(juan, LocalDateTime.of(2025, 4, 1, 9, 0), 3);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void streamForExport_agregaPorVentaYFiltraEnSql() {
+        List<SaleExportRow> rows;
+        try (Stream<SaleExportRow> s = saleRepository.streamForExport(
+                LocalDateTime.of(2025, 3, 1, 0, 0), LocalDateTime.of(2025, 4, 1, 0, 0), null, 100)) {
+            rows = s.toList();
+        }
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).customerName()).isEqualTo("Juan Pérez");
+        assertThat(rows.get(0).itemCount()).isEqualTo(2);
+        assertThat(rows.get(0).total()).isEqualByComparingTo("10500.00"); // (2 + 1) x 3500
+        assertThat(rows.get(1).customerName()).isEqualTo("Ana Gómez");
+        assertThat(rows.get(1).total()).isEqualByComparingTo("3500.00");
+    }
+
+    @Test
+    void streamForExport_filtraPorCliente() {
+        List<SaleExportRow> rows;
+        try (Stream<SaleExportRow> s = saleRepository.streamForExport(null, null, "JUAN", 100)) {
+            rows = s.toList();
+        }
+
+        assertThat(rows).extracting(SaleExportRow::customerName).containsOnly("Juan Pérez");
+        assertThat(rows).hasSize(2);
+    }
+
+    private Customer customer(String name) {
+        Customer c = new Customer();
+        c.setName(name);
+        em.persist(c);
+        return c;
+    }
+
+    private void sale(Customer customer, LocalDateTime at, int... quantities) {
+        Sale sale = new Sale();
+        sale.setCustomer(customer);
+        sale.setCreatedAt(at);
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int q : quantities) {
+            SaleItem item = new SaleItem();
+            item.setProduct(yerba);
+            item.setQuantity(q);
+            item.setUnitPrice(yerba.getSalePrice());
+            item.setSubtotal(yerba.getSalePrice().multiply(BigDecimal.valueOf(q)));
+            sale.addItem(item);
+            subtotal = subtotal.add(item.getSubtotal());
+        }
+        sale.setSubtotal(subtotal);
+        sale.setTotal(subtotal);
+        em.persist(sale);
+    }
+}
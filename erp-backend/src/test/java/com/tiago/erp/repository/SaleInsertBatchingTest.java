@@ -0,0 +1,78 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.model.Sale;
+import com.tiago.erp.model.SaleItem;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Con ids por secuencia pooled y hibernate.jdbc.batch_size, guardar una venta
+ * de 40 líneas no cuesta un INSERT por línea.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class SaleInsertBatchingTest {
+
+    private static final int LINES = 40;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    void save_ventaDe40LineasEnBatch() {
+        Customer c = new Customer();
+        c.setName("Juan Pérez");
+        em.persist(c);
+        Product p = new Product("Yerba 1Kg", "YER-1KG", new BigDecimal("2000.00"), new BigDecimal("3500.00"), 1000, 1);
+        em.persist(p);
+        // las primeras ventas inicializan los bloques de ids de las secuencias
+        // (el primer nextval de una secuencia nueva sólo aporta su valor inicial)
+        saleRepository.save(sale(c, p, 1));
+        saleRepository.save(sale(c, p, 1));
+        em.flush();
+
+        Statistics stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        Sale sale = sale(c, p, LINES);
+        saleRepository.save(sale);
+        em.flush();
+
+        assertThat(sale.getId()).isNotNull();
+        assertThat(sale.getItems()).allSatisfy(it -> assertThat(it.getId()).isNotNull());
+        // ids tomados del bloque ya reservado: INSERT de la venta + un batch con los 40 ítems
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(stats.getEntityInsertCount()).isEqualTo(LINES + 1);
+    }
+
+    private static Sale sale(Customer c, Product p, int lines) {
+        Sale sale = new Sale();
+        sale.setCustomer(c);
+        for (int i = 0; i < lines; i++) {
+            SaleItem item = new SaleItem();
+            item.setProduct(p);
+            item.setQuantity(1);
+            item.setUnitPrice(p.getSalePrice());
+            item.setSubtotal(p.getSalePrice());
+            sale.addItem(item);
+        }
+        sale.setSubtotal(p.getSalePrice().multiply(BigDecimal.valueOf(lines)));
+        sale.setTotal(sale.getSubtotal());
+        return sale;
+    }
+}
@@ -0,0 +1,175 @@
+package com.tiago.erp.repository;
+
+import com.tiago.erp.api.CursorPageResponse;
+import com.tiago.erp.dto.SaleResponse;
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.model.Sale;
+import com.tiago.erp.model.SaleItem;
+import com.tiago.erp.service.SaleService;
+import com.tiago.erp.service.SalesRollupService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({SaleService.class, SalesRollupService.class})
+class SaleListingRepositoryTest {
+
+    private static final int SALES = 120;
+    private static final int PAGE_SIZE = 50;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private EntityManager em;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        Product[] products = new Product[3];
+        for (int i = 0; i < products.length; i++) {
+            products[i] = new Product("Producto " + i, "SKU-" + i,
+                    new BigDecimal("10.00"), new BigDecimal("15.00"), 1000, 1);
+            em.persist(products[i]);
+        }
+
+        // un cliente por venta: el listado viejo disparaba un SELECT por cliente, venta y producto
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+        for (int i = 0; i < SALES; i++) {
+            Customer c = new Customer();
+            c.setName(i % 2 == 0 ? "Juan " + i : "Ana " + i);
+            em.persist(c);
+            sale(c, base.plusMinutes(i), products);
+        }
+        em.flush();
+        em.clear();
+
+        stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void list_paginaCompletaEnTresSentencias() {
+        Page<SaleResponse> page = saleService.list(null, null, null, pageDesc(1));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(SALES);
+        // cabeceras + count + ítems de toda la página
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(3);
+
+        SaleResponse first = page.getContent().get(0);
+        assertThat(first.getItems()).hasSize(3);
+        assertThat(first.getItems()).allSatisfy(it -> assertThat(it.getProductName()).startsWith("Producto "));
+        assertThat(first.getCustomerName()).isNotBlank();
+        assertThat(first.getTotal()).isEqualTo(3 * 15.0);
+        // orden createdAt DESC
+        assertThat(page.getContent().get(0).getCreatedAt())
+                .isAfter(page.getContent().get(PAGE_SIZE - 1).getCreatedAt());
+    }
+
+    @Test
+    void list_ultimaPaginaSinCount() {
+        Page<SaleResponse> page = saleService.list(null, null, null, pageDesc(2));
+
+        assertThat(page.getContent()).hasSize(SALES - 2 * PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(SALES);
+        // página incompleta: el total se deduce, no hace falta el count
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void list_filtraPorClienteYFecha() {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 8, 0);
+        LocalDateTime end = start.plusMinutes(10);
+
+        Page<SaleResponse> page = saleService.list(start, end, "juan", pageDesc(0));
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(page.getContent()).allSatisfy(s -> assertThat(s.getCustomerName()).startsWith("Juan"));
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void listAfter_recorreTodoSinRepetirConEmpates() {
+        // ventas con el mismo createdAt: el id desempata el cursor
+        Customer c = em.find(Customer.class, em.createQuery("SELECT min(c.id) FROM Customer c", Long.class).getSingleResult());
+        Product p = em.createQuery("SELECT p FROM Product p", Product.class).setMaxResults(1).getSingleResult();
+        LocalDateTime tie = LocalDateTime.of(2025, 3, 1, 8, 30);
+        for (int i = 0; i < 5; i++) sale(c, tie, p);
+        em.flush();
+        em.clear();
+        stats.clear();
+
+        Set<Long> seen = new HashSet<>();
+        LocalDateTime previous = null;
+        String after = null;
+        int pages = 0;
+        do {
+            CursorPageResponse<SaleResponse> page = saleService.listAfter(null, null, null, after, 40);
+            for (SaleResponse s : page.getContent()) {
+                assertThat(seen.add(s.getSaleId())).as("venta repetida %s", s.getSaleId()).isTrue();
+                if (previous != null) assertThat(s.getCreatedAt()).isBeforeOrEqualTo(previous);
+                previous = s.getCreatedAt();
+            }
+            after = page.getNextCursor();
+            pages++;
+        } while (after != null);
+
+        assertThat(seen).hasSize(SALES + 5);
+        assertThat(pages).isEqualTo(4);
+        // sin count: cabeceras + ítems por página
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2L * pages);
+    }
+
+    @Test
+    void listAfter_cursorInvalido() {
+        assertThatThrownBy(() -> saleService.listAfter(null, null, null, "no-es-un-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("INVALID_CURSOR");
+    }
+
+    private static PageRequest pageDesc(int page) {
+        return PageRequest.of(page, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+
+    private void sale(Customer customer, LocalDateTime at, Product... products) {
+        Sale sale = new Sale();
+        sale.setCustomer(customer);
+        sale.setCreatedAt(at);
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (Product p : products) {
+            SaleItem item = new SaleItem();
+            item.setProduct(p);
+            item.setQuantity(1);
+            item.setUnitPrice(p.getSalePrice());
+            item.setSubtotal(p.getSalePrice());
+            sale.addItem(item);
+            subtotal = subtotal.add(item.getSubtotal());
+        }
+        sale.setSubtotal(subtotal);
+        sale.setTotal(subtotal);
+        em.persist(sale);
+    }
+}
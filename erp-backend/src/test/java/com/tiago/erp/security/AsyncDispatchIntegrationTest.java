@@ -0,0 +1,96 @@
+package com.tiago.erp.security;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Respuestas que terminan con un dispatch ASYNC (StreamingResponseBody, SseEmitter)
+ * sobre el Tomcat real: MockMvc no ejecuta ese dispatch, acá sí. Si la cadena de
+ * seguridad lo rechaza, el cuerpo llega cortado y HttpClient falla al leerlo.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.dashboard.stream.timeout=PT2S")
+@ActiveProfiles("test")
+class AsyncDispatchIntegrationTest {
+
+    @LocalServerPort
+    int port;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private String token;
+
+    @BeforeEach
+    void login() throws Exception {
+        HttpResponse<String> resp = http.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"admin123\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(resp.statusCode()).isEqualTo(200);
+        token = JsonPath.read(resp.body(), "$.accessToken");
+    }
+
+    @Test
+    @DisplayName("export.csv llega completo (una línea por item de las ventas demo)")
+    void exportCsv_completo() throws Exception {
+        HttpResponse<String> resp = get("/api/sales/export.csv");
+
+        assertThat(resp.statusCode()).isEqualTo(200);
+        assertThat(resp.headers().firstValue("Content-Type")).hasValueSatisfying(ct -> assertThat(ct).startsWith("text/csv"));
+        assertThat(resp.body().lines().count()).isGreaterThan(1);
+        assertThat(resp.body()).endsWith("\n");
+    }
+
+    @Test
+    @DisplayName("export.pdf y reports?format=pdf llegan completos")
+    void exportPdf_completo() throws Exception {
+        for (String path : new String[]{"/api/sales/export.pdf?layout=daily", "/api/reports/sales/export?format=pdf"}) {
+            HttpResponse<byte[]> resp = http.send(
+                    HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).GET().build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+
+            assertThat(resp.statusCode()).as(path).isEqualTo(200);
+            String pdf = new String(resp.body(), StandardCharsets.ISO_8859_1);
+            assertThat(pdf).as(path).startsWith("%PDF-");
+            assertThat(pdf.stripTrailing()).as(path).endsWith("%%EOF");
+        }
+    }
+
+    @Test
+    @DisplayName("El stream SSE del dashboard cierra limpio al vencer el emitter")
+    void dashboardStream_completaAlVencer() throws Exception {
+        HttpResponse<String> resp = http.send(HttpRequest.newBuilder(uri("/api/dashboard/stream"))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept", "text/event-stream")
+                        .timeout(Duration.ofSeconds(20))
+                        .GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+
+        assertThat(resp.statusCode()).isEqualTo(200);
+        assertThat(resp.body()).contains("event:summary");
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return http.send(HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,148 @@
+package com.tiago.erp.security;
+
+import com.tiago.erp.exception.PasswordHashingBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) encoder.shutdown();
+    }
+
+    @Test
+    void delegating_aceptaHashesViejosYPideRehash() {
+        PasswordEncoder delegating = SecurityConfig.delegatingEncoder(5);
+        String legacy = new BCryptPasswordEncoder(4).encode("secreto");
+
+        assertThat(delegating.matches("secreto", legacy)).isTrue();
+        assertThat(delegating.upgradeEncoding(legacy)).isTrue();
+
+        String current = delegating.encode("secreto");
+        assertThat(current).startsWith("{bcrypt}$2a$05$");
+        assertThat(delegating.upgradeEncoding(current)).isFalse();
+
+        // subir el costo vuelve "viejo" al hash actual
+        assertThat(SecurityConfig.delegatingEncoder(6).upgradeEncoding(current)).isTrue();
+    }
+
+    @Test
+    void login_rehasheaConElCostoNuevo() {
+        encoder = new BoundedPasswordEncoder(SecurityConfig.delegatingEncoder(5), 1, 4, Duration.ofSeconds(5));
+        UserDetails stored = User.withUsername("ana")
+                .password(new BCryptPasswordEncoder(4).encode("secreto"))
+                .roles("USER")
+                .build();
+        UserDetailsPasswordService upgrader = mock(UserDetailsPasswordService.class);
+        when(upgrader.updatePassword(any(), any())).thenAnswer(inv ->
+                User.withUserDetails(inv.getArgument(0)).password(inv.getArgument(1)).build());
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(username -> stored);
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsPasswordService(upgrader);
+
+        var auth = provider.authenticate(new UsernamePasswordAuthenticationToken("ana", "secreto"));
+
+        assertThat(auth.isAuthenticated()).isTrue();
+        verify(upgrader).updatePassword(any(), startsWith("{bcrypt}$2a$05$"));
+    }
+
+    @Test
+    void hashing_noSuperaLosHilosDelPool() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        PasswordEncoder slow = mock(PasswordEncoder.class);
+        when(slow.matches(any(), any())).thenAnswer(inv -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return true;
+        });
+        encoder = new BoundedPasswordEncoder(slow, 2, 20, Duration.ofSeconds(5));
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> encoder.matches("x", "y")));
+            }
+            for (Future<Boolean> r : results) {
+                assertThat(r.get(5, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void hashing_colaLlenaRespondeOcupado() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blocked = mock(PasswordEncoder.class);
+        when(blocked.encode(any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+        encoder = new BoundedPasswordEncoder(blocked, 1, 1, Duration.ofSeconds(5));
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = callers.submit(() -> encoder.encode("a"));
+            started.await(5, TimeUnit.SECONDS);
+            Future<String> queued = callers.submit(() -> encoder.encode("b"));
+            awaitQueued();
+
+            assertThatThrownBy(() -> encoder.encode("c"))
+                    .isInstanceOf(PasswordHashingBusyException.class)
+                    .extracting("code").isEqualTo("AUTH_BUSY");
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void hashing_esperaVencidaRespondeOcupado() {
+        PasswordEncoder stuck = mock(PasswordEncoder.class);
+        when(stuck.matches(any(), any())).thenAnswer(inv -> {
+            Thread.sleep(1_000);
+            return true;
+        });
+        encoder = new BoundedPasswordEncoder(stuck, 1, 1, Duration.ofMillis(50));
+
+        assertThatThrownBy(() -> encoder.matches("x", "y"))
+                .isInstanceOf(PasswordHashingBusyException.class);
+    }
+
+    private void awaitQueued() throws InterruptedException {
+        // la segunda tarea entra a la cola (capacidad 1) sin hilo libre
+        Thread.sleep(100);
+    }
+}
@@ -2,6 +2,8 @@ package com.tiago.erp.security;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.tiago.erp.model.User;
+import com.tiago.erp.repository.UserRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,10 +19,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Tests de integración end-to-end para Auth/JWT.
- * Usa perfil dev (seeds admin/admin123).
+ * Usa el perfil test (H2 en memoria); AppDemoDataInitializer crea admin/admin123.
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-@ActiveProfiles("dev")
+@ActiveProfiles("test")
 class JwtAuthIntegrationTest {
 
     @LocalServerPort
@@ -29,6 +31,9 @@ class JwtAuthIntegrationTest {
     @Autowired
     TestRestTemplate rest;
 
+    @Autowired
+    UserRepository userRepository;
+
     private String baseUrl() {
         return "http://localhost:" + port;
     }
@@ -125,6 +130,62 @@ class JwtAuthIntegrationTest {
         // No exigimos que sea distinto; depende de tu implementación.
     }
 
+    @Test
+    @DisplayName("Refresh después de logout-everywhere responde 401")
+    void refresh_after_logout_everywhere_unauthorized() {
+        LoginResponse tokens = registerAndLogin("cajero-logout");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(tokens.accessToken);
+        ResponseEntity<String> logout = rest.exchange(
+                baseUrl() + "/api/auth/logout?everywhere=true",
+                HttpMethod.POST,
+                new HttpEntity<>(headers),
+                String.class
+        );
+        assertThat(logout.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<String> refreshResp = rest.postForEntity(
+                baseUrl() + "/api/auth/refresh",
+                new RefreshRequest(tokens.refreshToken),
+                String.class
+        );
+        assertThat(refreshResp.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("Refresh de un usuario deshabilitado responde 401")
+    void refresh_disabled_user_unauthorized() {
+        LoginResponse tokens = registerAndLogin("cajero-baja");
+        User user = userRepository.findByUsername("cajero-baja").orElseThrow();
+        user.setActive(false);
+        userRepository.save(user);
+
+        ResponseEntity<String> refreshResp = rest.postForEntity(
+                baseUrl() + "/api/auth/refresh",
+                new RefreshRequest(tokens.refreshToken),
+                String.class
+        );
+        assertThat(refreshResp.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private LoginResponse registerAndLogin(String username) {
+        ResponseEntity<String> registered = rest.postForEntity(
+                baseUrl() + "/api/auth/register",
+                new LoginRequest(username, "secreto123"),
+                String.class
+        );
+        assertThat(registered.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<LoginResponse> loginResp = rest.postForEntity(
+                baseUrl() + "/api/auth/login",
+                new LoginRequest(username, "secreto123"),
+                LoginResponse.class
+        );
+        assertThat(loginResp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return Objects.requireNonNull(loginResp.getBody(), "login body null");
+    }
+
     // --- DTOs locales para requests/responses de auth ---
     static class LoginRequest {
         public String username;
@@ -0,0 +1,76 @@
+package com.tiago.erp.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "dGhpc19pcy1hLXZlcnktc2VjdXJlLXNlY3JldC1mb3ItZXJwLXRpYWdvLTEyMzQ1Njc4OQ==";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 5, 60, 100);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final TokenRevocationRegistry revocations = mock(TokenRevocationRegistry.class);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessAuth_armaElPrincipalSinConsultarUsuarios() throws Exception {
+        filter(true).doFilter(request(jwtUtil.generateToken("tiago", "ADMIN")),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(auth).isNotNull();
+        assertThat(((UserDetails) auth.getPrincipal()).getUsername()).isEqualTo("tiago");
+        assertThat(auth.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void tokenRevocado_noAutentica() throws Exception {
+        when(revocations.isRevoked(any())).thenReturn(true);
+
+        filter(true).doFilter(request(jwtUtil.generateToken("tiago", "ADMIN")),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void tokenInvalido_sigueSinAutenticar() throws Exception {
+        var chain = new MockFilterChain();
+        filter(true).doFilter(request("no-es-un-jwt"), new MockHttpServletResponse(), chain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isNotNull(); // la cadena siguió
+    }
+
+    private JwtAuthenticationFilter filter(boolean stateless) {
+        var f = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(f, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(f, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(f, "revocations", revocations);
+        ReflectionTestUtils.setField(f, "statelessAuth", stateless);
+        return f;
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        var req = new MockHttpServletRequest("GET", "/api/sales");
+        req.addHeader("Authorization", "Bearer " + token);
+        return req;
+    }
+}
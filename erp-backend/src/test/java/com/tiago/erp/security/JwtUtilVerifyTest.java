@@ -0,0 +1,46 @@
+package com.tiago.erp.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilVerifyTest {
+
+    private static final String SECRET = "dGhpc19pcy1hLXZlcnktc2VjdXJlLXNlY3JldC1mb3ItZXJwLXRpYWdvLTEyMzQ1Njc4OQ==";
+
+    @Test
+    void verify_devuelveClaimsYReusaElTokenVerificado() {
+        JwtUtil jwt = new JwtUtil(SECRET, 5, 60, 100);
+        String token = jwt.generateToken("tiago", "ADMIN");
+
+        VerifiedToken first = jwt.verify(token);
+        assertThat(first.username()).isEqualTo("tiago");
+        assertThat(first.role()).isEqualTo("ADMIN");
+        assertThat(first.roles()).containsExactly("ROLE_ADMIN");
+        assertThat(first.expiresAt()).isAfter(Instant.now());
+
+        // segunda vez: misma instancia desde la caché, sin volver a parsear
+        assertThat(jwt.verify(token)).isSameAs(first);
+        assertThat(jwt.validateToken(token, "tiago")).isTrue();
+        assertThat(jwt.validateToken(token, "otro")).isFalse();
+    }
+
+    @Test
+    void verify_rechazaTokenAdulteradoOVencido() {
+        JwtUtil jwt = new JwtUtil(SECRET, 5, 60, 100);
+        String token = jwt.generateToken("tiago", "USER");
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwt.verify(tampered)).isInstanceOf(JwtException.class);
+
+        JwtUtil expiredTtl = new JwtUtil(SECRET, -1, 60, 100);
+        String expired = expiredTtl.generateToken("tiago", "USER");
+        assertThatThrownBy(() -> expiredTtl.verify(expired)).isInstanceOf(ExpiredJwtException.class);
+    }
+}
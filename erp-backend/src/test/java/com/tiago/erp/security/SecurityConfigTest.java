@@ -0,0 +1,99 @@
+package com.tiago.erp.security;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reglas de acceso de SecurityConfig sobre la cadena de filtros real.
+ * Las reglas de low stock e importación/reprecio tienen que ganarle al GET público de /api/products/**.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("GET de productos sigue siendo público")
+    void products_anonymous_ok() throws Exception {
+        mvc.perform(get("/api/products")).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Low stock sin token responde 401/403")
+    void lowStock_anonymous_denied() throws Exception {
+        assertThat(statusOf(get("/api/products/low-stock/changes"))).isIn(401, 403);
+        assertThat(statusOf(get("/api/products/low-stock"))).isIn(401, 403);
+    }
+
+    @Test
+    @DisplayName("Low stock con rol USER o ADMIN responde 200")
+    void lowStock_authenticated() throws Exception {
+        mvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"cajero-stock\",\"password\":\"secreto123\"}"))
+                .andExpect(status().isOk());
+        String user = bearer("cajero-stock", "secreto123");
+
+        mvc.perform(get("/api/products/low-stock").param("size", "1")
+                        .header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/products/low-stock/changes")
+                        .header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/products/low-stock/changes")
+                        .header(HttpHeaders.AUTHORIZATION, bearer("admin", "admin123")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Reprecio con rol USER responde 403")
+    void reprice_user_forbidden() throws Exception {
+        mvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"cajero-reprecio\",\"password\":\"secreto123\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/api/products/reprice")
+                        .header(HttpHeaders.AUTHORIZATION, bearer("cajero-reprecio", "secreto123"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Importación y reprecio sin token responden 401/403")
+    void bulkEndpoints_anonymous_denied() throws Exception {
+        assertThat(statusOf(post("/api/products/reprice").contentType(MediaType.APPLICATION_JSON).content("{}")))
+                .isIn(401, 403);
+        assertThat(statusOf(post("/api/products/import").contentType("text/csv").content("")))
+                .isIn(401, 403);
+    }
+
+    private int statusOf(org.springframework.test.web.servlet.RequestBuilder request) throws Exception {
+        return mvc.perform(request).andReturn().getResponse().getStatus();
+    }
+
+    private String bearer(String username, String password) throws Exception {
+        String body = mvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return "Bearer " + JsonPath.read(body, "$.accessToken");
+    }
+}
@@ -0,0 +1,84 @@
+package com.tiago.erp.security;
+
+import com.tiago.erp.model.Role;
+import com.tiago.erp.model.User;
+import com.tiago.erp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true")
+@Import(TokenRevocationRegistry.class)
+class TokenRevocationRegistryTest {
+
+    @Autowired private TokenRevocationRegistry registry;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void refresh_rechazaUsuariosDeshabilitadosYTokensAnterioresALaRevocacion() {
+        Instant now = Instant.now();
+        userRepository.save(new User("ana", "x", Role.USER));
+        User beto = new User("beto", "x", Role.USER);
+        beto.setActive(false);
+        userRepository.save(beto);
+        User caro = new User("caro", "x", Role.ADMIN);
+        caro.setTokensRevokedAt(OffsetDateTime.now().minusMinutes(10));
+        userRepository.save(caro);
+
+        registry.refresh();
+
+        assertThat(registry.isRevoked(token("ana", now.minusSeconds(3600)))).isFalse();
+        assertThat(registry.isRevoked(token("beto", now))).isTrue();
+        assertThat(registry.isRevoked(token("caro", now.minusSeconds(3600)))).isTrue();
+        assertThat(registry.isRevoked(token("caro", now))).isFalse();
+    }
+
+    @Test
+    void revokeTokens_seAplicaSinEsperarElRefresh() {
+        userRepository.save(new User("ana", "x", Role.USER));
+        VerifiedToken old = token("ana", Instant.now().minusSeconds(60));
+
+        registry.revokeTokens("ana");
+
+        assertThat(registry.isRevoked(old)).isTrue();
+        assertThat(userRepository.findRevocations()).extracting(UserRepository.Revocation::username).contains("ana");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // repositorio mock, sin transacción
+    void refresh_conLecturaAnteriorALaRevocacion_noLaPierde() {
+        UserRepository repo = Mockito.mock(UserRepository.class);
+        TokenRevocationRegistry local = new TokenRevocationRegistry(repo);
+        VerifiedToken old = token("ana", Instant.now().minusSeconds(60));
+        // logout-everywhere mientras la consulta del refresh ya leyó la tabla
+        when(repo.findRevocations()).thenAnswer(inv -> {
+            local.revokeTokens("ana");
+            return List.of();
+        });
+
+        local.refresh();
+        assertThat(local.isRevoked(old)).isTrue();
+
+        // el próximo refresh la lee de la base
+        doReturn(List.of(new UserRepository.Revocation("ana", true, OffsetDateTime.now())))
+                .when(repo).findRevocations();
+        local.refresh();
+        assertThat(local.isRevoked(old)).isTrue();
+    }
+
+    private static VerifiedToken token(String username, Instant issuedAt) {
+        return new VerifiedToken(username, "USER", List.of("ROLE_USER"), issuedAt, issuedAt.plusSeconds(7200));
+    }
+}
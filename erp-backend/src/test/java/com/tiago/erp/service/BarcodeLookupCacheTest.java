@@ -0,0 +1,109 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.product.ProductSnapshot;
+import com.tiago.erp.dto.product.ProductSuggestion;
+import com.tiago.erp.event.ProductChangedEvent;
+import com.tiago.erp.event.StockChangedEvent;
+import com.tiago.erp.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class BarcodeLookupCacheTest {
+
+    private ProductRepository repo;
+    private BarcodeLookupCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repo = Mockito.mock(ProductRepository.class);
+        when(repo.findSnapshotByBarcode(anyString())).thenReturn(Optional.empty());
+        when(repo.findSnapshotByBarcode("7790001000011")).thenReturn(Optional.of(yerba(20)));
+        cache = new BarcodeLookupCache(repo, new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void find_consultaUnaSolaVez() {
+        assertThat(cache.find("7790001000011")).contains(yerba(20));
+        assertThat(cache.find(" 7790001000011 ")).contains(yerba(20));
+
+        verify(repo, times(1)).findSnapshotByBarcode("7790001000011");
+    }
+
+    @Test
+    void find_recuerdaCodigosInexistentes() {
+        assertThat(cache.find("000")).isEmpty();
+        assertThat(cache.find("000")).isEmpty();
+        assertThat(cache.find("  ")).isEmpty();
+
+        verify(repo, times(1)).findSnapshotByBarcode("000");
+        verify(repo, never()).findSnapshotByBarcode("");
+    }
+
+    @Test
+    void onStockChanged_recargaElStock() {
+        cache.find("7790001000011");
+        when(repo.findSnapshotByBarcode("7790001000011")).thenReturn(Optional.of(yerba(17)));
+
+        cache.onStockChanged(new StockChangedEvent(Set.of(99L)));
+        assertThat(cache.find("7790001000011").orElseThrow().stock()).isEqualTo(20);
+
+        cache.onStockChanged(new StockChangedEvent(Set.of(1L, 99L)));
+        assertThat(cache.find("7790001000011").orElseThrow().stock()).isEqualTo(17);
+    }
+
+    @Test
+    void onStockChanged_duranteLaCargaNoDejaElStockViejo() {
+        // la venta se confirma mientras la carga está leyendo el stock anterior
+        AtomicInteger reads = new AtomicInteger();
+        when(repo.findSnapshotByBarcode("7790001000011")).thenAnswer(inv -> {
+            if (reads.incrementAndGet() > 1) return Optional.of(yerba(17));
+            cache.onStockChanged(new StockChangedEvent(Set.of(1L)));
+            return Optional.of(yerba(20));
+        });
+
+        assertThat(cache.find("7790001000011").orElseThrow().stock()).isEqualTo(17);
+        assertThat(cache.find("7790001000011").orElseThrow().stock()).isEqualTo(17);
+        verify(repo, times(2)).findSnapshotByBarcode("7790001000011");
+    }
+
+    @Test
+    void onProductChanged_invalidaCodigoViejoYNuevo() {
+        cache.find("7790001000011");
+        cache.find("7790009999999"); // todavía no existe
+
+        // el producto 1 cambia de código
+        when(repo.findSnapshotByBarcode("7790001000011")).thenReturn(Optional.empty());
+        when(repo.findSnapshotByBarcode("7790009999999")).thenReturn(Optional.of(
+                new ProductSnapshot(1L, "Yerba Mate 1Kg", "YER-1KG", "7790009999999", new BigDecimal("3500.00"), 20)));
+        cache.onProductChanged(new ProductChangedEvent(1L,
+                new ProductSuggestion(1L, "Yerba Mate 1Kg", "YER-1KG", "7790009999999", null, new BigDecimal("3500.00"))));
+
+        assertThat(cache.find("7790001000011")).isEmpty();
+        assertThat(cache.find("7790009999999")).map(ProductSnapshot::id).contains(1L);
+    }
+
+    @Test
+    void onProductChanged_borrado() {
+        cache.find("7790001000011");
+        when(repo.findSnapshotByBarcode("7790001000011")).thenReturn(Optional.empty());
+
+        cache.onProductChanged(ProductChangedEvent.deleted(1L));
+
+        assertThat(cache.find("7790001000011")).isEmpty();
+    }
+
+    private static ProductSnapshot yerba(int stock) {
+        return new ProductSnapshot(1L, "Yerba Mate 1Kg", "YER-1KG", "7790001000011", new BigDecimal("3500.00"), stock);
+    }
+}
@@ -8,9 +8,14 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 class CustomerServiceTest {
@@ -21,7 +26,7 @@ class CustomerServiceTest {
     @BeforeEach
     void setUp() {
         customerRepository = Mockito.mock(CustomerRepository.class);
-        service = new CustomerService(customerRepository);
+        service = new CustomerService(customerRepository, new TextSearch(false));
     }
 
     @Test
@@ -70,16 +75,39 @@ class CustomerServiceTest {
     }
 
     @Test
-    @DisplayName("delete(): intenta soft-delete (active=false) o borrado duro")
-    void delete_soft_or_hard_ok() {
-        Customer existing = new Customer();
-        when(customerRepository.findById(7L)).thenReturn(Optional.of(existing));
-        when(customerRepository.save(any(Customer.class))).thenAnswer(inv -> inv.getArgument(0));
+    @DisplayName("delete(): soft-delete con un UPDATE, sin cargar la entidad")
+    void delete_soft_ok() {
+        when(customerRepository.deactivateAllById(List.of(7L))).thenReturn(1);
 
         service.delete(7L);
 
-        verify(customerRepository, atLeast(0)).save(any(Customer.class));
-        verify(customerRepository, atLeast(0)).delete(any(Customer.class));
+        verify(customerRepository).deactivateAllById(List.of(7L));
+        verify(customerRepository, never()).findById(any());
+        verify(customerRepository, never()).save(any(Customer.class));
+    }
+
+    @Test
+    @DisplayName("delete(): id inexistente -> NoSuchElementException")
+    void delete_notFound() {
+        when(customerRepository.deactivateAllById(anyCollection())).thenReturn(0);
+
+        assertThatThrownBy(() -> service.delete(99L)).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    @DisplayName("deactivateAll(): ids sin repetir ni nulos, en tandas")
+    void deactivateAll_chunks() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= CustomerService.DEACTIVATE_CHUNK + 5; i++) ids.add(i);
+        ids.add(1L);
+        ids.add(null);
+        when(customerRepository.deactivateAllById(anyCollection()))
+                .thenAnswer(inv -> ((Collection<?>) inv.getArgument(0)).size());
+
+        int found = service.deactivateAll(ids);
+
+        assertThat(found).isEqualTo(CustomerService.DEACTIVATE_CHUNK + 5);
+        verify(customerRepository, times(2)).deactivateAllById(anyCollection());
     }
 
     // helpers reflejados
@@ -0,0 +1,153 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.DashboardUpdate;
+import com.tiago.erp.event.SaleCreatedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class DashboardStreamServiceTest {
+
+    @Test
+    void rafagaDeVentasSeAgrupaEnUnEventoPorCliente() {
+        var cache = mock(DashboardSummaryCache.class);
+        when(cache.summary())
+                .thenReturn(summary(10, "1000.00"))
+                .thenReturn(summary(13, "1450.00"));
+        var stream = newService(cache);
+
+        var a = new CapturingEmitter();
+        var b = new CapturingEmitter();
+        stream.register(a);
+        stream.register(b);
+
+        // primer evento: resumen actual sin delta
+        assertThat(a.updates).singleElement().satisfies(u -> {
+            assertThat(u.summary().monthSalesCount()).isEqualTo(10);
+            assertThat(u.delta()).isNull();
+        });
+
+        for (long id = 1; id <= 3; id++) {
+            stream.onSaleCreated(new SaleCreatedEvent(id, "Cliente " + id, LocalDateTime.now(), new BigDecimal("150.00")));
+        }
+        stream.tick();
+        stream.tick(); // sin ventas nuevas no se manda nada
+
+        for (CapturingEmitter e : List.of(a, b)) {
+            assertThat(e.updates).hasSize(2);
+            DashboardUpdate u = e.updates.get(1);
+            assertThat(u.summary().monthSalesCount()).isEqualTo(13);
+            assertThat(u.delta().monthSalesCount()).isEqualTo(3);
+            assertThat(u.delta().monthSalesTotal()).isEqualByComparingTo("450.00");
+            assertThat(u.recentSales()).extracting(DashboardUpdate.RecentSale::saleId).containsExactly(3L, 2L, 1L);
+        }
+        // un resumen por conexión nueva y uno por tick, no uno por venta ni por cliente
+        verify(cache, times(3)).summary();
+    }
+
+    @Test
+    void clienteDesconectadoSeQuitaAlFallarElEnvio() {
+        var cache = mock(DashboardSummaryCache.class);
+        when(cache.summary()).thenReturn(summary(1, "10.00"));
+        var stream = newService(cache);
+
+        var ok = new CapturingEmitter();
+        var broken = new CapturingEmitter();
+        stream.register(ok);
+        stream.register(broken);
+        broken.fail = true;
+
+        stream.onSaleCreated(new SaleCreatedEvent(1L, "Juan", LocalDateTime.now(), BigDecimal.TEN));
+        stream.tick();
+
+        assertThat(stream.clientCount()).isEqualTo(1);
+        assertThat(ok.updates).hasSize(2);
+    }
+
+    @Test
+    void clienteLentoNoFrenaALosDemasYSeDesconecta() throws Exception {
+        var cache = mock(DashboardSummaryCache.class);
+        when(cache.summary()).thenReturn(summary(1, "10.00"));
+        ExecutorService sender = Executors.newCachedThreadPool();
+        var stream = new DashboardStreamService(cache, Duration.ofMinutes(1), Duration.ofSeconds(25),
+                Duration.ofMillis(50), Executors.newSingleThreadScheduledExecutor(), sender);
+        try {
+            var release = new CountDownLatch(1);
+            var slow = new CapturingEmitter();
+            slow.blockUntil = release;
+            var ok = new CapturingEmitter();
+            stream.register(slow);
+            stream.register(ok);
+
+            stream.onSaleCreated(new SaleCreatedEvent(1L, "Juan", LocalDateTime.now(), BigDecimal.TEN));
+            stream.tick();
+            awaitUpdates(ok, 2);
+            assertThat(stream.clientCount()).isEqualTo(2);
+
+            Thread.sleep(100); // el primer envío al cliente lento sigue colgado
+            stream.onSaleCreated(new SaleCreatedEvent(2L, "Ana", LocalDateTime.now(), BigDecimal.TEN));
+            stream.tick();
+
+            awaitUpdates(ok, 3);
+            assertThat(stream.clientCount()).isEqualTo(1);
+            release.countDown();
+        } finally {
+            stream.shutdown();
+        }
+    }
+
+    private static void awaitUpdates(CapturingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (emitter.updates.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(emitter.updates).hasSize(count);
+    }
+
+    private static DashboardStreamService newService(DashboardSummaryCache cache) {
+        // envío en el mismo hilo: tick() deja todo escrito al volver
+        return new DashboardStreamService(cache, Duration.ofMinutes(1), Duration.ofSeconds(25),
+                Duration.ofSeconds(10), Executors.newSingleThreadScheduledExecutor(), Runnable::run);
+    }
+
+    private static DashboardService.DashboardSummary summary(long count, String total) {
+        return new DashboardService.DashboardSummary(count, new BigDecimal(total), count);
+    }
+
+    /** Emitter que guarda los DashboardUpdate enviados en lugar de escribir la respuesta. */
+    private static final class CapturingEmitter extends SseEmitter {
+        final List<DashboardUpdate> updates = new CopyOnWriteArrayList<>();
+        volatile boolean fail;
+        volatile CountDownLatch blockUntil;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fail) throw new IOException("Broken pipe");
+            if (blockUntil != null) {
+                try {
+                    blockUntil.await(); // socket que no acepta más datos
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            builder.build().stream()
+                    .map(d -> d.getData())
+                    .filter(DashboardUpdate.class::isInstance)
+                    .map(DashboardUpdate.class::cast)
+                    .forEach(updates::add);
+        }
+    }
+}
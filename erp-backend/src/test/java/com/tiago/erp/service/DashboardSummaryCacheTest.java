@@ -0,0 +1,47 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.event.SaleCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class DashboardSummaryCacheTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-03-10T15:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    void summary_seRespondeDesdeCacheHastaQueHayUnaVenta() {
+        var dashboard = mock(DashboardService.class);
+        when(dashboard.summary())
+                .thenReturn(new DashboardService.DashboardSummary(1, new BigDecimal("100.00"), 1))
+                .thenReturn(new DashboardService.DashboardSummary(2, new BigDecimal("250.00"), 2));
+        var registry = new SimpleMeterRegistry();
+        var cache = new DashboardSummaryCache(dashboard, registry, Duration.ofMinutes(5), clock);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(cache.summary().monthSalesCount()).isEqualTo(1);
+        }
+        verify(dashboard, times(1)).summary();
+
+        cache.onSaleCreated(new SaleCreatedEvent(7L, "Juan", LocalDateTime.now(clock), new BigDecimal("150.00")));
+
+        assertThat(cache.summary().monthSalesTotal()).isEqualByComparingTo("250.00");
+        verify(dashboard, times(2)).summary();
+
+        assertThat(registry.get("cache.gets").tag("cache", DashboardSummaryCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count()).isEqualTo(99);
+        assertThat(registry.get("cache.gets").tag("cache", DashboardSummaryCache.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("dashboard.summary.cache.invalidations").counter().count()).isEqualTo(1);
+        assertThat(registry.get("dashboard.summary.cache.age").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,180 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.report.ExportJobResponse;
+import com.tiago.erp.exception.ExportJobRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
+
+class ExportJobServiceTest {
+
+    @TempDir
+    Path spool;
+
+    private ExportJobService jobs;
+
+    @AfterEach
+    void tearDown() {
+        if (jobs != null) jobs.shutdown();
+    }
+
+    @Test
+    void submit_generaArchivoYQuedaDescargable() throws Exception {
+        var export = Mockito.mock(SalesExportService.class);
+        Mockito.when(export.countForExport(nullable(LocalDate.class), nullable(LocalDate.class), nullable(String.class)))
+                .thenReturn(2L);
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(3);
+            LongConsumer progress = inv.getArgument(4);
+            out.write("id,fecha\n1,2024-01-01\n2,2024-01-02\n".getBytes(StandardCharsets.UTF_8));
+            progress.accept(2);
+            return null;
+        }).when(export).writeCsv(nullable(LocalDate.class), nullable(LocalDate.class), nullable(String.class),
+                any(OutputStream.class), any(LongConsumer.class));
+
+        jobs = new ExportJobService(export, spool, Duration.ofHours(1), 1, 5, 2);
+
+        ExportJobResponse submitted = jobs.submit("ana", "csv", null, null, null, null);
+        assertThat(submitted.status()).isIn("QUEUED", "RUNNING", "DONE");
+
+        ExportJobResponse done = awaitFinished(submitted.id(), "ana");
+        assertThat(done.status()).isEqualTo("DONE");
+        assertThat(done.progress()).isEqualTo(100);
+        assertThat(done.rowsWritten()).isEqualTo(2);
+        assertThat(done.downloadUrl()).endsWith("/" + submitted.id() + "/download");
+
+        var download = jobs.download(submitted.id(), "ana").orElseThrow();
+        assertThat(Files.readString(download.file())).contains("2,2024-01-02");
+        assertThat(download.filename()).isEqualTo("ventas_all_all.csv");
+
+        // otro usuario no ve el job
+        assertThat(jobs.find(submitted.id(), "otro")).isEmpty();
+        assertThat(jobs.download(submitted.id(), "otro")).isEmpty();
+    }
+
+    @Test
+    void submit_rechazaSiSuperaLimitePorUsuario() throws Exception {
+        var export = Mockito.mock(SalesExportService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(export).writeCsv(nullable(LocalDate.class), nullable(LocalDate.class), nullable(String.class),
+                any(OutputStream.class), any(LongConsumer.class));
+
+        jobs = new ExportJobService(export, spool, Duration.ofHours(1), 2, 5, 1);
+
+        jobs.submit("ana", "csv", null, null, null, null);
+        assertThatThrownBy(() -> jobs.submit("ana", "csv", null, null, null, null))
+                .isInstanceOf(ExportJobRejectedException.class)
+                .extracting("code").isEqualTo("EXPORT_LIMIT_PER_USER");
+
+        // el límite es por usuario
+        jobs.submit("beto", "csv", null, null, null, null);
+        release.countDown();
+    }
+
+    @Test
+    void submit_fallaLimpiaElArchivoParcial() throws Exception {
+        var export = Mockito.mock(SalesExportService.class);
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(3);
+            out.write("parcial".getBytes(StandardCharsets.UTF_8));
+            throw new IllegalStateException("boom");
+        }).when(export).writePdf(nullable(LocalDate.class), nullable(LocalDate.class), nullable(String.class),
+                any(SalesExportService.PdfLayout.class), any(OutputStream.class), any(LongConsumer.class));
+
+        jobs = new ExportJobService(export, spool, Duration.ofHours(1), 1, 5, 2);
+
+        ExportJobResponse submitted = jobs.submit("ana", "pdf", null, null, null, null);
+        ExportJobResponse failed = awaitFinished(submitted.id(), "ana");
+
+        assertThat(failed.status()).isEqualTo("FAILED");
+        assertThat(failed.error()).isNotBlank();
+        assertThat(jobs.download(submitted.id(), "ana")).isEmpty();
+        try (var files = Files.list(spool)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void submit_pdfUsaElLayoutPedido() throws Exception {
+        var export = Mockito.mock(SalesExportService.class);
+        jobs = new ExportJobService(export, spool, Duration.ofHours(1), 1, 5, 2);
+
+        ExportJobResponse submitted = jobs.submit("ana", "pdf", null, null, null, SalesExportService.PdfLayout.DAILY);
+        assertThat(awaitFinished(submitted.id(), "ana").status()).isEqualTo("DONE");
+
+        Mockito.verify(export).writePdf(nullable(LocalDate.class), nullable(LocalDate.class), nullable(String.class),
+                Mockito.eq(SalesExportService.PdfLayout.DAILY), any(OutputStream.class), any(LongConsumer.class));
+    }
+
+    @Test
+    void purgeExpired_borraJobsVencidos() throws Exception {
+        var export = Mockito.mock(SalesExportService.class);
+        jobs = new ExportJobService(export, spool, Duration.ZERO, 1, 5, 2);
+
+        ExportJobResponse submitted = jobs.submit("ana", "csv", null, null, null, null);
+        awaitFinished(submitted.id(), "ana");
+        Thread.sleep(5);
+
+        jobs.purgeExpired();
+
+        assertThat(jobs.find(submitted.id(), "ana")).isEmpty();
+        try (var files = Files.list(spool)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void arranque_soloBorraArchivosVencidosDelSpool() throws Exception {
+        // spool compartido: un exporte vigente de otra instancia y restos vencidos
+        Path ajeno = Files.writeString(spool.resolve("otra-instancia.csv"), "x");
+        Path enCurso = Files.writeString(spool.resolve("otra-instancia-2.part"), "x");
+        Path vencido = Files.writeString(spool.resolve("vieja.csv"), "x");
+        Files.setLastModifiedTime(vencido, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        jobs = new ExportJobService(Mockito.mock(SalesExportService.class), spool, Duration.ofHours(1), 1, 5, 2);
+
+        assertThat(ajeno).exists();
+        assertThat(enCurso).exists();
+        assertThat(vencido).doesNotExist();
+    }
+
+    @Test
+    void submit_formatoInvalido() {
+        jobs = new ExportJobService(Mockito.mock(SalesExportService.class), spool, Duration.ofHours(1), 1, 5, 2);
+
+        assertThatThrownBy(() -> jobs.submit("ana", "xls", null, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ExportJobResponse awaitFinished(String id, String owner) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            ExportJobResponse r = jobs.find(id, owner).orElseThrow();
+            if (r.status().equals("DONE") || r.status().equals("FAILED")) return r;
+            Thread.sleep(10);
+        }
+        throw new AssertionError("el job no terminó a tiempo");
+    }
+}
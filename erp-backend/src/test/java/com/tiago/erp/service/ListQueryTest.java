@@ -0,0 +1,99 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.model.Customer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true")
+@Import({CustomerService.class, TextSearch.class})
+class ListQueryTest {
+
+    @Autowired private CustomerService customerService;
+    @Autowired private EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 12; i++) {
+            customer(String.format("Cliente %02d", i), "c" + i + "@mail.com", i % 4 != 0);
+        }
+        customer("Ana Gómez", "ana@mail.com", true);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void page_contenidoYTotalEnUnaConsulta() {
+        Page<Customer> page = customerService.list(1, 5, "name", "cliente", null);
+
+        assertThat(page.getTotalElements()).isEqualTo(12);
+        assertThat(page.getTotalPages()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(Customer::getName)
+                .containsExactly("Cliente 06", "Cliente 07", "Cliente 08", "Cliente 09", "Cliente 10");
+    }
+
+    @Test
+    void page_combinaFiltros() {
+        Page<Customer> page = customerService.list(0, 20, "name", "cliente", true);
+
+        assertThat(page.getTotalElements()).isEqualTo(9);
+        assertThat(page.getContent()).allMatch(Customer::getActive);
+    }
+
+    @Test
+    void page_masAllaDelFinalCuentaAparte() {
+        Page<Customer> page = customerService.list(10, 5, null, "cliente", null);
+
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isEqualTo(12);
+    }
+
+    @Test
+    void slice_sinTotal() {
+        Slice<Customer> first = customerService.list(0, 5, "name", null, null, false);
+        assertThat(first).isNotInstanceOf(Page.class);
+        assertThat(first.getContent()).hasSize(5);
+        assertThat(first.hasNext()).isTrue();
+
+        // 13 clientes ordenados por nombre: "Ana Gómez", "Cliente 01" ... "Cliente 12"
+        Slice<Customer> last = customerService.list(2, 5, "name", null, null, false);
+        assertThat(last.getContent()).extracting(Customer::getName)
+                .containsExactly("Cliente 10", "Cliente 11", "Cliente 12");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void orden_atributoDesconocidoSeIgnora() {
+        Page<Customer> page = customerService.list(0, 3, "noExiste", null, null);
+
+        // orden por id como desempate
+        assertThat(page.getContent()).extracting(Customer::getName)
+                .containsExactly("Cliente 01", "Cliente 02", "Cliente 03");
+    }
+
+    @Test
+    void hql_seArmaUnaVezPorForma() {
+        customerService.list(0, 5, "name", "cli", true);
+        int shapes = ListQuery.cachedShapes();
+
+        customerService.list(0, 5, "name", "otro", false);
+        customerService.list(0, 10, "name", "x", true);
+
+        assertThat(ListQuery.cachedShapes()).isEqualTo(shapes);
+    }
+
+    private void customer(String name, String email, boolean active) {
+        Customer c = new Customer();
+        c.setName(name);
+        c.setEmail(email);
+        c.setActive(active);
+        em.persist(c);
+    }
+}
@@ -0,0 +1,188 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.product.LowStockChange;
+import com.tiago.erp.dto.product.LowStockFeedResponse;
+import com.tiago.erp.event.StockChangedEvent;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.repository.LowStockEventRepository;
+import com.tiago.erp.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true")
+@Import({LowStockFeed.class, ProductService.class, TextSearch.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // el listener corre en el commit de cada transacción
+class LowStockFeedTest {
+
+    @Autowired private LowStockFeed feed;
+    @Autowired private ProductService productService;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private LowStockEventRepository eventRepository;
+    @Autowired private ApplicationEventPublisher events;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void ventaQueDejaElStockEnElMinimo_entraAlFeedEnLaMismaTransaccion() {
+        Product yerba = product("Yerba", "YER-1KG", 5, 3);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Product p = productRepository.findById(yerba.getId()).orElseThrow();
+            p.setStock(3);
+            productRepository.saveAndFlush(p);
+            events.publishEvent(new StockChangedEvent(Set.of(p.getId())));
+        });
+
+        LowStockFeedResponse first = feed.changes(0, 100);
+        assertThat(first.changes()).singleElement().satisfies(c -> {
+            assertThat(c.productId()).isEqualTo(yerba.getId());
+            assertThat(c.low()).isTrue();
+            assertThat(c.stock()).isEqualTo(3);
+            assertThat(c.stockMin()).isEqualTo(3);
+        });
+
+        // sin cambio de estado no se graba otro evento
+        feed.record(List.of(yerba.getId()));
+        assertThat(feed.changes(first.cursor(), 100).changes()).isEmpty();
+        assertThat(feed.changes(first.cursor(), 100).cursor()).isEqualTo(first.cursor());
+    }
+
+    @Test
+    void transaccionConIdMenorQueConfirmaDespues_noQuedaSalteada() throws Exception {
+        Product a = product("A", "A-1", 5, 1);
+        Product b = product("B", "B-1", 5, 1);
+        long cursor = feed.changes(0, 100).cursor();
+
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // A toma el id menor y tarda en confirmar
+            Future<?> first = pool.submit(() -> sellOut(a, () -> {
+                recorded.countDown();
+                await(release);
+            }));
+            assertThat(recorded.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<?> second = pool.submit(() -> sellOut(b, () -> {}));
+
+            Thread.sleep(300);
+            LowStockFeedResponse seen = feed.changes(cursor, 100);
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+
+            List<Long> all = new ArrayList<>(seen.changes().stream().map(LowStockChange::productId).toList());
+            feed.changes(seen.cursor(), 100).changes().forEach(c -> all.add(c.productId()));
+            assertThat(all).containsExactly(a.getId(), b.getId());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void productoQueSaleDelStockBajoOSeBorra() {
+        Product mate = product("Mate", "MAT-001", 0, 2);
+        Product cafe = product("Café", "CAF-001", 1, 1);
+        feed.reconcile();
+        long cursor = feed.changes(0, 100).cursor();
+
+        mate.setStock(10);
+        productRepository.save(mate);
+        productRepository.deleteById(cafe.getId());
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> feed.record(List.of(mate.getId(), cafe.getId())));
+
+        List<LowStockChange> changes = feed.changes(cursor, 100).changes();
+        assertThat(changes).extracting(LowStockChange::productId)
+                .containsExactlyInAnyOrder(mate.getId(), cafe.getId());
+        assertThat(changes).noneMatch(LowStockChange::low);
+    }
+
+    @Test
+    void reconcile_detectaCambiosHechosPorFueraYPaginaPorCursor() {
+        Product a = product("A", "A-1", 0, 1);
+        Product b = product("B", "B-1", 1, 1);
+        product("C", "C-1", 9, 1);
+
+        feed.reconcile();
+        LowStockFeedResponse page1 = feed.changes(0, 1);
+        LowStockFeedResponse page2 = feed.changes(page1.cursor(), 1);
+        assertThat(List.of(page1.changes().get(0).productId(), page2.changes().get(0).productId()))
+                .containsExactlyInAnyOrder(a.getId(), b.getId());
+        assertThat(feed.changes(page2.cursor(), 1).changes()).isEmpty();
+
+        // idempotente
+        feed.reconcile();
+        assertThat(feed.changes(page2.cursor(), 100).changes()).isEmpty();
+    }
+
+    @Test
+    void lowStock_usaElMinimoDeCadaProductoYFiltraPorTexto() {
+        Product yerba = product("Yerba Mate", "YER-1KG", 2, 5);
+        Product mate = product("Mate", "MAT-001", 1, 1);
+        product("Café", "CAF-001", 0, 0);
+        product("Azúcar", "AZU-001", 10, 5);
+
+        Page<Product> page = productService.lowStock(0, 2, null, null);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(Product::getId).containsExactly(yerba.getId(), mate.getId());
+
+        assertThat(productService.lowStock(0, 10, "mate", null).getContent())
+                .extracting(Product::getSku).containsExactly("YER-1KG", "MAT-001");
+
+        // criterio anterior: stock < threshold
+        assertThat(productService.lowStock(0, 10, null, 2).getContent())
+                .extracting(Product::getSku).containsExactly("MAT-001", "CAF-001");
+        assertThat(productService.list(0, 10, null, null, null, 2, null).getTotalElements()).isEqualTo(2);
+    }
+
+    /** Deja el producto sin stock y graba el evento; {@code beforeCommit} corre dentro de la transacción. */
+    private void sellOut(Product product, Runnable beforeCommit) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Product p = productRepository.findById(product.getId()).orElseThrow();
+            p.setStock(0);
+            productRepository.saveAndFlush(p);
+            feed.record(List.of(p.getId()));
+            beforeCommit.run();
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Product product(String name, String sku, int stock, int stockMin) {
+        return productRepository.save(new Product(name, sku, BigDecimal.ONE, BigDecimal.TEN, stock, stockMin));
+    }
+}
@@ -0,0 +1,129 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.product.ProductImportResult;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "app.products.import.chunk-size=2"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ProductImportService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // cada bloque abre su propia transacción
+class ProductImportServiceTest {
+
+    @Autowired private ProductImportService importService;
+    @Autowired private ProductRepository productRepository;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void csv_altaYActualizacionPorSku() {
+        Product existing = new Product("Yerba viejo", "YER-1KG",
+                new BigDecimal("1000.00"), new BigDecimal("1500.00"), 7, 2);
+        existing.setCategory("Almacén");
+        productRepository.save(existing);
+
+        ProductImportResult result = importService.importProducts(body("""
+                sku,name,cost_price,sale_price,stock,category
+                YER-1KG,Yerba 1Kg,2000.00,3500.00,,
+                "CAF-001","Café, molido",900,1200,10,Bebidas
+                MAT-001,Mate,,500,1,
+                ALF-001,Alfajor,100,abc,1,
+                """), "csv");
+
+        assertThat(result.rows()).isEqualTo(4);
+        assertThat(result.upserted()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.errors()).extracting(ProductImportResult.RowError::line).containsExactly(4L, 5L);
+        assertThat(result.errors().get(0).message()).isEqualTo("costPrice is required");
+        assertThat(result.errors().get(1).message()).contains("saleprice");
+
+        Product yerba = productRepository.findBySku("YER-1KG").orElseThrow();
+        assertThat(yerba.getName()).isEqualTo("Yerba 1Kg");
+        assertThat(yerba.getSalePrice()).isEqualByComparingTo("3500.00");
+        // columnas opcionales vacías no pisan lo que había
+        assertThat(yerba.getStock()).isEqualTo(7);
+        assertThat(yerba.getCategory()).isEqualTo("Almacén");
+
+        Product cafe = productRepository.findBySku("CAF-001").orElseThrow();
+        assertThat(cafe.getName()).isEqualTo("Café, molido");
+        assertThat(cafe.getStockMin()).isZero();
+    }
+
+    @Test
+    void ndjson_filaQueFallaAlEscribirNoFrenaElBloque() {
+        ProductImportResult result = importService.importProducts(body("""
+                {"sku":"A-1","name":"Uno","costPrice":1,"salePrice":2,"barcode":" 779001 "}
+                {"sku":"A-2","name":"Dos","costPrice":1,"salePrice":2,"barcode":"779001"}
+
+                not json
+                {"sku":"A-3","name":"Tres","costPrice":1,"salePrice":2,"stock":4}
+                """), "ndjson");
+
+        assertThat(result.upserted()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.errors()).extracting(ProductImportResult.RowError::sku).containsExactly("A-2", null);
+        assertThat(result.errors()).extracting(ProductImportResult.RowError::line).containsExactly(2L, 4L);
+        assertThat(productRepository.findBySku("A-1").orElseThrow().getBarcode()).isEqualTo("779001");
+        assertThat(productRepository.findBySku("A-3").orElseThrow().getStock()).isEqualTo(4);
+        assertThat(productRepository.findBySku("A-2")).isEmpty();
+    }
+
+    @Test
+    void csv_puntoYComaConComaDecimal() {
+        ProductImportResult result = importService.importProducts(body("""
+                SKU;Name;CostPrice;SalePrice
+                YER-1KG;Yerba;1500,50;2100,75
+                """), "csv");
+
+        assertThat(result.upserted()).isEqualTo(1);
+        assertThat(productRepository.findBySku("YER-1KG").orElseThrow().getSalePrice())
+                .isEqualByComparingTo("2100.75");
+    }
+
+    @Test
+    void erroresSeRecortanAlMaximo() {
+        StringBuilder csv = new StringBuilder("sku,name,costPrice,salePrice\n");
+        for (int i = 0; i < 1005; i++) csv.append("S-").append(i).append(",,1,1\n");
+
+        ProductImportResult result = importService.importProducts(body(csv.toString()), "csv");
+
+        assertThat(result.failed()).isEqualTo(1005);
+        assertThat(result.errors()).hasSize(1000);
+        assertThat(result.errorsTruncated()).isTrue();
+    }
+
+    @Test
+    void formatoOCabeceraInvalidos() {
+        assertThatThrownBy(() -> importService.importProducts(body("x"), "xls"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> importService.importProducts(body("codigo,nombre\n1,a\n"), "csv"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static InputStream body(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,117 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.product.RepriceRequest;
+import com.tiago.erp.dto.product.RepriceResult;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "app.products.reprice.chunk-size=2"
+})
+@Import(ProductRepriceService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // cada bloque abre su propia transacción
+class ProductRepriceServiceTest {
+
+    @Autowired private ProductRepriceService repriceService;
+    @Autowired private ProductRepository productRepository;
+
+    private Product yerba;
+    private Product mate;
+    private Product cafe;
+
+    @BeforeEach
+    void setUp() {
+        yerba = product("YER-1KG", "Almacén", "1000.00", "30.00", "1300.00");
+        mate = product("MAT-001", "almacén", "333.33", null, "500.00");
+        cafe = product("CAF-001", "Bebidas", "800.00", "50.00", "1200.00");
+        product("ACE-001", "Almacén", "2000.00", "10.00", "2200.00");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void dryRun_muestraLosPreciosSinModificar() {
+        RepriceResult result = repriceService.reprice(rule("almacén", "10", true));
+
+        assertThat(result.dryRun()).isTrue();
+        assertThat(result.matched()).isEqualTo(3);
+        assertThat(result.updated()).isZero();
+        assertThat(result.preview()).hasSize(3);
+
+        RepriceResult.Change first = result.preview().get(0);
+        assertThat(first.sku()).isEqualTo("YER-1KG");
+        assertThat(first.newCostPrice()).isEqualByComparingTo("1100.00");
+        assertThat(first.newSalePrice()).isEqualByComparingTo("1430.00");
+
+        assertThat(productRepository.findById(yerba.getId()).orElseThrow().getCostPrice())
+                .isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    void reprice_actualizaPorBloquesYSubeVersion() {
+        long versionBefore = productRepository.findById(yerba.getId()).orElseThrow().getVersion();
+
+        RepriceResult result = repriceService.reprice(rule("ALMACÉN", "10", false));
+
+        assertThat(result.matched()).isEqualTo(3);
+        assertThat(result.updated()).isEqualTo(3);
+
+        Product y = productRepository.findById(yerba.getId()).orElseThrow();
+        assertThat(y.getCostPrice()).isEqualByComparingTo("1100.00");
+        assertThat(y.getSalePrice()).isEqualByComparingTo("1430.00");
+        assertThat(y.getVersion()).isEqualTo(versionBefore + 1);
+
+        // sin margen: el precio de venta sube el mismo porcentaje; redondeo a 2 decimales
+        Product m = productRepository.findById(mate.getId()).orElseThrow();
+        assertThat(m.getCostPrice()).isEqualByComparingTo("366.66");
+        assertThat(m.getSalePrice()).isEqualByComparingTo("550.00");
+
+        // otra categoría: sin cambios
+        assertThat(productRepository.findById(cafe.getId()).orElseThrow().getCostPrice())
+                .isEqualByComparingTo("800.00");
+    }
+
+    @Test
+    void reprice_sinRecalcularVenta() {
+        RepriceRequest req = rule(null, "-20", false);
+        req.setRecomputeSalePrice(false);
+
+        RepriceResult result = repriceService.reprice(req);
+
+        assertThat(result.updated()).isEqualTo(4);
+        Product c = productRepository.findById(cafe.getId()).orElseThrow();
+        assertThat(c.getCostPrice()).isEqualByComparingTo("640.00");
+        assertThat(c.getSalePrice()).isEqualByComparingTo("1200.00");
+    }
+
+    private static RepriceRequest rule(String category, String percent, boolean dryRun) {
+        RepriceRequest req = new RepriceRequest();
+        req.setCategory(category);
+        req.setCostChangePercent(new BigDecimal(percent));
+        req.setDryRun(dryRun);
+        return req;
+    }
+
+    private Product product(String sku, String category, String cost, String margin, String sale) {
+        Product p = new Product(sku, sku, new BigDecimal(cost), new BigDecimal(sale), 10, 1);
+        p.setCategory(category);
+        if (margin != null) p.setProfitMargin(new BigDecimal(margin));
+        return productRepository.save(p);
+    }
+}
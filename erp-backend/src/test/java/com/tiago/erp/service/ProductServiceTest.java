@@ -1,6 +1,7 @@
 package com.tiago.erp.service;
 
 import com.tiago.erp.dto.product.ProductRequest;
+import com.tiago.erp.event.ProductChangedEvent;
 import com.tiago.erp.model.Product;
 import com.tiago.erp.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,38 +9,41 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 class ProductServiceTest {
 
     private ProductRepository productRepository;
+    private ApplicationEventPublisher events;
     private ProductService service;
 
     @BeforeEach
     void setUp() {
         productRepository = Mockito.mock(ProductRepository.class);
-        service = new ProductService(productRepository);
+        events = Mockito.mock(ApplicationEventPublisher.class);
+        service = new ProductService(productRepository, events, new TextSearch(false));
     }
 
     @Test
     @DisplayName("create(): copia campos del DTO y guarda")
     void create_ok() {
-        ProductRequest req = new ProductRequest();
-        req.setName("Yerba 1Kg");
-        req.setSku("YER-1KG");
-        req.setPrice(new BigDecimal("3500.00"));
-        req.setStock(20);
-        req.setActive(true);
+        ProductRequest req = request("Yerba 1Kg", "YER-1KG", 20);
+        req.setCostPrice(new BigDecimal("2500.00"));
+        req.setSalePrice(new BigDecimal("3500.00"));
+        req.setStockMin(5);
+        req.setBarcode(" 7790001000011 ");
 
         ArgumentCaptor<Product> captor = ArgumentCaptor.forClass(Product.class);
         when(productRepository.save(any(Product.class))).thenAnswer(inv -> {
             Product p = inv.getArgument(0);
-            try { Product.class.getMethod("setId", Long.class).invoke(p, 1L); } catch (Exception ignored) {}
+            p.setId(1L);
             return p;
         });
 
@@ -47,68 +51,76 @@ class ProductServiceTest {
 
         verify(productRepository, times(1)).save(captor.capture());
         Product toSave = captor.getValue();
-
-        // Chequeos “best-effort”: si la entidad no tiene esos setters, no rompe
-        assertThat(getString(toSave, "getName")).isEqualTo("Yerba 1Kg");
-        assertThat(getString(toSave, "getSku")).isEqualTo("YER-1KG");
-        assertThat(getBigDecimal(toSave, "getPrice")).isEqualByComparingTo("3500.00");
-        assertThat(getInteger(toSave, "getStock")).isEqualTo(20);
-        assertThat(getBoolean(toSave, "getActive")).isTrue();
-        assertThat(getLong(saved, "getId")).isEqualTo(1L);
+        assertThat(toSave.getName()).isEqualTo("Yerba 1Kg");
+        assertThat(toSave.getSku()).isEqualTo("YER-1KG");
+        assertThat(toSave.getCostPrice()).isEqualByComparingTo("2500.00");
+        assertThat(toSave.getSalePrice()).isEqualByComparingTo("3500.00");
+        assertThat(toSave.getStock()).isEqualTo(20);
+        assertThat(toSave.getStockMin()).isEqualTo(5);
+        assertThat(toSave.getBarcode()).isEqualTo("7790001000011");
+        assertThat(saved.getId()).isEqualTo(1L);
+        verify(events).publishEvent(any(ProductChangedEvent.class));
     }
 
     @Test
     @DisplayName("update(): encuentra por id, copia campos del DTO y guarda")
     void update_ok() {
         Product existing = new Product();
-        try { Product.class.getMethod("setId", Long.class).invoke(existing, 5L); } catch (Exception ignored) {}
+        existing.setId(5L);
+        existing.setVersion(3L);
         when(productRepository.findById(5L)).thenReturn(Optional.of(existing));
         when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        ProductRequest req = new ProductRequest();
-        req.setName("Café");
-        req.setSku("CAF-001");
-        req.setPrice(new BigDecimal("1200"));
-        req.setStock(7);
-        req.setActive(true);
+        ProductRequest req = request("Café", "CAF-001", 7);
+        req.setSalePrice(new BigDecimal("1200"));
+        req.setBarcode("   ");
 
         Product saved = service.update(5L, req);
 
-        assertThat(getString(saved, "getName")).isEqualTo("Café");
-        assertThat(getString(saved, "getSku")).isEqualTo("CAF-001");
-        assertThat(getBigDecimal(saved, "getPrice")).isEqualByComparingTo("1200");
-        assertThat(getInteger(saved, "getStock")).isEqualTo(7);
-        assertThat(getBoolean(saved, "getActive")).isTrue();
+        assertThat(saved.getId()).isEqualTo(5L);
+        assertThat(saved.getVersion()).isEqualTo(3L);
+        assertThat(saved.getName()).isEqualTo("Café");
+        assertThat(saved.getSku()).isEqualTo("CAF-001");
+        assertThat(saved.getSalePrice()).isEqualByComparingTo("1200");
+        assertThat(saved.getStock()).isEqualTo(7);
+        assertThat(saved.getBarcode()).isNull();
     }
 
     @Test
-    @DisplayName("delete(): intenta soft-delete con active=false y guarda; si no, delete()")
-    void delete_soft_or_hard_ok() {
+    @DisplayName("update(): rechaza un código de barras de otro producto")
+    void update_barcodeRepetido() {
+        when(productRepository.findById(5L)).thenReturn(Optional.of(new Product()));
+        when(productRepository.existsByBarcodeAndIdNot("7790001000011", 5L)).thenReturn(true);
+
+        ProductRequest req = request("Café", "CAF-001", 7);
+        req.setBarcode("7790001000011");
+
+        assertThatThrownBy(() -> service.update(5L, req)).isInstanceOf(IllegalArgumentException.class);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    @DisplayName("delete(): borrado físico y evento de producto borrado")
+    void delete_ok() {
         Product existing = new Product();
         when(productRepository.findById(10L)).thenReturn(Optional.of(existing));
-        when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
 
         service.delete(10L);
 
-        // Puede haber guardado (soft-delete) o eliminado; verificamos que llamó al menos a uno
-        verify(productRepository, atLeast(0)).save(any(Product.class));
-        verify(productRepository, atLeast(0)).delete(any(Product.class));
+        verify(productRepository).delete(existing);
+        verify(productRepository, never()).save(any(Product.class));
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(events).publishEvent(event.capture());
+        assertThat(event.getValue().isDeleted()).isTrue();
     }
 
-    // --- helpers via reflexión para no acoplar a campos exactos ---
-    private String getString(Object o, String getter) {
-        try { return (String) o.getClass().getMethod(getter).invoke(o); } catch (Exception e) { return null; }
-    }
-    private Long getLong(Object o, String getter) {
-        try { return (Long) o.getClass().getMethod(getter).invoke(o); } catch (Exception e) { return null; }
-    }
-    private Integer getInteger(Object o, String getter) {
-        try { return (Integer) o.getClass().getMethod(getter).invoke(o); } catch (Exception e) { return null; }
-    }
-    private Boolean getBoolean(Object o, String getter) {
-        try { return (Boolean) o.getClass().getMethod(getter).invoke(o); } catch (Exception e) { return null; }
-    }
-    private BigDecimal getBigDecimal(Object o, String getter) {
-        try { return (BigDecimal) o.getClass().getMethod(getter).invoke(o); } catch (Exception e) { return null; }
+    private static ProductRequest request(String name, String sku, int stock) {
+        ProductRequest req = new ProductRequest();
+        req.setName(name);
+        req.setSku(sku);
+        req.setPrice(BigDecimal.ZERO);
+        req.setStock(stock);
+        req.setActive(true);
+        return req;
     }
 }
@@ -0,0 +1,114 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.product.ProductSuggestion;
+import com.tiago.erp.event.ProductChangedEvent;
+import com.tiago.erp.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class ProductSuggestIndexTest {
+
+    private ProductSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository repo = Mockito.mock(ProductRepository.class);
+        when(repo.findAllSuggestions()).thenReturn(List.of(
+                product(1L, "Yerba Mate 1Kg", "YER-1KG", "7790001000011"),
+                product(2L, "Yerba Mate 500g", "YER-500", "7790001000028"),
+                product(3L, "Azúcar Común 1Kg", "AZU-1KG", null),
+                product(4L, "Mate de calabaza", "MAT-CAL", null),
+                product(5L, "Café Molido", "CAF-250", "7790002000010")
+        ));
+        index = new ProductSuggestIndex(repo);
+        index.rebuild();
+    }
+
+    @Test
+    void suggest_porPrefijoDeNombre() {
+        assertThat(ids(index.suggest("yer", 10))).containsExactly(1L, 2L);
+        assertThat(ids(index.suggest("y", 10))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void suggest_sinAcentosYVariasPalabras() {
+        assertThat(ids(index.suggest("azucar", 10))).containsExactly(3L);
+        assertThat(ids(index.suggest("CAFE mol", 10))).containsExactly(5L);
+        assertThat(ids(index.suggest("mate 500", 10))).containsExactly(2L);
+    }
+
+    @Test
+    void suggest_porSkuYCodigo() {
+        assertThat(ids(index.suggest("yer1kg", 10))).containsExactly(1L);
+        assertThat(ids(index.suggest("7790002", 10))).containsExactly(5L);
+        // 1kg aparece en dos nombres y en dos SKUs
+        assertThat(ids(index.suggest("1kg", 10))).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void suggest_ordenaPorRelevanciaYRespetaLimite() {
+        // "Mate de calabaza" empieza con "mate"; las yerbas sólo lo contienen como palabra
+        assertThat(ids(index.suggest("mate", 10))).containsExactly(4L, 1L, 2L);
+        assertThat(ids(index.suggest("mate", 1))).containsExactly(4L);
+        // substring en medio de una palabra: último nivel
+        assertThat(ids(index.suggest("ate", 10))).containsExactlyInAnyOrder(1L, 2L, 4L);
+    }
+
+    @Test
+    void suggest_vacioSinTexto() {
+        assertThat(index.suggest("", 10)).isEmpty();
+        assertThat(index.suggest("  - ", 10)).isEmpty();
+        assertThat(index.suggest("zzz", 10)).isEmpty();
+    }
+
+    @Test
+    void onProductChanged_actualizaYBorra() {
+        index.onProductChanged(new ProductChangedEvent(1L, product(1L, "Té Verde", "TEV-20", null)));
+        assertThat(ids(index.suggest("yer", 10))).containsExactly(2L);
+        assertThat(ids(index.suggest("te verde", 10))).containsExactly(1L);
+
+        index.onProductChanged(new ProductChangedEvent(6L, product(6L, "Yerba Suave", "YER-SUA", null)));
+        assertThat(ids(index.suggest("yer", 10))).containsExactly(6L, 2L); // nombre más corto primero
+
+        index.onProductChanged(ProductChangedEvent.deleted(2L));
+        assertThat(ids(index.suggest("yer", 10))).containsExactly(6L);
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void rebuild_noPierdeCambiosConfirmadosDuranteLaLectura() {
+        ProductRepository repo = Mockito.mock(ProductRepository.class);
+        ProductSuggestIndex idx = new ProductSuggestIndex(repo);
+        when(repo.findAllSuggestions()).thenAnswer(inv -> {
+            // se confirman mientras la consulta ya leyó la tabla
+            idx.onProductChanged(new ProductChangedEvent(7L, product(7L, "Galletitas Dulces", "GAL-DUL", null)));
+            idx.onProductChanged(new ProductChangedEvent(1L, product(1L, "Yerba Barbacua", "YER-1KG", null)));
+            idx.onProductChanged(ProductChangedEvent.deleted(5L));
+            return List.of(
+                    product(1L, "Yerba Mate 1Kg", "YER-1KG", null),
+                    product(5L, "Café Molido", "CAF-250", null));
+        });
+
+        idx.rebuild();
+
+        assertThat(ids(idx.suggest("galle", 10))).containsExactly(7L);
+        assertThat(ids(idx.suggest("barbacua", 10))).containsExactly(1L);
+        assertThat(idx.suggest("cafe", 10)).isEmpty();
+        assertThat(idx.size()).isEqualTo(2);
+    }
+
+    private static ProductSuggestion product(Long id, String name, String sku, String barcode) {
+        return new ProductSuggestion(id, name, sku, barcode, null, new BigDecimal("100.00"));
+    }
+
+    private static List<Long> ids(List<ProductSuggestion> list) {
+        return list.stream().map(ProductSuggestion::id).toList();
+    }
+}
@@ -0,0 +1,104 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.CreateSaleItemRequest;
+import com.tiago.erp.dto.CreateSaleRequest;
+import com.tiago.erp.dto.SaleBatchResponse;
+import com.tiago.erp.dto.SaleBatchResult;
+import com.tiago.erp.model.InvoiceType;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.repository.CustomerRepository;
+import com.tiago.erp.repository.DailySalesRollupRepository;
+import com.tiago.erp.repository.ProductRepository;
+import com.tiago.erp.repository.SaleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true")
+@Import({SaleBatchService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // cada bloque abre su propia transacción
+class SaleBatchServiceTest {
+
+    @Autowired private SaleBatchService batchService;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private CustomerRepository customerRepository;
+    @Autowired private SaleRepository saleRepository;
+    @Autowired private DailySalesRollupRepository rollupRepository;
+
+    @AfterEach
+    void cleanUp() {
+        rollupRepository.deleteAll();
+        saleRepository.deleteAll();
+        productRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    void createSales_resultadoPorVentaSinCortarElLote() {
+        Product yerba = productRepository.save(new Product("Yerba 1Kg", "YER-1KG",
+                new BigDecimal("2000.00"), new BigDecimal("3500.00"), 5, 1));
+
+        List<CreateSaleRequest> batch = List.of(
+                sale("Juan", item(yerba.getId(), 2)),                 // ok
+                sale("juan", item(yerba.getId(), 2)),                 // ok, mismo cliente
+                sale("Ana", item(yerba.getId(), 2)),                  // sin stock: quedan 1
+                sale("Ana", item(999_999L, 1)),                       // producto inexistente
+                sale("Ana"),                                          // sin ítems
+                facturaASinCliente(item(yerba.getId(), 1)),           // Factura A sin cliente
+                sale("Ana", item(yerba.getId(), 1)));                 // ok, usa la unidad restante
+
+        SaleBatchResponse resp = batchService.createSales(batch);
+
+        assertThat(resp.received()).isEqualTo(7);
+        assertThat(resp.created()).isEqualTo(3);
+        assertThat(resp.failed()).isEqualTo(4);
+        assertThat(resp.results()).extracting(SaleBatchResult::status).containsExactly(
+                "CREATED", "CREATED", "FAILED", "FAILED", "FAILED", "FAILED", "CREATED");
+        assertThat(resp.results().get(2).error()).contains("Stock insuficiente");
+        assertThat(resp.results().get(3).error()).contains("Producto no encontrado");
+        assertThat(resp.results()).filteredOn(r -> r.status().equals("CREATED"))
+                .allSatisfy(r -> assertThat(r.saleId()).isNotNull());
+
+        assertThat(productRepository.findById(yerba.getId()).orElseThrow().getStock()).isZero();
+        assertThat(saleRepository.count()).isEqualTo(3);
+        // "Juan" y "juan" resuelven al mismo cliente nuevo
+        assertThat(customerRepository.count()).isEqualTo(2);
+
+        // el rollup suma sólo las ventas creadas
+        assertThat(rollupRepository.findAll()).singleElement().satisfies(r -> {
+            assertThat(r.getSaleCount()).isEqualTo(3);
+            assertThat(r.getUnits()).isEqualTo(5);
+            assertThat(r.getSubtotal()).isEqualByComparingTo("17500.00");
+        });
+    }
+
+    @Test
+    void createSales_loteVacio() {
+        assertThatThrownBy(() -> batchService.createSales(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CreateSaleItemRequest item(Long productId, int qty) {
+        return new CreateSaleItemRequest(productId, qty);
+    }
+
+    private static CreateSaleRequest sale(String customerName, CreateSaleItemRequest... items) {
+        return new CreateSaleRequest(customerName, List.of(items));
+    }
+
+    private static CreateSaleRequest facturaASinCliente(CreateSaleItemRequest... items) {
+        CreateSaleRequest req = new CreateSaleRequest(null, List.of(items));
+        req.setInvoiceType(InvoiceType.A);
+        return req;
+    }
+}
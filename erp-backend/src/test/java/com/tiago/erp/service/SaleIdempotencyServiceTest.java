@@ -0,0 +1,141 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.CreateSaleItemRequest;
+import com.tiago.erp.dto.CreateSaleRequest;
+import com.tiago.erp.dto.SaleResponse;
+import com.tiago.erp.exception.IdempotencyConflictException;
+import com.tiago.erp.model.IdempotencyRecord;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.repository.CustomerRepository;
+import com.tiago.erp.repository.IdempotencyRecordRepository;
+import com.tiago.erp.repository.ProductRepository;
+import com.tiago.erp.repository.SaleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({SaleService.class, SalesRollupService.class, SaleIdempotencyService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // el servicio maneja sus transacciones
+class SaleIdempotencyServiceTest {
+
+    @Autowired private SaleIdempotencyService idempotency;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private CustomerRepository customerRepository;
+    @Autowired private SaleRepository saleRepository;
+    @Autowired private IdempotencyRecordRepository recordRepository;
+
+    private Product yerba;
+
+    @BeforeEach
+    void setUp() {
+        yerba = productRepository.save(new Product("Yerba 1Kg", "YER-1KG",
+                new BigDecimal("2000.00"), new BigDecimal("3500.00"), 10, 1));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        recordRepository.deleteAll();
+        saleRepository.deleteAll();
+        productRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    void createSale_reintentoDevuelveLaMismaVenta() {
+        SaleResponse first = idempotency.createSale("ana", "k-1", sale(2));
+        SaleResponse retry = idempotency.createSale("ana", "k-1", sale(2));
+
+        assertThat(retry.getSaleId()).isEqualTo(first.getSaleId());
+        assertThat(retry.getTotal()).isEqualTo(7000.0);
+        assertThat(saleRepository.count()).isEqualTo(1);
+        assertThat(stock()).isEqualTo(8);
+        assertThat(recordRepository.findById(new IdempotencyRecord.Key("ana", "k-1"))).get()
+                .satisfies(r -> assertThat(r.getSaleId()).isEqualTo(first.getSaleId()));
+    }
+
+    @Test
+    void createSale_mismaClaveDeOtroUsuarioCreaOtraVenta() {
+        SaleResponse ana = idempotency.createSale("ana", "pos-1", sale(1));
+        SaleResponse beto = idempotency.createSale("beto", "pos-1", sale(1));
+
+        assertThat(beto.getSaleId()).isNotEqualTo(ana.getSaleId());
+        assertThat(saleRepository.count()).isEqualTo(2);
+        assertThat(stock()).isEqualTo(8);
+    }
+
+    @Test
+    void createSale_mismaClaveOtroCuerpo() {
+        idempotency.createSale("ana", "k-2", sale(1));
+
+        assertThatThrownBy(() -> idempotency.createSale("ana", "k-2", sale(3)))
+                .isInstanceOf(IdempotencyConflictException.class)
+                .extracting("code").isEqualTo("IDEMPOTENCY_KEY_REUSED");
+        assertThat(stock()).isEqualTo(9);
+    }
+
+    @Test
+    void createSale_duplicadosConcurrentesEsperanAlPrimero() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SaleResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return idempotency.createSale("ana", "k-3", sale(1));
+            }));
+        }
+        start.countDown();
+
+        Long saleId = null;
+        for (Future<SaleResponse> f : futures) {
+            SaleResponse r = f.get(30, TimeUnit.SECONDS);
+            if (saleId == null) saleId = r.getSaleId();
+            assertThat(r.getSaleId()).isEqualTo(saleId);
+        }
+        pool.shutdown();
+
+        assertThat(saleRepository.count()).isEqualTo(1);
+        assertThat(stock()).isEqualTo(9);
+    }
+
+    @Test
+    void createSale_errorNoQuedaGuardado() {
+        assertThatThrownBy(() -> idempotency.createSale("ana", "k-4", sale(50)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Stock insuficiente");
+        assertThat(recordRepository.findById(new IdempotencyRecord.Key("ana", "k-4"))).isEmpty();
+
+        yerba.setStock(100);
+        yerba = productRepository.save(yerba);
+
+        SaleResponse ok = idempotency.createSale("ana", "k-4", sale(50));
+        assertThat(ok.getSaleId()).isNotNull();
+        assertThat(stock()).isEqualTo(50);
+    }
+
+    private CreateSaleRequest sale(int qty) {
+        return new CreateSaleRequest("Juan Pérez", List.of(new CreateSaleItemRequest(yerba.getId(), qty)));
+    }
+
+    private int stock() {
+        return productRepository.findById(yerba.getId()).orElseThrow().getStock();
+    }
+}
@@ -3,6 +3,7 @@ package com.tiago.erp.service;
 import com.tiago.erp.dto.CreateSaleItemRequest;
 import com.tiago.erp.dto.CreateSaleRequest;
 import com.tiago.erp.dto.SaleResponse;
+import com.tiago.erp.event.SaleCreatedEvent;
 import com.tiago.erp.model.Customer;
 import com.tiago.erp.model.Product;
 import com.tiago.erp.repository.ProductRepository;
@@ -10,11 +11,11 @@ import com.tiago.erp.repository.SaleRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -56,12 +57,13 @@ class SaleServiceTest {
         p.setStock(10);
         p.setStockMin(1);
 
-        when(productRepo.findById(1L)).thenReturn(Optional.of(p));
+        when(productRepo.findAllByIdInForUpdate(anyCollection())).thenReturn(List.of(p));
         when(productRepo.save(any(Product.class))).thenAnswer(a -> a.getArgument(0));
         when(saleRepo.save(any())).thenAnswer(a -> a.getArgument(0));
 
         // Service bajo prueba
-        var svc = new SaleService(saleRepo, productRepo);
+        var events = mock(ApplicationEventPublisher.class);
+        var svc = new SaleService(saleRepo, productRepo, mock(SalesRollupService.class), events);
 
         // Inyectamos el EntityManager privado via reflexión
         try {
@@ -81,7 +83,9 @@ class SaleServiceTest {
 
         assertThat(resp.getTotal()).isEqualTo(7000.0);
         assertThat(p.getStock()).isEqualTo(8); // 10 - 2
-        verify(productRepo, times(1)).save(any(Product.class));
+        // el stock se descuenta sobre el producto bloqueado (una sola consulta)
+        verify(productRepo, times(1)).findAllByIdInForUpdate(anyCollection());
         verify(saleRepo, times(1)).save(any());
+        verify(events).publishEvent(any(SaleCreatedEvent.class));
     }
 }
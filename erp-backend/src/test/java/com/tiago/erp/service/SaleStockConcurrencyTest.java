@@ -0,0 +1,114 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.CreateSaleItemRequest;
+import com.tiago.erp.dto.CreateSaleRequest;
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.InvoiceType;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.repository.CustomerRepository;
+import com.tiago.erp.repository.ProductRepository;
+import com.tiago.erp.repository.SaleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Varios vendedores sobre el mismo producto a la vez: con la reserva por
+ * SELECT ... FOR UPDATE ninguna venta falla por concurrencia y el stock final
+ * cuadra exactamente.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.datasource.url=jdbc:h2:mem:stocklock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=20000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SaleService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SaleStockConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SaleStockConcurrencyTest.class);
+
+    private static final int SELLERS = 8;
+    private static final int SALES_PER_SELLER = 15;
+
+    @Autowired private SaleService saleService;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private CustomerRepository customerRepository;
+    @Autowired private SaleRepository saleRepository;
+
+    @AfterEach
+    void cleanUp() {
+        saleRepository.deleteAll();
+        productRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    void createSale_vendedoresConcurrentesSobreElMismoProducto() throws Exception {
+        Product hot = productRepository.save(new Product("Yerba 1Kg", "YER-1KG",
+                new BigDecimal("2000.00"), new BigDecimal("3500.00"), 1000, 1));
+        Product other = productRepository.save(new Product("Café 500g", "CAF-500",
+                new BigDecimal("1600.00"), new BigDecimal("2800.00"), 1000, 1));
+        Customer customer = new Customer();
+        customer.setName("Juan Pérez");
+        customer = customerRepository.save(customer);
+        Long customerId = customer.getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(SELLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int s = 0; s < SELLERS; s++) {
+            // la mitad de los vendedores pide los productos en orden inverso
+            boolean reversed = s % 2 == 1;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < SALES_PER_SELLER; i++) {
+                    List<CreateSaleItemRequest> items = reversed
+                            ? List.of(new CreateSaleItemRequest(other.getId(), 1), new CreateSaleItemRequest(hot.getId(), 2))
+                            : List.of(new CreateSaleItemRequest(hot.getId(), 2), new CreateSaleItemRequest(other.getId(), 1));
+                    CreateSaleRequest req = new CreateSaleRequest(null, items);
+                    req.setCustomerId(customerId);
+                    req.setInvoiceType(InvoiceType.B);
+                    try {
+                        saleService.createSale(req);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        log.warn("venta fallida", e);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        pool.shutdown();
+
+        int total = SELLERS * SALES_PER_SELLER;
+        log.info("{} ventas concurrentes ({} vendedores) en {} ms", total, SELLERS, elapsedMs);
+
+        assertThat(failures.get()).isZero();
+        assertThat(saleRepository.count()).isEqualTo(total);
+        assertThat(productRepository.findById(hot.getId()).orElseThrow().getStock()).isEqualTo(1000 - 2 * total);
+        assertThat(productRepository.findById(other.getId()).orElseThrow().getStock()).isEqualTo(1000 - total);
+    }
+}
@@ -0,0 +1,143 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.report.SalesSeriesResponse;
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.DailySalesRollup;
+import com.tiago.erp.model.InvoiceType;
+import com.tiago.erp.model.PaymentMethod;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.model.Sale;
+import com.tiago.erp.model.SaleItem;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true")
+@Import(SalesAnalyticsService.class)
+class SalesAnalyticsServiceTest {
+
+    @Autowired private SalesAnalyticsService analytics;
+    @Autowired private EntityManager em;
+
+    @Test
+    void series_porSemanaYMedioDePago() {
+        rollup(LocalDate.of(2025, 3, 3), PaymentMethod.EFECTIVO, 2, "100.00");   // lunes
+        rollup(LocalDate.of(2025, 3, 5), PaymentMethod.DEBITO, 1, "50.00");
+        rollup(LocalDate.of(2025, 3, 10), PaymentMethod.EFECTIVO, 1, "30.00");   // lunes siguiente
+        rollup(LocalDate.of(2025, 3, 20), PaymentMethod.EFECTIVO, 9, "999.00");  // fuera de rango
+        em.flush();
+
+        SalesSeriesResponse r = analytics.series(LocalDate.of(2025, 3, 3), LocalDate.of(2025, 3, 12),
+                SalesAnalyticsService.Bucket.WEEK, SalesAnalyticsService.GroupBy.PAYMENT_METHOD);
+
+        assertThat(r.buckets()).containsExactly(LocalDate.of(2025, 3, 3), LocalDate.of(2025, 3, 10));
+        assertThat(r.series()).extracting(SalesSeriesResponse.Series::key).containsExactly("DEBITO", "EFECTIVO");
+        SalesSeriesResponse.Series efectivo = r.series().get(1);
+        assertThat(efectivo.counts()).containsExactly(2, 1);
+        assertThat(efectivo.totals()[0]).isEqualByComparingTo("100.00");
+        assertThat(efectivo.totals()[1]).isEqualByComparingTo("30.00");
+        assertThat(r.series().get(0).counts()).containsExactly(1, 0);
+    }
+
+    @Test
+    void series_porDiaRellenaDiasSinVentas() {
+        rollup(LocalDate.of(2025, 3, 3), PaymentMethod.EFECTIVO, 2, "100.00");
+        rollup(LocalDate.of(2025, 3, 3), PaymentMethod.DEBITO, 1, "50.00");
+        rollup(LocalDate.of(2025, 3, 6), PaymentMethod.EFECTIVO, 1, "30.00");
+        em.flush();
+
+        SalesSeriesResponse r = analytics.series(LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 6),
+                SalesAnalyticsService.Bucket.DAY, SalesAnalyticsService.GroupBy.NONE);
+
+        assertThat(r.buckets()).hasSize(5);
+        assertThat(r.series()).singleElement().satisfies(s -> {
+            assertThat(s.key()).isEqualTo("ALL");
+            assertThat(s.counts()).containsExactly(0, 3, 0, 0, 1);
+            assertThat(s.totals()[1]).isEqualByComparingTo("150.00");
+        });
+    }
+
+    @Test
+    void series_porMesYCategoria() {
+        Product yerba = product("Yerba", "Almacén");
+        Product lavandina = product("Lavandina", null);
+        Customer c = new Customer();
+        c.setName("Juan");
+        em.persist(c);
+
+        sale(c, LocalDateTime.of(2025, 3, 1, 10, 0), yerba, 2, lavandina, 1);
+        sale(c, LocalDateTime.of(2025, 3, 31, 23, 30), yerba, 1, null, 0);
+        sale(c, LocalDateTime.of(2025, 4, 2, 9, 0), yerba, 3, null, 0);
+        sale(c, LocalDateTime.of(2025, 4, 30, 9, 0), yerba, 5, null, 0); // fuera de rango
+        em.flush();
+
+        SalesSeriesResponse r = analytics.series(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 15),
+                SalesAnalyticsService.Bucket.MONTH, SalesAnalyticsService.GroupBy.CATEGORY);
+
+        assertThat(r.buckets()).containsExactly(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 1));
+        assertThat(r.series()).extracting(SalesSeriesResponse.Series::key)
+                .containsExactly("Almacén", SalesAnalyticsService.NO_CATEGORY);
+        SalesSeriesResponse.Series almacen = r.series().get(0);
+        assertThat(almacen.counts()).containsExactly(2, 1);
+        assertThat(almacen.units()).containsExactly(3, 3);
+        assertThat(almacen.totals()[0]).isEqualByComparingTo("300.00");
+        assertThat(r.series().get(1).counts()).containsExactly(1, 0);
+    }
+
+    @Test
+    void series_validaRangoYParametros() {
+        assertThatThrownBy(() -> analytics.series(LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 1),
+                SalesAnalyticsService.Bucket.DAY, SalesAnalyticsService.GroupBy.NONE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> analytics.series(LocalDate.of(2000, 1, 1), LocalDate.of(2025, 1, 1),
+                SalesAnalyticsService.Bucket.DAY, SalesAnalyticsService.GroupBy.NONE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SalesAnalyticsService.GroupBy.parse("customer"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void rollup(LocalDate day, PaymentMethod pm, long count, String total) {
+        DailySalesRollup row = new DailySalesRollup(new DailySalesRollup.Key(day, pm, InvoiceType.B));
+        row.setSaleCount(count);
+        row.setSubtotal(new BigDecimal(total));
+        row.setTotal(new BigDecimal(total));
+        row.setUnits(count);
+        em.persist(row);
+    }
+
+    private Product product(String name, String category) {
+        Product p = new Product(name, name.toUpperCase(), new BigDecimal("50.00"), new BigDecimal("100.00"), 100, 1);
+        p.setCategory(category);
+        em.persist(p);
+        return p;
+    }
+
+    private void sale(Customer c, LocalDateTime at, Product p1, int q1, Product p2, int q2) {
+        Sale s = new Sale();
+        s.setCustomer(c);
+        s.setCreatedAt(at);
+        s.addItem(item(p1, q1));
+        if (p2 != null) s.addItem(item(p2, q2));
+        s.setSubtotal(BigDecimal.ZERO);
+        s.setTotal(BigDecimal.ZERO);
+        em.persist(s);
+    }
+
+    private static SaleItem item(Product p, int qty) {
+        SaleItem si = new SaleItem();
+        si.setProduct(p);
+        si.setQuantity(qty);
+        si.setUnitPrice(p.getSalePrice());
+        si.setSubtotal(p.getSalePrice().multiply(BigDecimal.valueOf(qty)));
+        return si;
+    }
+}
@@ -1,19 +1,23 @@
 package com.tiago.erp.service;
 
+import com.tiago.erp.dto.report.SaleExportRow;
 import com.tiago.erp.repository.SaleRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.nullable;
 
 class SalesExportServiceTest {
@@ -21,14 +25,14 @@ class SalesExportServiceTest {
     @Test
     void exportCsv_devuelveBytesYHeaders() {
         var repo = Mockito.mock(SaleRepository.class);
-        Mockito.when(repo.search(
+        Mockito.when(repo.streamForExport(
                         any(LocalDateTime.class),
                         any(LocalDateTime.class),
                         nullable(String.class),
-                        any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of())); // sin ventas
+                        anyInt()))
+                .thenReturn(Stream.empty()); // sin ventas
 
-        var svc = new SalesExportService(repo);
+        var svc = new SalesExportService(repo, Mockito.mock(PlatformTransactionManager.class));
 
         var resp = svc.exportCsv(LocalDate.now().minusDays(1), LocalDate.now(), null);
 
@@ -48,14 +52,14 @@ class SalesExportServiceTest {
     @Test
     void exportPdf_devuelveBytesYHeaders() {
         var repo = Mockito.mock(SaleRepository.class);
-        Mockito.when(repo.search(
+        Mockito.when(repo.streamForExport(
                         any(LocalDateTime.class),
                         any(LocalDateTime.class),
                         nullable(String.class),
-                        any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of()));
+                        anyInt()))
+                .thenReturn(Stream.empty());
 
-        var svc = new SalesExportService(repo);
+        var svc = new SalesExportService(repo, Mockito.mock(PlatformTransactionManager.class));
 
         var resp = svc.exportPdf(LocalDate.now().minusDays(1), LocalDate.now(), null);
 
@@ -70,4 +74,81 @@ class SalesExportServiceTest {
         byte[] body = Objects.requireNonNull(resp.getBody(), "PDF body no debería ser null");
         assertThat(body.length).isGreaterThan(0);
     }
+
+    @Test
+    void streamCsv_escribeFilasEnElStream() throws Exception {
+        var repo = Mockito.mock(SaleRepository.class);
+
+        var row = new SaleExportRow(
+                7L, LocalDateTime.of(2025, 3, 1, 10, 0), "Pérez, Juan", 1, new BigDecimal("7000.00"));
+
+        Mockito.when(repo.streamForExport(
+                        any(LocalDateTime.class),
+                        any(LocalDateTime.class),
+                        nullable(String.class),
+                        anyInt()))
+                .thenReturn(Stream.of(row));
+
+        var svc = new SalesExportService(repo, Mockito.mock(PlatformTransactionManager.class));
+
+        var resp = svc.streamCsv(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31), null);
+        assertThat(resp.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+                .contains("ventas_2025-03-01_2025-03-31.csv");
+
+        var out = new ByteArrayOutputStream();
+        Objects.requireNonNull(resp.getBody()).writeTo(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,fecha,cliente,items,total\n" +
+                "7,2025-03-01,\"Pérez, Juan\",1,7000.00\n");
+
+        // los filtros de fecha viajan a la consulta como [inicio, fin + 1 día)
+        Mockito.verify(repo).streamForExport(
+                LocalDateTime.of(2025, 3, 1, 0, 0),
+                LocalDateTime.of(2025, 4, 1, 0, 0),
+                null,
+                SalesExportService.EXPORT_CHUNK_SIZE);
+    }
+
+    @Test
+    void writePdf_dailyAgregaSubtotalesYVuelcaPorBloques() throws Exception {
+        var repo = Mockito.mock(SaleRepository.class);
+
+        // más filas que PDF_CHUNK_ROWS, repartidas en dos días
+        int perDay = SalesExportService.PDF_CHUNK_ROWS;
+        var rows = java.util.stream.IntStream.range(0, perDay * 2)
+                .mapToObj(i -> new SaleExportRow(
+                        (long) i + 1,
+                        LocalDateTime.of(2025, 3, 1 + i / perDay, 10, 0),
+                        "Cliente " + i,
+                        1,
+                        new BigDecimal("10.00")));
+
+        Mockito.when(repo.streamForExport(
+                        any(LocalDateTime.class),
+                        any(LocalDateTime.class),
+                        nullable(String.class),
+                        anyInt()))
+                .thenReturn(rows);
+
+        var svc = new SalesExportService(repo, Mockito.mock(PlatformTransactionManager.class));
+        var progress = new java.util.ArrayList<Long>();
+        var out = new ByteArrayOutputStream();
+
+        svc.writePdf(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 2), null,
+                SalesExportService.PdfLayout.DAILY, out, progress::add);
+
+        assertThat(progress).containsExactly((long) perDay, (long) perDay * 2, (long) perDay * 2);
+
+        var reader = new com.lowagie.text.pdf.PdfReader(out.toByteArray());
+        var extractor = new com.lowagie.text.pdf.parser.PdfTextExtractor(reader);
+        var text = new StringBuilder();
+        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+            text.append(extractor.getTextFromPage(page));
+        }
+        assertThat(text.toString())
+                .contains("Subtotal 2025-03-01")
+                .contains("Subtotal 2025-03-02")
+                .contains("Total (" + perDay * 2 + " ventas)");
+    }
 }
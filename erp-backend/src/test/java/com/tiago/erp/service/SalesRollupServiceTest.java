@@ -0,0 +1,109 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.dto.CreateSaleItemRequest;
+import com.tiago.erp.dto.CreateSaleRequest;
+import com.tiago.erp.model.Customer;
+import com.tiago.erp.model.PaymentMethod;
+import com.tiago.erp.model.Product;
+import com.tiago.erp.model.Sale;
+import com.tiago.erp.model.SaleItem;
+import com.tiago.erp.repository.DailySalesRollupRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true")
+@Import({SaleService.class, SalesRollupService.class, DashboardService.class})
+class SalesRollupServiceTest {
+
+    @Autowired private SaleService saleService;
+    @Autowired private SalesRollupService rollupService;
+    @Autowired private DashboardService dashboardService;
+    @Autowired private DailySalesRollupRepository rollupRepository;
+    @Autowired private EntityManager em;
+
+    private Product yerba;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        yerba = new Product("Yerba 1Kg", "YER-1KG",
+                new BigDecimal("2000.00"), new BigDecimal("3500.00"), 100, 1);
+        em.persist(yerba);
+    }
+
+    @Test
+    void createSale_actualizaElRollupDelDia() {
+        saleService.createSale(sale(PaymentMethod.EFECTIVO, 2));
+        saleService.createSale(sale(PaymentMethod.EFECTIVO, 1));
+        saleService.createSale(sale(PaymentMethod.DEBITO, 3));
+
+        // una fila por (día, medio de pago, comprobante)
+        assertThat(rollupRepository.count()).isEqualTo(2);
+
+        DailySalesRollupRepository.Totals t = rollupService.totals(today, today.plusDays(1));
+        assertThat(t.saleCount()).isEqualTo(3);
+        assertThat(t.units()).isEqualTo(6);
+        assertThat(t.subtotal()).isEqualByComparingTo("21000.00");
+        assertThat(t.total()).isEqualByComparingTo("21000.00");
+
+        var summary = dashboardService.summary();
+        assertThat(summary.last7DaysCount()).isEqualTo(3);
+        assertThat(summary.monthSalesTotal()).isEqualByComparingTo("21000.00");
+    }
+
+    @Test
+    void rebuild_recalculaDesdeVentasExistentes() {
+        saleService.createSale(sale(PaymentMethod.EFECTIVO, 2));
+
+        // venta cargada sin pasar por el servicio (p. ej. previa al rollup), con subtotal en 0
+        Customer c = new Customer();
+        c.setName("Histórico");
+        em.persist(c);
+        Sale old = new Sale();
+        old.setCustomer(c);
+        old.setCreatedAt(today.minusDays(3).atTime(10, 0));
+        old.setSubtotal(BigDecimal.ZERO);
+        old.setTotal(BigDecimal.ZERO);
+        SaleItem si = new SaleItem();
+        si.setProduct(yerba);
+        si.setQuantity(4);
+        si.setUnitPrice(new BigDecimal("3500.00"));
+        si.setSubtotal(new BigDecimal("14000.00"));
+        old.addItem(si);
+        em.persist(old);
+        em.flush();
+
+        assertThat(rollupService.totals(today.minusDays(3), today.minusDays(2)).saleCount()).isZero();
+
+        int rows = rollupService.rebuild();
+        em.clear();
+
+        assertThat(rows).isEqualTo(2);
+        DailySalesRollupRepository.Totals past = rollupService.totals(today.minusDays(3), today.minusDays(2));
+        assertThat(past.saleCount()).isEqualTo(1);
+        assertThat(past.units()).isEqualTo(4);
+        assertThat(past.subtotal()).isEqualByComparingTo("14000.00");
+        assertThat(past.total()).isEqualByComparingTo("14000.00");
+
+        DailySalesRollupRepository.Totals all = rollupService.totals(today.minusDays(7), today.plusDays(1));
+        assertThat(all.saleCount()).isEqualTo(2);
+        assertThat(all.units()).isEqualTo(6);
+        assertThat(all.subtotal()).isEqualByComparingTo("21000.00");
+    }
+
+    private CreateSaleRequest sale(PaymentMethod paymentMethod, int qty) {
+        CreateSaleRequest req = new CreateSaleRequest("Juan", List.of(new CreateSaleItemRequest(yerba.getId(), qty)));
+        req.setPaymentMethod(paymentMethod);
+        return req;
+    }
+}
@@ -0,0 +1,67 @@
+package com.tiago.erp.service;
+
+import com.tiago.erp.model.Product;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true")
+@Import({ProductService.class, TextSearch.class})
+class TextSearchTest {
+
+    @Autowired private ProductService productService;
+    @Autowired private EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        product("Yerba Mate Suave 1Kg", "YER-SUA");
+        product("Mate de calabaza", "MAT-CAL");
+        product("Yerba Mate", "YER-500");
+        product("Mate", "MAT-001");
+        product("Alfajor 100% cacao", "ALF_100");
+        em.flush();
+    }
+
+    @Test
+    void list_buscaPorNombreOSkuSinDistinguirMayusculas() {
+        var page = productService.list(0, 10, "name", "MATE", null, null, null);
+        assertThat(page.getTotalElements()).isEqualTo(4);
+
+        assertThat(productService.list(0, 10, null, "yer-", null, null, null).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void list_escapaComodinesDeLike() {
+        assertThat(productService.list(0, 10, null, "100%", null, null, null).getContent())
+                .extracting(Product::getName).containsExactly("Alfajor 100% cacao");
+        // "_" es literal: no matchea "YER-SUA" ni "MAT-CAL"
+        assertThat(productService.list(0, 10, null, "f_1", null, null, null).getContent())
+                .extracting(Product::getSku).containsExactly("ALF_100");
+        assertThat(productService.list(0, 10, null, "%", null, null, null).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void list_ordenaPorRelevancia() {
+        var page = productService.list(0, 10, TextSearch.RELEVANCE, "mate", null, null, null);
+
+        // exacto, prefijo (el más corto primero), el resto
+        assertThat(page.getContent()).extracting(Product::getName)
+                .containsExactly("Mate", "Mate de calabaza", "Yerba Mate", "Yerba Mate Suave 1Kg");
+    }
+
+    @Test
+    void escapeLike() {
+        assertThat(TextSearch.escapeLike("a%b_c\\d")).isEqualTo("a\\%b\\_c\\\\d");
+    }
+
+    private void product(String name, String sku) {
+        em.persist(new Product(name, sku, new BigDecimal("1.00"), new BigDecimal("2.00"), 10, 1));
+    }
+}
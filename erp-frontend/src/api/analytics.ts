@@ -26,18 +26,38 @@ export type Page<T> = {
   totalElements?: number
 }
 
+export type SeriesBucket = 'day' | 'week' | 'month'
+export type SeriesGroupBy = 'paymentMethod' | 'invoiceType' | 'category'
+
+export type SalesSeries = {
+  key: string        // valor del agrupamiento, o "ALL"
+  counts: number[]   // alineados con `buckets`
+  totals: number[]
+  units: number[]
+}
+
+export type SalesSeriesResponse = {
+  from: string
+  to: string
+  bucket: SeriesBucket
+  groupBy: string | null
+  buckets: string[]  // primer día de cada período (YYYY-MM-DD)
+  series: SalesSeries[]
+}
+
 /**
- * Descarga ventas en un rango de fechas [start, end] (YYYY-MM-DD),
- * devolviendo una página grande para calcular series por día en el front.
+ * Serie de ventas agregada en el backend para [from, to] (YYYY-MM-DD):
+ * arrays por bucket en lugar de descargar las ventas y sumarlas en el front.
  */
-export async function fetchSalesByDateRange(params: {
-  start: string
-  end: string
-  size?: number
+export async function fetchSalesSeries(params: {
+  from: string
+  to: string
+  bucket?: SeriesBucket
+  groupBy?: SeriesGroupBy
 }) {
-  const { start, end, size = 200 } = params
-  const r = await api.get<Page<Sale>>('/sales', {
-    params: { startDate: start, endDate: end, page: 0, size, sort: 'createdAt,desc' }
+  const { from, to, bucket = 'day', groupBy } = params
+  const r = await api.get<SalesSeriesResponse>('/analytics/sales/series', {
+    params: { from, to, bucket, groupBy }
   })
   return r.data
 }
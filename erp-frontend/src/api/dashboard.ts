@@ -1,4 +1,5 @@
 import  api  from './client'
+import { API_BASE_URL } from '../config'
 
 export type DashboardSummary = {
   monthSalesCount: number
@@ -11,3 +12,64 @@ export async function fetchDashboardSummary() {
   const r = await api.get<DashboardSummary>('/dashboard/summary')
   return r.data
 }
+
+export type DashboardUpdate = {
+  summary: DashboardSummary
+  delta: DashboardSummary | null // null en el primer evento de la conexión
+  recentSales: { saleId: number; customerName?: string; total?: number; createdAt?: string }[]
+}
+
+/**
+ * Se suscribe a /dashboard/stream (Server-Sent Events).
+ * Usa fetch en lugar de EventSource porque EventSource no permite mandar el
+ * header Authorization. Reconecta solo si se corta; devuelve la función para
+ * cerrar la suscripción.
+ */
+export function subscribeDashboard(onUpdate: (u: DashboardUpdate) => void): () => void {
+  const controller = new AbortController()
+  let retryMs = 1000
+
+  const connect = async () => {
+    while (!controller.signal.aborted) {
+      try {
+        const token = localStorage.getItem('token')
+        const resp = await fetch(`${API_BASE_URL}/dashboard/stream`, {
+          headers: {
+            Accept: 'text/event-stream',
+            ...(token ? { Authorization: `Bearer ${token}` } : {}),
+          },
+          signal: controller.signal,
+        })
+        if (!resp.ok || !resp.body) throw new Error(`HTTP ${resp.status}`)
+        retryMs = 1000
+
+        const reader = resp.body.pipeThrough(new TextDecoderStream()).getReader()
+        let buffer = ''
+        for (;;) {
+          const { value, done } = await reader.read()
+          if (done) break
+          buffer += value
+          // los eventos SSE se separan con una línea en blanco
+          let sep: number
+          while ((sep = buffer.indexOf('\n\n')) >= 0) {
+            const raw = buffer.slice(0, sep)
+            buffer = buffer.slice(sep + 2)
+            const data = raw
+              .split('\n')
+              .filter((l) => l.startsWith('data:'))
+              .map((l) => l.slice(5).trimStart())
+              .join('\n')
+            if (data) onUpdate(JSON.parse(data) as DashboardUpdate)
+          }
+        }
+      } catch {
+        if (controller.signal.aborted) return
+      }
+      await new Promise((r) => setTimeout(r, retryMs))
+      retryMs = Math.min(retryMs * 2, 30000)
+    }
+  }
+
+  void connect()
+  return () => controller.abort()
+}
@@ -89,8 +89,8 @@ export async function fetchProducts(params: {
       q,
       page,
       size,
-      stockLt,   // el backend los va a ignorar si no los usa
-      stockGt,   // idem, los dejamos para no romper nada
+      stockLt,   // stock < X
+      stockGt,   // el backend lo ignora, lo dejamos para no romper nada
       minStock,  // este sí lo usa tu ProductController
       active,    // idem
     },
@@ -107,6 +107,27 @@ export async function fetchProducts(params: {
   };
 }
 
+// --------- Sugerencias para el buscador (typeahead, índice en memoria) ---------
+// No trae stock: al elegir una opción se pide el producto completo con getProduct.
+export type ProductSuggestion = {
+  id: number;
+  name: string;
+  sku: string;
+  barcode?: string | null;
+  category?: string | null;
+  salePrice?: number | null;
+};
+
+export async function fetchProductSuggestions(
+  prefix: string,
+  limit = 10
+): Promise<ProductSuggestion[]> {
+  const response = await api.get("/products/suggest", {
+    params: { prefix, limit },
+  });
+  return Array.isArray(response.data) ? response.data : [];
+}
+
 // --------- Crear producto (JSON, no multipart) ---------
 export async function createProduct(payload: ProductPayload): Promise<Product> {
   const response = await api.post("/products", payload);
@@ -128,6 +149,75 @@ export async function getProduct(id: number): Promise<Product> {
   return response.data;
 }
 
+// --------- Buscar por código de barras (escaneo en caja) ---------
+// null si el código no existe (404)
+export type ProductSnapshot = {
+  id: number;
+  name: string;
+  sku: string;
+  barcode: string;
+  salePrice?: number | null;
+  stock: number;
+};
+
+export async function getProductByBarcode(
+  code: string
+): Promise<ProductSnapshot | null> {
+  const response = await api.get(
+    `/products/by-barcode/${encodeURIComponent(code.trim())}`,
+    { validateStatus: (s) => s === 200 || s === 404 }
+  );
+  return response.status === 404 ? null : response.data;
+}
+
+// --------- Importación masiva (CSV o NDJSON, alta/actualización por SKU) ---------
+export type ProductImportResult = {
+  rows: number;
+  upserted: number;
+  failed: number;
+  errors: { line: number; sku: string | null; message: string }[];
+  errorsTruncated: boolean;
+};
+
+export async function importProducts(file: File): Promise<ProductImportResult> {
+  const ndjson = /\.(ndjson|jsonl)$/i.test(file.name);
+  const response = await api.post("/products/import", file, {
+    params: { format: ndjson ? "ndjson" : "csv" },
+    headers: { "Content-Type": ndjson ? "application/x-ndjson" : "text/csv" },
+    timeout: 0,
+  });
+  return response.data;
+}
+
+// --------- Reprecio masivo (porcentaje sobre el costo, margen de cada producto) ---------
+export type RepriceRule = {
+  category?: string;
+  costChangePercent: number;
+  recomputeSalePrice?: boolean;
+  dryRun?: boolean;
+  previewLimit?: number;
+};
+
+export type RepriceResult = {
+  dryRun: boolean;
+  matched: number;
+  updated: number;
+  preview: {
+    id: number;
+    sku: string;
+    name: string;
+    costPrice: number;
+    newCostPrice: number;
+    salePrice: number;
+    newSalePrice: number;
+  }[];
+};
+
+export async function repriceProducts(rule: RepriceRule): Promise<RepriceResult> {
+  const response = await api.post("/products/reprice", rule);
+  return response.data;
+}
+
 // --------- Eliminar producto ---------
 export async function deleteProduct(id: number): Promise<void> {
   await api.delete(`/products/${id}`);
@@ -166,12 +256,37 @@ export async function exportStockCSV(params: {
   return response.data as Blob;
 }
 
-// --------- Listado de stock bajo ---------
+// --------- Listado de stock bajo (stock <= stockMin; threshold = criterio viejo stock < X) ---------
 export async function fetchLowStockProducts(
-  threshold: number
+  threshold?: number,
+  page = 0,
+  size = 100
 ): Promise<Product[]> {
   const response = await api.get("/products/low-stock", {
-    params: { threshold },
+    params: { threshold, page, size },
+  });
+
+  const data = response.data as any;
+  return Array.isArray(data.content) ? (data.content as Product[]) : [];
+}
+
+// --------- Cambios de stock bajo desde un cursor (para refrescar sin recargar la lista) ---------
+export interface LowStockChange {
+  eventId: number;
+  productId: number;
+  sku: string | null;
+  stock: number | null;
+  stockMin: number | null;
+  low: boolean;
+  at: string;
+}
+
+export async function fetchLowStockChanges(
+  after = 0,
+  limit = 100
+): Promise<{ changes: LowStockChange[]; cursor: number }> {
+  const response = await api.get("/products/low-stock/changes", {
+    params: { after, limit },
   });
 
   return response.data;
@@ -215,19 +330,12 @@ export async function getProductsStats(): Promise<{
 }
 
 // --------- Obtener cantidad de productos con stock bajo ---------
-//   - Si viene threshold => usa /products/low-stock?threshold=X y cuenta
-//   - Si NO viene => usa las stats generales (lowStockCount)
+//   Requiere login, no rol ADMIN: el badge del sidebar lo pide para todos los usuarios
 export async function getLowStockCount(threshold?: number): Promise<number> {
-  // Caso con umbral explícito (como en Sidebar: getLowStockCount(5))
-  if (typeof threshold === "number") {
-    const response = await api.get("/products/low-stock", {
-      params: { threshold },
-    });
-    const list = response.data as Product[];
-    return Array.isArray(list) ? list.length : 0;
-  }
-
-  // Caso sin parámetro: usar stats globales
-  const stats = await getProductsStats();
-  return stats.lowStockCount ?? 0;
+  // Sin umbral: stock <= stockMin de cada producto; con umbral: stock < threshold.
+  // size=1: sólo interesa el total de la página
+  const response = await api.get("/products/low-stock", {
+    params: { threshold, size: 1 },
+  });
+  return (response.data as any)?.totalElements ?? 0;
 }
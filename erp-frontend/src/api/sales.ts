@@ -133,11 +133,18 @@ export async function fetchSaleById(id: number): Promise<Sale> {
 }
 
 // --------- Crear venta ---------
-export async function createSale(payload: {
-  customerName: string;
-  items: { productId: number; quantity: number }[];
-}): Promise<Sale> {
-  const response = await api.post("/sales", payload);
+// idempotencyKey: la misma clave en cada reintento de la MISMA venta
+// (el backend devuelve la venta ya creada en lugar de duplicarla).
+export async function createSale(
+  payload: {
+    customerName: string;
+    items: { productId: number; quantity: number }[];
+  },
+  idempotencyKey?: string
+): Promise<Sale> {
+  const response = await api.post("/sales", payload, {
+    headers: idempotencyKey ? { "Idempotency-Key": idempotencyKey } : undefined,
+  });
   const item = response.data as any;
 
   const rawItems = Array.isArray(item.items) ? item.items : [];
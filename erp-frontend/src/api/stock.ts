@@ -10,16 +10,16 @@ export async function fetchLowStock(params: {
   q?: string;
   page?: number;
   size?: number;
-  threshold?: number;   // umbral (default 5)
+  threshold?: number;   // sin umbral: stock <= stockMin de cada producto
 }): Promise<Page<Product>> {
-  const { q, page = 0, size = 10, threshold = 5 } = params;
+  const { q, page = 0, size = 10, threshold } = params;
 
-  const res = await api.get("/products", {
+  const res = await api.get("/products/low-stock", {
     params: {
       q,
       page,
       size,
-      stockLt: threshold, // filtrado verdadero
+      threshold, // criterio anterior: stock < threshold
     },
   });
 
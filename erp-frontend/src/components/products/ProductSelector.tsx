@@ -10,7 +10,15 @@ import {
   Typography,
   Box,
 } from "@mui/material";
-import { Product, fetchProducts } from "../../api/products";
+import {
+  Product,
+  ProductSuggestion,
+  fetchProductSuggestions,
+  getProduct,
+} from "../../api/products";
+
+// Las opciones son sugerencias livianas; el value es el producto completo
+type Option = ProductSuggestion | Product;
 
 type ProductSelectorProps = {
   value: Product | null;
@@ -34,11 +42,11 @@ export default function ProductSelector({
   textFieldProps,
 }: ProductSelectorProps) {
   const [inputValue, setInputValue] = useState(initialQuery);
-  const [options, setOptions] = useState<Product[]>([]);
+  const [options, setOptions] = useState<Option[]>([]);
   const [loading, setLoading] = useState(false);
 
   // Siempre incluimos el value actual en las opciones (si no está)
-  const mergedOptions = useMemo(() => {
+  const mergedOptions = useMemo<Option[]>(() => {
     if (!value) return options;
     const exists = options.some((p) => p.id === value.id);
     return exists ? options : [value, ...options];
@@ -67,14 +75,10 @@ export default function ProductSelector({
 
       setLoading(true);
       try {
-        const page = await fetchProducts({
-          q,
-          page: 0,
-          size: 10,
-        });
+        const suggestions = await fetchProductSuggestions(q, 10);
 
         if (!active) return;
-        setOptions(page.content ?? []);
+        setOptions(suggestions);
       } catch (e) {
         if (!active) return;
         setOptions([]);
@@ -97,7 +101,18 @@ export default function ProductSelector({
       disabled={disabled}
       options={mergedOptions}
       value={value}
-      onChange={(_ev, newValue) => onChange(newValue)}
+      onChange={async (_ev, newValue) => {
+        if (!newValue) {
+          onChange(null);
+          return;
+        }
+        // stock y precio vigentes del producto elegido
+        try {
+          onChange(await getProduct(newValue.id));
+        } catch {
+          onChange(null);
+        }
+      }}
       getOptionLabel={(option) =>
         option?.name
           ? option.name
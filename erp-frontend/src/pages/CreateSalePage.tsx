@@ -1,4 +1,4 @@
-import { useMemo, useState } from "react";
+import { useMemo, useRef, useState } from "react";
 import {
   Box,
   Paper,
@@ -64,6 +64,8 @@ export default function CreateSalePage() {
   const [ok, setOk] = useState<string | null>(null);
   const [err, setErr] = useState<string | null>(null);
   const [submitAttempted, setSubmitAttempted] = useState(false);
+  // Una clave por venta: los reintentos (Wi-Fi inestable, doble click) no la duplican
+  const idempotencyKey = useRef<string>(crypto.randomUUID());
 
   /** Estado del dialog de nuevo cliente */
   const [createCustomerOpen, setCreateCustomerOpen] = useState(false);
@@ -295,8 +297,9 @@ export default function CreateSalePage() {
       invoiceType,
       customerId,
       paymentMethod,
-    } as any);
+    } as any, idempotencyKey.current);
 
+    idempotencyKey.current = crypto.randomUUID();
     setOk("Venta creada con éxito");
     toast.success("Venta creada con éxito");
 
@@ -1,15 +1,17 @@
 // ==========================
 //  src/pages/DashboardPage.tsx
 // ==========================
-import React, { useMemo } from 'react';
+import React, { useEffect, useMemo } from 'react';
 import { Grid, Typography, Stack } from '@mui/material';
-import { useQuery } from '@tanstack/react-query';
+import { useQuery, useQueryClient } from '@tanstack/react-query';
 import KpiCard from '../components/dashboard/KpiCard';
 import SalesAreaChart, { Point } from '../components/dashboard/SalesAreaChart';
 import RecentSalesTable, { RecentSale } from '../components/dashboard/RecentSalesTable';
 import { formatCurrencyARS } from '../utils/format';
 import api from '../api/client';
 import { fetchProducts, getLowStockCount, type Product } from '../api/products';
+import { fetchSalesSeries, type SalesSeriesResponse } from '../api/analytics';
+import { subscribeDashboard } from '../api/dashboard';
 
 // ---- Tipos mínimos para las ventas del backend (SaleResponse) ----
 type SaleResponse = {
@@ -29,16 +31,27 @@ type Page<T> = {
   size: number;
 };
 
-// Normalizar un string de fecha del backend a "YYYY-MM-DD"
-function toDayKey(raw?: string | null): string | null {
-  if (!raw) return null;
-  const iso = raw.length > 10 ? raw : `${raw}T00:00:00`;
-  const d = new Date(iso);
-  if (Number.isNaN(d.getTime())) return null;
-  return d.toISOString().slice(0, 10);
+// Fecha local a "YYYY-MM-DD"
+function toIsoDay(d: Date): string {
+  const mm = String(d.getMonth() + 1).padStart(2, '0');
+  const dd = String(d.getDate()).padStart(2, '0');
+  return `${d.getFullYear()}-${mm}-${dd}`;
 }
 
 const DashboardPage: React.FC = () => {
+  const qc = useQueryClient();
+
+  // ==========================
+  //  Push del backend (SSE): al confirmarse ventas se refrescan serie y recientes
+  // ==========================
+  useEffect(
+    () =>
+      subscribeDashboard((update) => {
+        if (update.delta) qc.invalidateQueries({ queryKey: ['sales'] });
+      }),
+    [qc]
+  );
+
   // ==========================
   //  Query: productos (para total de productos)
   // ==========================
@@ -64,13 +77,13 @@ const DashboardPage: React.FC = () => {
   const lowStockCount = lowStockData ?? 0;
 
   // ==========================
-  //  Query: ventas (primer página, últimas ventas)
+  //  Query: ventas recientes (tabla derecha)
   // ==========================
   const { data: salesPage } = useQuery<Page<SaleResponse>>({
-    queryKey: ['sales', { page: 0, size: 100 }],
+    queryKey: ['sales', { page: 0, size: 5 }],
     queryFn: async () => {
       const resp = await api.get('/sales', {
-        params: { page: 0, size: 100 },
+        params: { page: 0, size: 5 },
       });
       const data = resp.data as any;
       return {
@@ -87,69 +100,37 @@ const DashboardPage: React.FC = () => {
   const sales: SaleResponse[] = salesPage?.content ?? [];
 
   // ==========================
-  //  Ventas de hoy (KPI principal)
+  //  Query: serie últimos 14 días (agregada en el backend)
   // ==========================
-  const todayTotal = useMemo(() => {
-    if (!sales.length) return 0;
-
-    const todayKey = new Date().toISOString().slice(0, 10); // YYYY-MM-DD
-    return sales.reduce((acc, s) => {
-      const key = toDayKey(s.createdAt);
-      if (key !== todayKey) return acc;
-
-      const total =
-        typeof s.totalAmount === 'number'
-          ? s.totalAmount
-          : typeof s.total === 'number'
-          ? s.total
-          : 0;
-
-      return acc + total;
-    }, 0);
-  }, [sales]);
+  const range = useMemo(() => {
+    const to = new Date();
+    const from = new Date(to);
+    from.setDate(to.getDate() - 13);
+    return { from: toIsoDay(from), to: toIsoDay(to) };
+  }, []);
+
+  const { data: seriesData } = useQuery<SalesSeriesResponse>({
+    queryKey: ['sales', 'series', range],
+    queryFn: () => fetchSalesSeries({ ...range, bucket: 'day' }),
+    placeholderData: (prev) => prev,
+  });
 
   // ==========================
   //  Serie para "Ventas últimos 14 días"
   // ==========================
   const series: Point[] = useMemo(() => {
-    // 1) Inicializar últimos 14 días en 0
-    const map = new Map<string, number>(); // key = YYYY-MM-DD
-    const today = new Date();
-
-    for (let i = 13; i >= 0; i--) {
-      const d = new Date(today);
-      d.setDate(today.getDate() - i);
-      const key = d.toISOString().slice(0, 10);
-      map.set(key, 0);
-    }
-
-    // 2) Acumular montos por día
-    for (const s of sales) {
-      const key = toDayKey(s.createdAt);
-      if (!key || !map.has(key)) continue;
-
-      const total =
-        typeof s.totalAmount === 'number'
-          ? s.totalAmount
-          : typeof s.total === 'number'
-          ? s.total
-          : 0;
+    if (!seriesData) return [];
+    const totals = seriesData.series[0]?.totals ?? [];
+    return seriesData.buckets.map((key, i) => ({
+      date: `${key.slice(8, 10)}/${key.slice(5, 7)}`, // ej: "18/11"
+      total: Number(totals[i] ?? 0),
+    }));
+  }, [seriesData]);
 
-      map.set(key, (map.get(key) ?? 0) + total);
-    }
-
-    // 3) Pasar a array ordenado y formatear fecha a dd/MM para el eje X
-    return Array.from(map.entries())
-      .sort(([a], [b]) => a.localeCompare(b))
-      .map(([key, total]) => {
-        const mm = key.slice(5, 7);
-        const dd = key.slice(8, 10);
-        return {
-          date: `${dd}/${mm}`, // ej: "18/11"
-          total,
-        };
-      });
-  }, [sales]);
+  // ==========================
+  //  Ventas de hoy (KPI principal): último bucket de la serie
+  // ==========================
+  const todayTotal = series.length ? series[series.length - 1].total : 0;
 
   // ==========================
   //  Ventas recientes (tabla derecha)